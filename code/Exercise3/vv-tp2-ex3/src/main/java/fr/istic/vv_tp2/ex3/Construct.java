@@ -0,0 +1,27 @@
+package fr.istic.vv_tp2.ex3;
+
+/**
+ * Nesting constructs counted by the {@link NestingRule nesting rules}.
+ */
+public enum Construct {
+    /**
+     * <code>if</code> statements. The <code>else if</code> of a chain of conditions is at the
+     * depth of the first <code>if</code> of the chain.
+     */
+    IF,
+
+    /**
+     * <code>for</code>, for-each, <code>while</code> and <code>do</code> statements.
+     */
+    LOOP,
+
+    /**
+     * <code>try</code> statements.
+     */
+    TRY,
+
+    /**
+     * <code>switch</code> statements and expressions.
+     */
+    SWITCH
+}
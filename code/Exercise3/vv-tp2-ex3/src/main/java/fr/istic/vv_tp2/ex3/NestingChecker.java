@@ -0,0 +1,73 @@
+package fr.istic.vv_tp2.ex3;
+
+import fr.istic.vv_tp2.common.AnalysisDriver;
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.RunProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Main class of the nesting rules checker, which reports the constructs nested too deeply in a
+ * given Java project, as the <code>TooMuchNestedIf</code> rule of the custom PMD ruleset does.
+ */
+public class NestingChecker {
+
+    /**
+     * Suffix of the report files, appended to the name of the project.
+     */
+    public static final String FILE_SUFFIX = "_report_nesting.txt";
+
+    /**
+     * Nesting rules checker entry point.
+     *
+     * @param args Program's arguments : should contain the folder of a project, optionally
+     *             followed by <code>--threads &lt;count&gt;</code> to set the number of worker
+     *             threads (defaults to the number of available processors),
+     *             <code>--charset &lt;name&gt;</code> to set the charset of the source files
+     *             (defaults to UTF-8) and <code>--threshold &lt;rule&gt;=&lt;depth&gt;</code>
+     *             to change the threshold of a rule. Analyzed files are selected by the options
+     *             described in {@link fr.istic.vv_tp2.common.AnalysisOptions}. The peak heap
+     *             usage of the run is printed at the end. With
+     *             <code>--profile &lt;file&gt;</code>, the time spent in each phase and the
+     *             slowest files are written to the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void main(String[] args) throws IOException {
+        NestingOptions options = null;
+        try {
+            options = NestingOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(1);
+        }
+
+        String projectName = new File(options.path).getName();
+
+        System.out.println("Analyzing the project...");
+
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        List<Path> javaFiles = JavaFiles.find(Path.of(options.path), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
+
+        // Files which cannot be analyzed are reported aside.
+        try (ParseFailures failures = new ParseFailures(
+                new File(projectName + "_parse_failures.csv"));
+             AnalysisDriver driver = new AnalysisDriver(
+                     new AnalysisEngine(options, failures).profiledBy(profile))) {
+            NestingUnitAnalysis analysis = new NestingUnitAnalysis(
+                    Path.of(projectName + FILE_SUFFIX), options.rules());
+            driver.add(analysis)
+                    .run(javaFiles);
+            System.out.println(analysis.violations() + " violations");
+        }
+        profile.write();
+        PeakHeap.print();
+    }
+}
@@ -0,0 +1,77 @@
+package fr.istic.vv_tp2.ex3;
+
+import fr.istic.vv_tp2.common.AnalysisOptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of the programs checking the nesting rules.
+ */
+public class NestingOptions extends AnalysisOptions {
+
+    /**
+     * Thresholds overriding the defaults of the rules, by rule name.
+     */
+    public final Map<String, Integer> thresholds = new LinkedHashMap<>();
+
+    /**
+     * Parses the program's arguments.
+     *
+     * @param args Program's arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static NestingOptions parse(String[] args) {
+        NestingOptions options = new NestingOptions();
+        options.parseArgs(args);
+        return options;
+    }
+
+    /**
+     * Gets the checked rules: the built-in rules, with their thresholds overridden by the
+     * options.
+     *
+     * @return The checked rules.
+     */
+    public List<NestingRule> rules() {
+        List<NestingRule> rules = new ArrayList<>();
+        for (NestingRule rule : NestingRule.defaults())
+            rules.add(rule.withThreshold(thresholds.getOrDefault(rule.name(), rule.threshold())));
+        return rules;
+    }
+
+    /**
+     * Tells whether the analyses need the positions of the nodes: violations are reported with
+     * their lines.
+     *
+     * @return <code>true</code>.
+     */
+    @Override
+    public boolean needsPositions() {
+        return true;
+    }
+
+    @Override
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        if (!option.equals("--threshold"))
+            return super.parseOption(args, index);
+
+        // e.g. --threshold TooMuchNestedIf=4
+        String value = value(args, index + 1, option);
+        int separator = value.indexOf('=');
+        if (separator < 0)
+            throw new IllegalArgumentException("invalid value of " + option + ": " + value);
+        String name = value.substring(0, separator);
+        if (NestingRule.defaults()
+                .stream()
+                .noneMatch(rule -> rule.name()
+                        .equals(name)))
+            throw new IllegalArgumentException("unknown rule: " + name);
+        thresholds.put(name, parsePositive(option, value.substring(separator + 1)));
+        return index + 2;
+    }
+}
@@ -0,0 +1,60 @@
+package fr.istic.vv_tp2.ex3;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Structural rule reporting the constructs nested too deeply into each other, e.g. an
+ * <code>if</code> statement inside two other <code>if</code> statements.
+ * <p>
+ * The depth of a construct is the number of counted constructs enclosing it, itself included,
+ * within its method: local and anonymous classes start from zero. A construct is reported when
+ * its depth reaches the threshold of the rule, so each construct is reported at most once per
+ * rule.
+ *
+ * @param name       Name of the rule, as in the reports.
+ * @param subject    Plural noun naming the counted constructs in the messages, e.g.
+ *                   <code>if statements</code>.
+ * @param constructs Constructs counted by the rule.
+ * @param threshold  Depth from which constructs are reported.
+ */
+public record NestingRule(String name, String subject, Set<Construct> constructs,
+        int threshold) {
+
+    /**
+     * Gets the built-in rules. <code>TooMuchNestedIf</code> reproduces the XPath rule
+     * <code>//IfStatement//IfStatement//IfStatement</code> of the custom PMD ruleset.
+     *
+     * @return The built-in rules, with their default thresholds.
+     */
+    public static List<NestingRule> defaults() {
+        return List.of(
+                new NestingRule("TooMuchNestedIf", "if statements", EnumSet.of(Construct.IF), 3),
+                new NestingRule("TooMuchNestedLoop", "loops", EnumSet.of(Construct.LOOP), 3),
+                new NestingRule("TooMuchNestedTry", "try statements", EnumSet.of(Construct.TRY),
+                        2),
+                new NestingRule("TooDeepControlFlow", "control flow statements",
+                        EnumSet.allOf(Construct.class), 5));
+    }
+
+    /**
+     * Gets the message of the violations of the rule.
+     *
+     * @return The message, e.g. <code>3 or more if statements directly or indirectly
+     *         nested.</code>
+     */
+    public String message() {
+        return threshold + " or more " + subject + " directly or indirectly nested.";
+    }
+
+    /**
+     * Gets a copy of this rule with another threshold.
+     *
+     * @param threshold Depth from which constructs are reported.
+     * @return The rule, with the given threshold.
+     */
+    public NestingRule withThreshold(int threshold) {
+        return new NestingRule(name, subject, constructs, threshold);
+    }
+}
@@ -0,0 +1,111 @@
+package fr.istic.vv_tp2.ex3;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv_tp2.common.UnitAnalysis;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Checks the nesting rules over each compilation unit, and reports their violations into a text
+ * file in the format of the PMD text renderer, e.g.
+ * <code>src/Foo.java:12:&lt;tab&gt;TooMuchNestedIf:&lt;tab&gt;message</code>, so that the report
+ * can be compared with, or replace, a report of PMD. As by PMD, files are named relatively to the
+ * working directory. Closing the analysis closes the file.
+ */
+public class NestingUnitAnalysis implements UnitAnalysis<NestingUnitAnalysis.Lines> {
+
+    /**
+     * Writer of the report.
+     */
+    private final Writer output;
+
+    /**
+     * Visitor of the compilation units, which holds no state.
+     */
+    private final NestingVisitor visitor;
+
+    /**
+     * Working directory, which the files are named relatively to.
+     */
+    private final Path workingDirectory = Path.of("")
+            .toAbsolutePath();
+
+    /**
+     * Number of violations reported so far.
+     */
+    private int violations;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param reportFile Text report file.
+     * @param rules      Checked rules.
+     * @throws IOException If the report file could not be opened.
+     */
+    public NestingUnitAnalysis(Path reportFile, List<NestingRule> rules) throws IOException {
+        this.output = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+        this.visitor = new NestingVisitor(rules);
+    }
+
+    @Override
+    public Lines analyze(CompilationUnit unit) {
+        // Lines of the unit are rendered by the workers, so that units can be checked
+        // concurrently.
+        String file = unit.getStorage()
+                .map(storage -> workingDirectory.relativize(storage.getPath()
+                        .toAbsolutePath())
+                        .toString())
+                .orElse("(unknown)");
+        StringBuilder text = new StringBuilder();
+        int[] count = new int[1];
+        unit.accept(visitor, new NestingVisitor.NestingParam(visitor, violation -> {
+            count[0]++;
+            text.append(file)
+                    .append(':')
+                    .append(violation.line())
+                    .append(":\t")
+                    .append(violation.rule()
+                            .name())
+                    .append(":\t")
+                    .append(violation.rule()
+                            .message())
+                    .append(System.lineSeparator());
+        }));
+        return new Lines(text.toString(), count[0]);
+    }
+
+    @Override
+    public void accept(Lines lines) throws IOException {
+        output.write(lines.text);
+        violations += lines.count;
+    }
+
+    /**
+     * Gets the number of violations reported so far.
+     *
+     * @return The number of violations.
+     */
+    public int violations() {
+        return violations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Report lines of a compilation unit.
+     *
+     * @param text  Lines of the violations of the unit.
+     * @param count Number of violations of the unit.
+     */
+    public record Lines(String text, int count) {
+    }
+}
@@ -0,0 +1,289 @@
+package fr.istic.vv_tp2.ex3;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SwitchExpr;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Visitor checking the {@link NestingRule nesting rules} over a compilation unit, in a single
+ * pass.
+ * <p>
+ * The visitor keeps the current depth of each rule: entering a construct increments the depths
+ * of the rules counting it, and reports the rules whose threshold is reached, and leaving it
+ * decrements them. Checking a node thus costs a few increments, however deeply it is nested,
+ * where the XPath rule <code>//IfStatement//IfStatement//IfStatement</code> scans the descendants
+ * of every <code>if</code> statement again. The rules are indexed by construct once, so a visitor
+ * holds no state, and may be shared between threads.
+ */
+public class NestingVisitor extends VoidVisitorAdapter<NestingVisitor.NestingParam> {
+
+    /**
+     * Checked rules.
+     */
+    private final List<NestingRule> rules;
+
+    /**
+     * Indices of the rules counting each construct, by construct ordinal.
+     */
+    private final int[][] rulesByConstruct;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param rules Checked rules.
+     */
+    public NestingVisitor(List<NestingRule> rules) {
+        this.rules = List.copyOf(rules);
+        Construct[] constructs = Construct.values();
+        this.rulesByConstruct = new int[constructs.length][];
+        for (Construct construct : constructs) {
+            List<Integer> counting = new ArrayList<>();
+            for (int rule = 0; rule < this.rules.size(); rule++)
+                if (this.rules.get(rule)
+                        .constructs()
+                        .contains(construct))
+                    counting.add(rule);
+            rulesByConstruct[construct.ordinal()] = counting.stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    /**
+     * Gets the checked rules.
+     *
+     * @return The rules, in the order of the depths of the parameters.
+     */
+    public List<NestingRule> rules() {
+        return rules;
+    }
+
+    @Override
+    public void visit(IfStmt ifStmt, NestingParam param) {
+        enter(Construct.IF, ifStmt, param);
+        visitIfChain(ifStmt, param);
+        exit(Construct.IF, param);
+    }
+
+    @Override
+    public void visit(ForStmt loop, NestingParam param) {
+        enter(Construct.LOOP, loop, param);
+        super.visit(loop, param);
+        exit(Construct.LOOP, param);
+    }
+
+    @Override
+    public void visit(ForEachStmt loop, NestingParam param) {
+        enter(Construct.LOOP, loop, param);
+        super.visit(loop, param);
+        exit(Construct.LOOP, param);
+    }
+
+    @Override
+    public void visit(WhileStmt loop, NestingParam param) {
+        enter(Construct.LOOP, loop, param);
+        super.visit(loop, param);
+        exit(Construct.LOOP, param);
+    }
+
+    @Override
+    public void visit(DoStmt loop, NestingParam param) {
+        enter(Construct.LOOP, loop, param);
+        super.visit(loop, param);
+        exit(Construct.LOOP, param);
+    }
+
+    @Override
+    public void visit(TryStmt tryStmt, NestingParam param) {
+        enter(Construct.TRY, tryStmt, param);
+        super.visit(tryStmt, param);
+        exit(Construct.TRY, param);
+    }
+
+    @Override
+    public void visit(SwitchStmt switchStmt, NestingParam param) {
+        enter(Construct.SWITCH, switchStmt, param);
+        super.visit(switchStmt, param);
+        exit(Construct.SWITCH, param);
+    }
+
+    @Override
+    public void visit(SwitchExpr switchExpr, NestingParam param) {
+        enter(Construct.SWITCH, switchExpr, param);
+        super.visit(switchExpr, param);
+        exit(Construct.SWITCH, param);
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration intClass, NestingParam param) {
+        visitType(param, () -> super.visit(intClass, param));
+    }
+
+    @Override
+    public void visit(EnumDeclaration enumDecl, NestingParam param) {
+        visitType(param, () -> super.visit(enumDecl, param));
+    }
+
+    @Override
+    public void visit(EnumConstantDeclaration constant, NestingParam param) {
+        visitType(param, () -> super.visit(constant, param));
+    }
+
+    @Override
+    public void visit(RecordDeclaration record, NestingParam param) {
+        visitType(param, () -> super.visit(record, param));
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr creation, NestingParam param) {
+        Optional<NodeList<BodyDeclaration<?>>> body = creation.getAnonymousClassBody();
+        if (body.isEmpty()) {
+            super.visit(creation, param);
+            return;
+        }
+
+        // Scope and arguments belong to the enclosing method.
+        creation.getScope()
+                .ifPresent(scope -> scope.accept(this, param));
+        creation.getArguments()
+                .forEach(argument -> argument.accept(this, param));
+        visitType(param, () -> body.get()
+                .forEach(member -> member.accept(this, param)));
+    }
+
+    /**
+     * Visits an <code>if</code> statement, and the <code>else if</code> statements chained to
+     * it at the same depth.
+     *
+     * @param ifStmt <code>if</code> statement.
+     * @param param  Parameter of the visitor.
+     */
+    private void visitIfChain(IfStmt ifStmt, NestingParam param) {
+        ifStmt.getCondition()
+                .accept(this, param);
+        ifStmt.getThenStmt()
+                .accept(this, param);
+
+        Optional<Statement> elseStmt = ifStmt.getElseStmt();
+        if (elseStmt.isEmpty())
+            return;
+        if (elseStmt.get() instanceof IfStmt elseIf) {
+            check(Construct.IF, elseIf, param);
+            visitIfChain(elseIf, param);
+        } else {
+            elseStmt.get()
+                    .accept(this, param);
+        }
+    }
+
+    /**
+     * Enters a construct: increments the depths of the rules counting it, and reports it to the
+     * rules whose threshold is reached.
+     *
+     * @param construct Kind of the construct.
+     * @param node      Node of the construct.
+     * @param param     Parameter of the visitor.
+     */
+    private void enter(Construct construct, Node node, NestingParam param) {
+        for (int rule : rulesByConstruct[construct.ordinal()])
+            param.depths[rule]++;
+        check(construct, node, param);
+    }
+
+    /**
+     * Reports a construct to the rules counting it whose threshold is reached.
+     *
+     * @param construct Kind of the construct.
+     * @param node      Node of the construct.
+     * @param param     Parameter of the visitor.
+     */
+    private void check(Construct construct, Node node, NestingParam param) {
+        for (int rule : rulesByConstruct[construct.ordinal()]) {
+            NestingRule nestingRule = rules.get(rule);
+            if (param.depths[rule] >= nestingRule.threshold())
+                param.violations.accept(new Violation(nestingRule, node.getBegin()
+                        .map(position -> position.line)
+                        .orElse(0)));
+        }
+    }
+
+    /**
+     * Leaves a construct, decrementing the depths of the rules counting it.
+     *
+     * @param construct Kind of the construct.
+     * @param param     Parameter of the visitor.
+     */
+    private void exit(Construct construct, NestingParam param) {
+        for (int rule : rulesByConstruct[construct.ordinal()])
+            param.depths[rule]--;
+    }
+
+    /**
+     * Visits the members of a type, whose methods start from a zero depth.
+     *
+     * @param param        Parameter of the visitor.
+     * @param visitMembers Visit of the members of the type.
+     */
+    private static void visitType(NestingParam param, Runnable visitMembers) {
+        int[] enclosingDepths = param.depths.clone();
+        Arrays.fill(param.depths, 0);
+        visitMembers.run();
+        System.arraycopy(enclosingDepths, 0, param.depths, 0, enclosingDepths.length);
+    }
+
+    /**
+     * Violation of a nesting rule.
+     *
+     * @param rule Violated rule.
+     * @param line Line of the construct nested too deeply, or 0 if the node has no position.
+     */
+    public record Violation(NestingRule rule, int line) {
+    }
+
+    /**
+     * Parameter of the nesting visitor, holding the state of the visit of a compilation unit.
+     */
+    public static class NestingParam {
+        /**
+         * Current depth of each rule.
+         */
+        final int[] depths;
+
+        /**
+         * Consumer of the violations.
+         */
+        final Consumer<Violation> violations;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param visitor    Visitor the parameter is given to.
+         * @param violations Consumer of the violations.
+         */
+        public NestingParam(NestingVisitor visitor, Consumer<Violation> violations) {
+            this.depths = new int[visitor.rules.size()];
+            this.violations = violations;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fr.istic.vv_tp2.ex3;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the violations reported by the {@link NestingVisitor}: each construct nested too deeply
+ * is reported once per rule, as the XPath rule of the custom PMD ruleset reports it.
+ */
+class NestingVisitorTest {
+
+    /**
+     * Sample file of the exercise, relative to the module.
+     */
+    private static final Path SAMPLE = Path.of("..", "Test.java");
+
+    @Test
+    void reportsEachTooDeepIfOfTheSampleOnce() throws IOException {
+        List<String> violations = violations(StaticJavaParser.parse(SAMPLE),
+                List.of(NestingRule.defaults()
+                        .get(0)));
+
+        assertEquals(List.of("TooMuchNestedIf:7", "TooMuchNestedIf:23", "TooMuchNestedIf:24"),
+                violations);
+    }
+
+    @Test
+    void reportsTheSampleForEveryDefaultRule() throws IOException {
+        List<String> violations = violations(StaticJavaParser.parse(SAMPLE),
+                NestingRule.defaults());
+
+        assertEquals(List.of("TooMuchNestedIf:7", "TooMuchNestedIf:23", "TooDeepControlFlow:23",
+                "TooMuchNestedIf:24", "TooDeepControlFlow:24"), violations);
+    }
+
+    @Test
+    void elseIfChainsStayAtTheSameDepth() {
+        List<String> violations = violations(StaticJavaParser.parse("""
+                class Chain {
+                    void run(int x) {
+                        if (x == 0) {
+                        } else if (x == 1) {
+                        } else if (x == 2) {
+                            if (x > 0)
+                                if (x > 1)
+                                    x++;
+                        }
+                    }
+                }
+                """), List.of(NestingRule.defaults()
+                .get(0)));
+
+        assertEquals(List.of("TooMuchNestedIf:7"), violations);
+    }
+
+    /**
+     * Checks rules over a compilation unit.
+     *
+     * @param unit  Compilation unit.
+     * @param rules Checked rules.
+     * @return The violations, as <code>rule:line</code>, in the order of the visit.
+     */
+    private static List<String> violations(CompilationUnit unit, List<NestingRule> rules) {
+        List<String> violations = new ArrayList<>();
+        NestingVisitor visitor = new NestingVisitor(rules);
+        unit.accept(visitor, new NestingVisitor.NestingParam(visitor,
+                violation -> violations.add(violation.rule()
+                        .name() + ":" + violation.line())));
+        return violations;
+    }
+}
@@ -1,12 +1,16 @@
 package fr.istic.vv_tp2.ex4;
 
-import com.github.javaparser.StaticJavaParser;
+import fr.istic.vv_tp2.common.AnalysisDriver;
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.RunProfile;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Main class of the GetterFinder program, which finds every private attributes with
@@ -14,63 +18,64 @@ import java.nio.file.Files;
  */
 public class GetterFinder {
 
+    /**
+     * Header of the CSV report.
+     */
+    static final String[] CSV_HEADER = {"No getter field name", "Declaring class", "Package"};
+
     /**
      * Entry point of the program.
      *
-     * @param args Program's arguments : should contain the folder of a project.
+     * @param args Program's arguments : should contain the folder of a project, optionally
+     *             followed by <code>--threads &lt;count&gt;</code> to set the number of worker
+     *             threads (defaults to the number of available processors) and
+     *             <code>--charset &lt;name&gt;</code> to set the charset of the source files
+     *             (defaults to UTF-8). Analyzed files are selected by the options described in
+     *             {@link fr.istic.vv_tp2.common.AnalysisOptions}. With
+     *             <code>--resolve-types</code>, getters must return the type of their field and
+     *             inherited getters count, types being resolved from the source roots given by
+     *             <code>--source-root &lt;folder&gt;</code> (defaults to
+     *             <code>src/main/java</code>, or the project). The peak heap usage of the run is
+     *             printed at the end. With <code>--profile &lt;file&gt;</code>, the time spent
+     *             in each phase and the slowest files are written to the file.
      * @throws IOException If any I/O error occurs.
      */
     public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
-            System.err.println(
-                    "error: no inputFile provided: please provide at least one inputFile path.");
+        GetterOptions options = null;
+        try {
+            options = GetterOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
             System.exit(1);
         }
 
-        File inputFile = new File(args[0]);
+        File inputFile = new File(options.path);
         File outputFile = new File(inputFile.getName() + "_report_no_getter.csv");
-        try (PrintWriter output = new PrintWriter(new FileOutputStream(outputFile))) {
-            output.println("No getter field name,Declaring class,Package");
-            exploreDirectory(inputFile, output);
-        }
-    }
 
-    /**
-     * Explore recursively a directory in order to find <code>.java</code> files
-     * in it, and find attributes with no getters in these files.
-     *
-     * @param file   Directory's file.
-     * @param output Output file's print writer.
-     * @throws IOException If any I/O error occur.
-     */
-    private static void exploreDirectory(File file, PrintWriter output) throws IOException {
-        // If directory, explore its sub directories.
-        if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
-            for (File child : file.listFiles())
-                exploreDirectory(child, output);
-            return;
-        }
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        List<Path> javaFiles = JavaFiles.find(inputFile.toPath(), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
 
-        // Otherwise parse file.
-        String fileName = file.getName();
-        int dotIndex = fileName.lastIndexOf(".");
-        if (fileName.substring(dotIndex == -1 ? 0 : dotIndex)
-                .equals(".java"))
-            findGetters(file, output);
-    }
+        // A single resolver is shared by the whole project.
+        TypeResolver resolver = !options.resolveTypes ? null
+                : new TypeResolver(options.sourceRoots(),
+                        options.parserConfiguration(options.languageLevel),
+                        TypeResolver.DEFAULT_CACHE_SIZE);
 
-    /**
-     * Finds private attributes with no getter in a given Java file.
-     *
-     * @param inputFile Java file.
-     * @param output    Output file's print writer.
-     * @throws IOException If any I/O error occur.
-     */
-    private static void findGetters(File inputFile, PrintWriter output) throws IOException {
-        GetterFinderVisitor visitor = new GetterFinderVisitor();
-        GetterFinderVisitor.VisitorParam param = new GetterFinderVisitor.VisitorParam(output);
-
-        StaticJavaParser.parse(inputFile)
-                .accept(visitor, param);
+        // Files are loaded through NIO and parsed on the workers of the engine, and files which
+        // cannot be analyzed are reported aside.
+        try (ParseFailures failures = new ParseFailures(
+                new File(inputFile.getName() + "_parse_failures.csv"));
+             AnalysisDriver driver = new AnalysisDriver(
+                     new AnalysisEngine(options, failures).profiledBy(profile))) {
+            driver.add(new GetterUnitAnalysis(outputFile, resolver))
+                    .run(javaFiles);
+        }
+        if (resolver != null && resolver.failures() > 0)
+            System.err.printf("warning: %d type(s) could not be resolved, and were compared as "
+                    + "written%n", resolver.failures());
+        profile.write();
+        PeakHeap.print();
     }
 }
@@ -1,23 +1,54 @@
 package fr.istic.vv_tp2.ex4;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.nodeTypes.NodeWithName;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
+import fr.istic.vv_tp2.common.CsvWriter;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Visitor which finds private attributes with no getters in public classes of a given
  * Java compilation unit.
+ * <p>
+ * The public methods with no parameter of each class are indexed once, so that the getter of
+ * each field is looked up in constant time. By default, getters are matched by name only. When
+ * given a {@link TypeResolver}, the visitor also requires a getter to return the type of its
+ * field, and counts the getters inherited by the class.
  */
 public class GetterFinderVisitor extends VoidVisitorAdapter<GetterFinderVisitor.VisitorParam> {
 
+    /**
+     * Resolver of the types of the project, or <code>null</code> to match getters by name.
+     */
+    private final TypeResolver resolver;
+
+    /**
+     * Constructor of the class, matching getters by name.
+     */
+    public GetterFinderVisitor() {
+        this(null);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param resolver Resolver of the types of the project, shared by the visitors, or
+     *                 <code>null</code> to match getters by name.
+     */
+    public GetterFinderVisitor(TypeResolver resolver) {
+        this.resolver = resolver;
+    }
+
     @Override
     public void visit(CompilationUnit unit, VisitorParam param) {
         param.packageName = unit.getPackageDeclaration()
@@ -35,47 +66,109 @@ public class GetterFinderVisitor extends VoidVisitorAdapter<GetterFinderVisitor.
         if (intClass.isInterface() || !intClass.isPublic())
             return;
 
-        List<String> fieldNames = new ArrayList<>();
-
-        // Gathering fields identifiers
-        for (FieldDeclaration fieldDecl : intClass.getFields())
-            for (VariableDeclarator varDecl : fieldDecl.getVariables())
-                if (fieldDecl.isPrivate())
-                    fieldNames.add(varDecl.getNameAsString());
-                else if (fieldDecl.isClassOrInterfaceDeclaration())
-                    fieldDecl.asClassOrInterfaceDeclaration()
-                            .accept(this, param);
-
-        // For each field, find if they have a getter.
-        for (String fieldName : fieldNames) {
-            String getterName = "get" + Character.toUpperCase(fieldName.charAt(0)) +
-                    (fieldName.length() > 1 ? fieldName.substring(1) : "");
-
-            // List of getters.
-            List<MethodDeclaration> getters = intClass.getMethodsByName(getterName)
-                    .stream()
-                    .filter(MethodDeclaration::isPublic)
-                    .toList();
-
-            // Print the getter if it is empty.
-            if (getters.isEmpty()) {
-                String csvLine =
-                        String.format("%s,%s,%s", fieldName, intClass.getNameAsString(),
-                                param.packageName);
-                param.output.println(csvLine);
+        // Index the public methods with no parameter, which may be getters.
+        Set<String> getterCandidates = resolver == null ? getterNames(intClass)
+                : resolver.accessors(intClass);
+
+        // For each private field, find if it has a getter.
+        for (BodyDeclaration<?> member : intClass.getMembers()) {
+            if (!(member instanceof FieldDeclaration fieldDecl) || !fieldDecl.isPrivate())
+                continue;
+
+            for (VariableDeclarator varDecl : fieldDecl.getVariables()) {
+                String fieldName = varDecl.getNameAsString();
+                String fieldType = resolver == null ? null : resolver.describe(varDecl.getType());
+                boolean isBoolean = fieldType == null ? isBoolean(varDecl.getType())
+                        : fieldType.equals("boolean") || fieldType.equals("java.lang.Boolean");
+                if (!hasGetter(fieldName, fieldType, isBoolean, getterCandidates))
+                    param.rows.field(fieldName)
+                            .field(intClass.getNameAsString())
+                            .field(param.packageName)
+                            .endRow();
             }
         }
     }
 
+    /**
+     * Indexes the names of the public methods of a class with no parameter.
+     *
+     * @param intClass Declaration of the class.
+     * @return The names of the methods which may be getters.
+     */
+    private static Set<String> getterNames(ClassOrInterfaceDeclaration intClass) {
+        Set<String> getterNames = new HashSet<>();
+        for (BodyDeclaration<?> member : intClass.getMembers())
+            if (member instanceof MethodDeclaration method && method.isPublic()
+                    && method.getParameters()
+                            .isEmpty())
+                getterNames.add(method.getNameAsString());
+        return getterNames;
+    }
+
+    /**
+     * Finds if a field has a getter: a <code>getName()</code> method, an <code>isName()</code>
+     * method for a boolean field, or a <code>name()</code> accessor as declared by records.
+     *
+     * @param fieldName        Name of the field.
+     * @param fieldType        Resolved type of the field, which the getter must return, or
+     *                         <code>null</code> to match getters by name.
+     * @param isBoolean        Whether the field is a boolean.
+     * @param getterCandidates Names of the public methods of the class with no parameter, or
+     *                         their {@link TypeResolver#signature(String, String) signatures} if
+     *                         the type of the field is given.
+     * @return <code>true</code> if the field has a getter.
+     */
+    private static boolean hasGetter(String fieldName, String fieldType, boolean isBoolean,
+            Set<String> getterCandidates) {
+        if (getterCandidates.contains(candidate(fieldName, fieldType)))
+            return true;
+
+        String capitalizedName = Character.toUpperCase(fieldName.charAt(0)) +
+                (fieldName.length() > 1 ? fieldName.substring(1) : "");
+        return getterCandidates.contains(candidate("get" + capitalizedName, fieldType))
+                || isBoolean && getterCandidates.contains(candidate("is" + capitalizedName,
+                        fieldType));
+    }
+
+    /**
+     * Builds the key of a getter candidate.
+     *
+     * @param getterName Name of the getter.
+     * @param fieldType  Resolved type of the field, or <code>null</code> to match getters by
+     *                   name.
+     * @return The key of the candidate in the index of the class.
+     */
+    private static String candidate(String getterName, String fieldType) {
+        return fieldType == null ? getterName : TypeResolver.signature(getterName, fieldType);
+    }
+
+    /**
+     * Finds if a type is <code>boolean</code> or <code>Boolean</code>.
+     *
+     * @param type Type of a field.
+     * @return <code>true</code> if the type is a boolean.
+     */
+    private static boolean isBoolean(Type type) {
+        if (type.isPrimitiveType())
+            return type.asPrimitiveType()
+                    .getType() == PrimitiveType.Primitive.BOOLEAN;
+        if (type.isClassOrInterfaceType()) {
+            String name = type.asClassOrInterfaceType()
+                    .getNameWithScope();
+            return name.equals("Boolean") || name.equals("java.lang.Boolean");
+        }
+        return false;
+    }
+
     /**
      * Parameter of this visitor's methods.
      */
     public static class VisitorParam {
 
         /**
-         * PrintWriter to the output file.
+         * CSV rows of the fields with no getter.
          */
-        final PrintWriter output;
+        final CsvWriter.Batch rows;
 
         /**
          * Package name of the current compilation unit.
@@ -85,10 +178,10 @@ public class GetterFinderVisitor extends VoidVisitorAdapter<GetterFinderVisitor.
         /**
          * Constructor of the class.
          *
-         * @param output PrintWriter to the output file.
+         * @param rows CSV rows of the fields with no getter.
          */
-        public VisitorParam(PrintWriter output) {
-            this.output = output;
+        public VisitorParam(CsvWriter.Batch rows) {
+            this.rows = rows;
         }
     }
 
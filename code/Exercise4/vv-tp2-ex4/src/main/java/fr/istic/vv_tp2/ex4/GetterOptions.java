@@ -0,0 +1,73 @@
+package fr.istic.vv_tp2.ex4;
+
+import fr.istic.vv_tp2.common.AnalysisOptions;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of the GetterFinder program.
+ */
+public class GetterOptions extends AnalysisOptions {
+
+    /**
+     * Whether types are resolved, so that getters must return the type of their field and
+     * inherited getters count.
+     */
+    public boolean resolveTypes = false;
+
+    /**
+     * Source roots of the project, resolving its types.
+     */
+    public final List<Path> sourceRoots = new ArrayList<>();
+
+    /**
+     * Parses the program's arguments.
+     *
+     * @param args Program's arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static GetterOptions parse(String[] args) {
+        GetterOptions options = new GetterOptions();
+        options.parseArgs(args);
+        if (!options.sourceRoots.isEmpty() && !options.resolveTypes)
+            throw new IllegalArgumentException("option --source-root requires option "
+                    + "--resolve-types");
+        for (Path sourceRoot : options.sourceRoots)
+            if (!Files.isDirectory(sourceRoot))
+                throw new IllegalArgumentException("not a directory: " + sourceRoot);
+        return options;
+    }
+
+    /**
+     * Gets the source roots resolving the types of the project: the given ones, or else
+     * <code>src/main/java</code> if the project has one, or else the project itself.
+     *
+     * @return The source roots of the project.
+     */
+    public List<Path> sourceRoots() {
+        if (!sourceRoots.isEmpty())
+            return sourceRoots;
+        Path mavenRoot = Path.of(path, "src", "main", "java");
+        return List.of(Files.isDirectory(mavenRoot) ? mavenRoot : Path.of(path));
+    }
+
+    @Override
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        switch (option) {
+            case "--resolve-types" -> {
+                resolveTypes = true;
+                return index + 1;
+            }
+            case "--source-root" -> sourceRoots.add(Path.of(value(args, index + 1, option)));
+            default -> {
+                return super.parseOption(args, index);
+            }
+        }
+        return index + 2;
+    }
+}
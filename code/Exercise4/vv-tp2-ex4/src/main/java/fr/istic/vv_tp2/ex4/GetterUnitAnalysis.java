@@ -0,0 +1,91 @@
+package fr.istic.vv_tp2.ex4;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv_tp2.common.CsvWriter;
+import fr.istic.vv_tp2.common.UnitAnalysis;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Finds private attributes with no getter in each compilation unit, and reports them into a CSV
+ * file. Closing the analysis closes the file.
+ */
+public class GetterUnitAnalysis implements UnitAnalysis<CsvWriter.Batch> {
+
+    /**
+     * Writer of the output file.
+     */
+    private final CsvWriter output;
+
+    /**
+     * Visitor of the compilation units, which holds no state.
+     */
+    private final GetterFinderVisitor visitor;
+
+    /**
+     * Constructor of the class, matching getters by name.
+     *
+     * @param outputFile CSV output file.
+     * @throws IOException If the output file could not be opened.
+     */
+    public GetterUnitAnalysis(File outputFile) throws IOException {
+        this(outputFile, null);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param outputFile CSV output file.
+     * @param resolver   Resolver of the types of the project, or <code>null</code> to match
+     *                   getters by name.
+     * @throws IOException If the output file could not be opened.
+     */
+    public GetterUnitAnalysis(File outputFile, TypeResolver resolver) throws IOException {
+        this(new CsvWriter(outputFile.toPath()), resolver);
+    }
+
+    /**
+     * Constructor of the class, writing the report to a CSV writer and matching getters by name.
+     *
+     * @param output Writer of the report, closed with the analysis.
+     * @throws IOException If the report could not be written.
+     */
+    public GetterUnitAnalysis(CsvWriter output) throws IOException {
+        this(output, null);
+    }
+
+    /**
+     * Constructor of the class, writing the report to a CSV writer.
+     *
+     * @param output   Writer of the report, closed with the analysis.
+     * @param resolver Resolver of the types of the project, or <code>null</code> to match getters
+     *                 by name.
+     * @throws IOException If the report could not be written.
+     */
+    public GetterUnitAnalysis(CsvWriter output, TypeResolver resolver) throws IOException {
+        this.output = output;
+        this.visitor = new GetterFinderVisitor(resolver);
+        output.row(GetterFinder.CSV_HEADER);
+    }
+
+    @Override
+    public CsvWriter.Batch analyze(CompilationUnit unit) {
+        // Rows of the unit are batched, so that units can be analyzed concurrently.
+        CsvWriter.Batch rows = new CsvWriter.Batch();
+        unit.accept(visitor, new GetterFinderVisitor.VisitorParam(rows));
+        return rows;
+    }
+
+    @Override
+    public void accept(CsvWriter.Batch rows) throws IOException {
+        if (!rows.isEmpty())
+            output.append(rows);
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
@@ -0,0 +1,248 @@
+package fr.istic.vv_tp2.ex4;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.AccessSpecifier;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the types of fields and the accessors of classes, inherited accessors included, for
+ * the whole project.
+ * <p>
+ * The classes of the JRE are solved by reflection, and the classes of the project from its source
+ * roots, whose files are parsed at most once while they stay in the bounded caches of the solver.
+ * The accessors inherited from each supertype, e.g.
+ * <code>java.util.AbstractList&lt;String&gt;</code>, are computed once and memoized in a bounded
+ * cache keyed by the qualified name of the supertype, so that the hierarchies shared by the
+ * classes of the project are solved once.
+ * <p>
+ * The resolver is shared by the workers of the analysis engine. Since the resolution model of
+ * JavaParser is not thread-safe, each worker thread resolves types with its own type solver,
+ * while the memoized accessors, which are plain strings, are shared by all the threads. Types
+ * which cannot be resolved, e.g. those of missing libraries, are compared as written in the
+ * source, and counted.
+ */
+public class TypeResolver {
+
+    /**
+     * Default maximal number of entries of each cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /**
+     * Separator between the name and the return type of an accessor.
+     */
+    private static final char SIGNATURE_SEPARATOR = ':';
+
+    /**
+     * Facade resolving the nodes of the project, by worker thread.
+     */
+    private final ThreadLocal<JavaParserFacade> facades;
+
+    /**
+     * Accessors of the supertypes, by description of the supertype (e.g.
+     * <code>java.lang.Object</code>), least recently used first. Synchronized.
+     */
+    private final Map<String, Set<String>> inheritedAccessors;
+
+    /**
+     * Number of types which could not be resolved.
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Constructor of the class.
+     *
+     * @param sourceRoots   Source roots of the project, i.e. folders holding the folders of the
+     *                      top-level packages.
+     * @param configuration Configuration of the parser of the files of the source roots.
+     * @param cacheSize     Maximal number of entries of each cache, the caches of the type
+     *                      solvers being kept by each worker thread.
+     */
+    public TypeResolver(List<Path> sourceRoots, ParserConfiguration configuration,
+            int cacheSize) {
+        this.facades = ThreadLocal.withInitial(() -> {
+            CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver());
+            for (Path sourceRoot : sourceRoots)
+                typeSolver.add(new JavaParserTypeSolver(sourceRoot, configuration, cacheSize));
+            return JavaParserFacade.get(typeSolver);
+        });
+        this.inheritedAccessors = Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                        return size() > cacheSize;
+                    }
+                });
+    }
+
+    /**
+     * Gets the accessors of a class: its public methods with no parameter, declared or
+     * inherited. Accessors inherited from supertypes which cannot be resolved are missing.
+     *
+     * @param intClass Declaration of the class.
+     * @return The signatures of the accessors, as built by {@link #signature(String, String)}.
+     */
+    public Set<String> accessors(ClassOrInterfaceDeclaration intClass) {
+        Set<String> accessors = new HashSet<>();
+        for (BodyDeclaration<?> member : intClass.getMembers())
+            if (member instanceof MethodDeclaration method && isAccessor(method))
+                accessors.add(signature(method.getNameAsString(), describe(method.getType())));
+
+        JavaParserFacade facade = facades.get();
+        List<ResolvedReferenceType> supertypes;
+        try {
+            ResolvedReferenceTypeDeclaration declaration = facade.getTypeDeclaration(intClass);
+            try {
+                supertypes = declaration.getAncestors();
+            } catch (UnsolvedSymbolException e) {
+                // Supertypes which cannot be resolved are counted, and left out.
+                countUnresolved(facade, intClass.getExtendedTypes());
+                countUnresolved(facade, intClass.getImplementedTypes());
+                supertypes = declaration.getAncestors(true);
+            }
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            return accessors;
+        }
+
+        for (ResolvedReferenceType supertype : supertypes)
+            accessors.addAll(inheritedAccessors(supertype));
+        return accessors;
+    }
+
+    /**
+     * Counts the declared supertypes which cannot be resolved.
+     *
+     * @param facade     Facade of the current thread.
+     * @param supertypes Supertypes, as written in the source.
+     */
+    private void countUnresolved(JavaParserFacade facade, List<ClassOrInterfaceType> supertypes) {
+        for (ClassOrInterfaceType supertype : supertypes) {
+            try {
+                facade.convertToUsage(supertype);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Describes a type, e.g. <code>java.util.List&lt;java.lang.String&gt;</code>.
+     *
+     * @param type Type, as written in the source.
+     * @return The qualified description of the type, or the type as written if it cannot be
+     *         resolved.
+     */
+    public String describe(Type type) {
+        try {
+            return facades.get()
+                    .convertToUsage(type)
+                    .describe();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            return type.asString();
+        }
+    }
+
+    /**
+     * Gets the number of types which could not be resolved so far.
+     *
+     * @return The number of failed resolutions.
+     */
+    public int failures() {
+        return failures.get();
+    }
+
+    /**
+     * Builds the signature of an accessor.
+     *
+     * @param name       Name of the accessor.
+     * @param returnType Description of the return type of the accessor.
+     * @return The signature of the accessor, e.g. <code>getName:java.lang.String</code>.
+     */
+    public static String signature(String name, String returnType) {
+        return name + SIGNATURE_SEPARATOR + returnType;
+    }
+
+    /**
+     * Gets the accessors of a supertype, inherited ones included. Accessors are memoized by
+     * supertype, type arguments included, since they are substituted in the return types.
+     *
+     * @param supertype Supertype.
+     * @return The signatures of the accessors of the supertype.
+     */
+    private Set<String> inheritedAccessors(ResolvedReferenceType supertype) {
+        String key = supertype.describe();
+        Set<String> accessors = inheritedAccessors.get(key);
+        if (accessors != null)
+            return accessors;
+
+        accessors = new HashSet<>();
+        boolean failed = false;
+        try {
+            // Type variables of the supertype are replaced by its type arguments.
+            for (MethodUsage method : supertype.getDeclaredMethods())
+                if (isAccessor(method.getDeclaration()))
+                    accessors.add(signature(method.getName(),
+                            supertype.useThisTypeParametersOnTheGivenType(method.returnType())
+                                    .describe()));
+            for (ResolvedReferenceType ancestor : supertype.getDirectAncestors())
+                accessors.addAll(inheritedAccessors(ancestor));
+        } catch (RuntimeException e) {
+            failed = true;
+        }
+
+        // Threads may compute the same supertype concurrently: only the first one counts.
+        accessors = Set.copyOf(accessors);
+        Set<String> memoized = inheritedAccessors.putIfAbsent(key, accessors);
+        if (memoized != null)
+            return memoized;
+        if (failed)
+            failures.incrementAndGet();
+        return accessors;
+    }
+
+    /**
+     * Finds if a method declared in the source is an accessor.
+     *
+     * @param method Declaration of the method.
+     * @return <code>true</code> if the method is a public method with no parameter.
+     */
+    private static boolean isAccessor(MethodDeclaration method) {
+        return method.isPublic() && method.getParameters()
+                .isEmpty();
+    }
+
+    /**
+     * Finds if a resolved method is an accessor.
+     *
+     * @param method Resolved method.
+     * @return <code>true</code> if the method is a public method with no parameter.
+     */
+    private static boolean isAccessor(ResolvedMethodDeclaration method) {
+        return method.accessSpecifier() == AccessSpecifier.PUBLIC
+                && method.getNumberOfParams() == 0;
+    }
+}
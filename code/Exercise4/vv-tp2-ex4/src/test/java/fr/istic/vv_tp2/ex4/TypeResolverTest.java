@@ -0,0 +1,120 @@
+package fr.istic.vv_tp2.ex4;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the accessors found by the {@link TypeResolver}, its counting of the types which cannot
+ * be resolved, and its use by concurrent workers.
+ */
+class TypeResolverTest {
+
+    private static final String BASE = """
+            package p;
+
+            public class Base<T> {
+                public T getValue() {
+                    return null;
+                }
+            }
+            """;
+
+    private static final String CHILD = """
+            package p;
+
+            public class Child extends Base<String> implements Missing, AlsoMissing {
+                public int getSize() {
+                    return 0;
+                }
+            }
+            """;
+
+    private static final String ORPHAN = """
+            package p;
+
+            public class Orphan extends Unknown {
+            }
+            """;
+
+    @TempDir
+    Path sourceRoot;
+
+    private TypeResolver resolver;
+
+    @BeforeEach
+    void createResolver() throws IOException {
+        Files.createDirectories(sourceRoot.resolve("p"));
+        Files.writeString(sourceRoot.resolve("p/Base.java"), BASE);
+        Files.writeString(sourceRoot.resolve("p/Child.java"), CHILD);
+        Files.writeString(sourceRoot.resolve("p/Orphan.java"), ORPHAN);
+        resolver = new TypeResolver(List.of(sourceRoot), new ParserConfiguration(),
+                TypeResolver.DEFAULT_CACHE_SIZE);
+    }
+
+    @Test
+    void findsInheritedAccessors() {
+        Set<String> accessors = resolver.accessors(parse(CHILD, "Child"));
+
+        assertTrue(accessors.contains("getSize:int"));
+        assertTrue(accessors.contains("getValue:java.lang.String"));
+        assertTrue(accessors.contains("hashCode:int"));
+    }
+
+    @Test
+    void countsEachUnresolvedSupertype() {
+        resolver.accessors(parse(CHILD, "Child"));
+        assertEquals(2, resolver.failures());
+
+        resolver.accessors(parse(ORPHAN, "Orphan"));
+        assertEquals(3, resolver.failures());
+    }
+
+    @Test
+    void resolvesConcurrently() throws Exception {
+        Set<String> expected = new TypeResolver(List.of(sourceRoot), new ParserConfiguration(),
+                TypeResolver.DEFAULT_CACHE_SIZE).accessors(parse(CHILD, "Child"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Set<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++)
+                results.add(executor.submit(() -> resolver.accessors(parse(CHILD, "Child"))));
+            for (Future<Set<String>> result : results)
+                assertEquals(expected, result.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(16 * 2, resolver.failures());
+    }
+
+    /**
+     * Parses a class. Each call parses its own compilation unit, as each worker does.
+     *
+     * @param source    Source of the compilation unit.
+     * @param className Name of the class.
+     * @return The declaration of the class.
+     */
+    private static ClassOrInterfaceDeclaration parse(String source, String className) {
+        return StaticJavaParser.parse(source)
+                .getClassByName(className)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,200 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.ChangedLines;
+import fr.istic.vv_tp2.common.RunProfile;
+import fr.istic.vv_tp2.common.SourceParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Runs a {@link CycloUnitAnalysis} over a set of Java files, on the workers of an
+ * {@link AnalysisEngine}.
+ * <p>
+ * When a {@link CycloCache} is given, files whose entries are cached are neither parsed nor
+ * visited. When {@link ChangedLines} are given instead, only the methods holding a changed line
+ * are evaluated. The phases of the parsed files are measured in the profile of the engine, where
+ * the cached files are counted apart.
+ * <p>
+ * The analyzer owns its analysis: closing it closes the analysis, completing the exports, and
+ * measures their completion in the export phase.
+ */
+public class CycloAnalyzer implements
+        AnalysisEngine.FileProcessor<List<CyclomaticComplexity.CycloEntry>>, Closeable {
+
+    /**
+     * Engine processing the files.
+     */
+    private final AnalysisEngine engine;
+
+    /**
+     * Cache of entries, or <code>null</code> if caching is disabled.
+     */
+    private final CycloCache cache;
+
+    /**
+     * Changed lines of the files, or <code>null</code> if every method is evaluated.
+     */
+    private final ChangedLines changes;
+
+    /**
+     * Analysis of the compilation units.
+     */
+    private final CycloUnitAnalysis analysis;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param engine   Engine processing the files.
+     * @param cache    Cache of entries, or <code>null</code> to disable caching.
+     * @param analysis Analysis of the compilation units.
+     */
+    public CycloAnalyzer(AnalysisEngine engine, CycloCache cache, CycloUnitAnalysis analysis) {
+        this(engine, cache, null, analysis);
+    }
+
+    /**
+     * Creates an analyzer evaluating only the methods holding a changed line. Since the entries
+     * of a file are partial, they are not cached.
+     *
+     * @param engine   Engine processing the files.
+     * @param changes  Changed lines of the files.
+     * @param analysis Analysis of the compilation units.
+     * @return The analyzer.
+     */
+    public static CycloAnalyzer ofChanges(AnalysisEngine engine, ChangedLines changes,
+            CycloUnitAnalysis analysis) {
+        return new CycloAnalyzer(engine, null, changes, analysis);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param engine   Engine processing the files.
+     * @param cache    Cache of entries, or <code>null</code> to disable caching.
+     * @param changes  Changed lines of the files, or <code>null</code> to evaluate every method.
+     * @param analysis Analysis of the compilation units.
+     */
+    private CycloAnalyzer(AnalysisEngine engine, CycloCache cache, ChangedLines changes,
+            CycloUnitAnalysis analysis) {
+        this.engine = engine;
+        this.cache = cache;
+        this.changes = changes;
+        this.analysis = analysis;
+    }
+
+    /**
+     * Computes the cyclomatic complexities of all methods of the given files. The analysis is
+     * closed with the analyzer.
+     *
+     * @param files Java files to analyze.
+     * @throws IOException If any I/O error occurs.
+     */
+    public void analyze(List<Path> files) throws IOException {
+        RunProfile profile = engine.profile();
+        engine.run(files, this, (file, cycloEntries) -> {
+            RunProfile.Probe probe = profile.start();
+            analysis.accept(cycloEntries);
+            profile.stop(probe, RunProfile.Phase.EXPORT);
+        });
+    }
+
+    /**
+     * Computes the cyclomatic complexities of all methods of a Java file.
+     *
+     * @param file   Java file to analyze.
+     * @param parser Parser of the current worker.
+     * @return Cyclomatic complexity entries of the file.
+     * @throws IOException If any I/O error occurs.
+     */
+    @Override
+    public List<CyclomaticComplexity.CycloEntry> process(Path file, SourceParser parser)
+            throws IOException {
+        if (changes != null || cache == null) {
+            RunProfile.Probe probe = engine.profile()
+                    .start();
+            return analyze(file, parser.load(file), parser, probe);
+        }
+
+        // Fast path: the file was not touched since the last run.
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime()
+                .toMillis();
+        List<CyclomaticComplexity.CycloEntry> cycloEntries =
+                cache.lookup(file, size, lastModified);
+        if (cycloEntries != null) {
+            engine.profile()
+                    .cachedFile();
+            return cycloEntries;
+        }
+
+        // The file may have been touched: compare its content.
+        RunProfile.Probe probe = engine.profile()
+                .start();
+        ByteBuffer content = parser.load(file);
+        byte[] digest = CycloCache.digest(content);
+        cycloEntries = cache.lookup(file, size, lastModified, digest);
+        if (cycloEntries != null) {
+            engine.profile()
+                    .cachedFile();
+            return cycloEntries;
+        }
+
+        cycloEntries = analyze(file, content, parser, probe);
+        cache.store(file, size, lastModified, digest, cycloEntries);
+        return cycloEntries;
+    }
+
+    /**
+     * Parses a Java file and computes the cyclomatic complexities of its methods, or of its
+     * changed methods, measuring both phases in the profile of the engine.
+     *
+     * @param file    Java file to analyze.
+     * @param content Content of the file.
+     * @param parser  Parser of the current worker.
+     * @param probe   Probe started when the file started loading, or <code>null</code> if the
+     *                run is not profiled.
+     * @return Cyclomatic complexity entries of the file.
+     * @throws IOException If any I/O error occurs.
+     */
+    private List<CyclomaticComplexity.CycloEntry> analyze(Path file, ByteBuffer content,
+            SourceParser parser, RunProfile.Probe probe) throws IOException {
+        RunProfile profile = engine.profile();
+        long size = content.remaining();
+        long lines = profile.lines(content);
+        CompilationUnit unit = parser.parse(content);
+        long parseNanos = profile.stop(probe, RunProfile.Phase.PARSE);
+
+        List<CyclomaticComplexity.CycloEntry> cycloEntries = changes == null
+                ? analysis.analyze(unit)
+                : analysis.analyze(unit, changes.ranges(file));
+        profile.file(file, size, lines, parseNanos,
+                profile.stop(probe, RunProfile.Phase.ANALYZE));
+        return cycloEntries;
+    }
+
+    /**
+     * Closes the analysis, completing the exports.
+     *
+     * @throws IOException If an export could not be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        RunProfile profile = engine.profile();
+        RunProfile.Probe probe = profile.start();
+        try {
+            analysis.close();
+        } finally {
+            profile.stop(probe, RunProfile.Phase.EXPORT);
+        }
+    }
+}
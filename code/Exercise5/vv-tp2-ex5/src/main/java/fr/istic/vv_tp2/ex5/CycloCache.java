@@ -0,0 +1,392 @@
+package fr.istic.vv_tp2.ex5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of the cyclomatic complexity entries produced by each Java file of a project.
+ * <p>
+ * Entries are keyed by the absolute path of the file. A cached record is reused when the size and
+ * modification time of the file did not change, or, failing that, when the SHA-256 hash of its
+ * content did not change. Records of files which were not looked up during the run are dropped
+ * when the cache is saved.
+ * <p>
+ * The whole cache is invalidated when it was written by another version of the analyzer, or with
+ * another {@link CycloEngine} or source charset: {@link #ANALYZER_VERSION} must be incremented
+ * whenever a change alters the produced entries.
+ * <p>
+ * Cached entries are kept in a compact {@link CycloTable} shared by all the records, each record
+ * referencing the consecutive rows of its file. The rows of a record superseded by a new record
+ * of its file stay in the table until the cache is {@link #compact() compacted}.
+ */
+public class CycloCache {
+
+    /**
+     * Version of the analyzer, stored in the cache file.
+     */
+    public static final int ANALYZER_VERSION = 9;
+
+    /**
+     * Magic number identifying cache files.
+     */
+    private static final int MAGIC = 0x43434348;
+
+    /**
+     * Path of the cache file, or <code>null</code> if the cache is only kept in memory.
+     */
+    private final Path cacheFile;
+
+    /**
+     * Engine which computed the cached entries.
+     */
+    private final CycloEngine engine;
+
+    /**
+     * Charset with which the cached files were decoded.
+     */
+    private final Charset charset;
+
+    /**
+     * Entries of the records, loaded or stored.
+     */
+    private CycloTable entries;
+
+    /**
+     * Records loaded from the cache file.
+     */
+    private final Map<String, Record> previous;
+
+    /**
+     * Records looked up or stored during this run.
+     */
+    private final Map<String, Record> current = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor of the class.
+     *
+     * @param cacheFile Path of the cache file.
+     * @param engine    Engine which computed the cached entries.
+     * @param charset   Charset with which the cached files were decoded.
+     * @param entries   Entries of the records loaded from the cache file.
+     * @param previous  Records loaded from the cache file.
+     */
+    private CycloCache(Path cacheFile, CycloEngine engine, Charset charset, CycloTable entries,
+            Map<String, Record> previous) {
+        this.cacheFile = cacheFile;
+        this.engine = engine;
+        this.charset = charset;
+        this.entries = entries;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads a cache from a file. An empty cache is returned if the file does not exist, is not
+     * readable or was written by another version of the analyzer, with another engine or with
+     * another charset.
+     *
+     * @param cacheFile Path of the cache file.
+     * @param engine    Engine computing the entries of this run.
+     * @param charset   Charset with which files are decoded during this run.
+     * @return The loaded cache.
+     */
+    public static CycloCache load(Path cacheFile, CycloEngine engine, Charset charset) {
+        CycloTable entries = new CycloTable();
+        Map<String, Record> records = new ConcurrentHashMap<>();
+
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != ANALYZER_VERSION
+                    || input.readInt() != engine.ordinal()
+                    || !input.readUTF()
+                            .equals(charset.name()))
+                return new CycloCache(cacheFile, engine, charset, entries, records);
+
+            int recordsCount = input.readInt();
+            for (int i = 0; i < recordsCount; i++) {
+                String path = input.readUTF();
+                records.put(path, Record.read(input, entries));
+            }
+        } catch (NoSuchFileException e) {
+            // First run: nothing is cached yet.
+        } catch (IOException e) {
+            System.err.println("warning: ignoring unreadable cache " + cacheFile + ": " + e);
+            entries.clear();
+            records.clear();
+        }
+
+        return new CycloCache(cacheFile, engine, charset, entries, records);
+    }
+
+    /**
+     * Creates an empty cache which is only kept in memory, e.g. by a long-running server.
+     * Entries stored during a run are looked up by the next runs. Such a cache cannot be saved.
+     *
+     * @param engine  Engine computing the entries.
+     * @param charset Charset with which files are decoded.
+     * @return The empty cache.
+     */
+    public static CycloCache inMemory(CycloEngine engine, Charset charset) {
+        return new CycloCache(null, engine, charset, new CycloTable(),
+                new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Looks up the entries of a file whose size and modification time did not change.
+     *
+     * @param file         Java file.
+     * @param size         Size of the file.
+     * @param lastModified Modification time of the file, in milliseconds.
+     * @return The cached entries of the file, or <code>null</code> if the file may have changed.
+     */
+    public List<CyclomaticComplexity.CycloEntry> lookup(Path file, long size, long lastModified) {
+        String key = key(file);
+        Record record = record(key);
+        if (record == null || record.size != size || record.lastModified != lastModified)
+            return null;
+
+        current.put(key, record);
+        return record.entries(entries);
+    }
+
+    /**
+     * Looks up the entries of a file whose content did not change.
+     *
+     * @param file         Java file.
+     * @param size         Size of the file.
+     * @param lastModified Modification time of the file, in milliseconds.
+     * @param digest       Hash of the file's content.
+     * @return The cached entries of the file, or <code>null</code> if the file changed.
+     */
+    public List<CyclomaticComplexity.CycloEntry> lookup(Path file, long size, long lastModified,
+            byte[] digest) {
+        String key = key(file);
+        Record record = record(key);
+        if (record == null || !Arrays.equals(record.digest, digest))
+            return null;
+
+        current.put(key, new Record(size, lastModified, digest, record.firstRow,
+                record.rowsCount));
+        return record.entries(entries);
+    }
+
+    /**
+     * Stores the entries computed for a file.
+     *
+     * @param file         Java file.
+     * @param size         Size of the file.
+     * @param lastModified Modification time of the file, in milliseconds.
+     * @param digest       Hash of the file's content.
+     * @param cycloEntries Entries computed for the file.
+     */
+    public void store(Path file, long size, long lastModified, byte[] digest,
+            List<CyclomaticComplexity.CycloEntry> cycloEntries) {
+        int firstRow = entries.addAll(cycloEntries);
+        current.put(key(file), new Record(size, lastModified, digest, firstRow,
+                cycloEntries.size()));
+    }
+
+    /**
+     * Compacts the cache between two runs, e.g. of a long-running server. Records of files which
+     * no longer exist are dropped, and once the rows of dropped and superseded records outnumber
+     * the rows of the live records, the table of the entries is rebuilt from the live records.
+     * Files must not be looked up nor stored during the compaction.
+     */
+    public void compact() {
+        // Records of this run supersede the loaded ones.
+        previous.keySet()
+                .removeAll(current.keySet());
+        current.keySet()
+                .removeIf(key -> Files.notExists(Path.of(key)));
+        previous.keySet()
+                .removeIf(key -> Files.notExists(Path.of(key)));
+
+        long liveRows = 0;
+        for (Record record : current.values())
+            liveRows += record.rowsCount;
+        for (Record record : previous.values())
+            liveRows += record.rowsCount;
+        if (entries.size() - liveRows <= liveRows)
+            return;
+
+        CycloTable live = new CycloTable((int) liveRows);
+        current.replaceAll((key, record) -> record.copyTo(entries, live));
+        previous.replaceAll((key, record) -> record.copyTo(entries, live));
+        entries = live;
+    }
+
+    /**
+     * Gets the number of rows of the table of the entries, superseded rows included.
+     *
+     * @return The number of rows held by the cache.
+     */
+    int rows() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the latest record of a file: the record of this run if the file was already looked up
+     * or stored, or the record loaded from the cache file.
+     *
+     * @param key Key of the file.
+     * @return The record of the file, or <code>null</code> if the file is not cached.
+     */
+    private Record record(String key) {
+        Record record = current.get(key);
+        return record != null ? record : previous.get(key);
+    }
+
+    /**
+     * Saves the records of this run into the cache file. The file is replaced atomically, so
+     * that an interrupted run never leaves a truncated cache.
+     *
+     * @throws IOException If any I/O error occurs.
+     * @throws IllegalStateException If the cache is only kept in memory.
+     */
+    public void save() throws IOException {
+        if (cacheFile == null)
+            throw new IllegalStateException("in-memory cache");
+
+        Path absoluteFile = cacheFile.toAbsolutePath();
+        Path tmpFile = Files.createTempFile(absoluteFile.getParent(), ".cc-cache", ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(ANALYZER_VERSION);
+            output.writeInt(engine.ordinal());
+            output.writeUTF(charset.name());
+            output.writeInt(current.size());
+            for (Map.Entry<String, Record> entry : current.entrySet()) {
+                output.writeUTF(entry.getKey());
+                entry.getValue()
+                        .write(output, entries);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+
+        Files.move(tmpFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Computes the hash of a file's content.
+     *
+     * @param content Content of the file, whose position is left unchanged.
+     * @return The SHA-256 hash of the remaining bytes of <code>content</code>.
+     */
+    public static byte[] digest(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the key of a file.
+     *
+     * @param file Java file.
+     * @return The absolute path of the file.
+     */
+    private static String key(Path file) {
+        return file.toAbsolutePath()
+                .normalize()
+                .toString();
+    }
+
+    /**
+     * Cached entries of a file, along with the attributes of the file they were computed from.
+     *
+     * @param size         Size of the file.
+     * @param lastModified Modification time of the file, in milliseconds.
+     * @param digest       Hash of the file's content.
+     * @param firstRow     First row of the entries computed for the file in the table of the
+     *                     cache.
+     * @param rowsCount    Number of entries computed for the file.
+     */
+    private record Record(long size, long lastModified, byte[] digest, int firstRow,
+                          int rowsCount) {
+
+        /**
+         * Reads a record, adding its entries to a table.
+         *
+         * @param input   Input stream of the cache file.
+         * @param entries Table receiving the entries of the record.
+         * @return The read record.
+         * @throws IOException If any I/O error occurs.
+         */
+        static Record read(DataInputStream input, CycloTable entries) throws IOException {
+            long size = input.readLong();
+            long lastModified = input.readLong();
+            byte[] digest = new byte[input.readUnsignedByte()];
+            input.readFully(digest);
+
+            int rowsCount = input.readInt();
+            int firstRow = entries.size();
+            for (int i = 0; i < rowsCount; i++)
+                entries.read(input);
+
+            return new Record(size, lastModified, digest, firstRow, rowsCount);
+        }
+
+        /**
+         * Copies the entries of this record into another table.
+         *
+         * @param from Table holding the entries of this record.
+         * @param to   Table receiving the entries.
+         * @return The record of the copied entries.
+         */
+        Record copyTo(CycloTable from, CycloTable to) {
+            int newFirstRow = to.addAll(from, firstRow, firstRow + rowsCount);
+            return new Record(size, lastModified, digest, newFirstRow, rowsCount);
+        }
+
+        /**
+         * Materializes the entries of this record.
+         *
+         * @param entries Table holding the entries of the record.
+         * @return The entries of the record.
+         */
+        List<CyclomaticComplexity.CycloEntry> entries(CycloTable entries) {
+            return entries.entries(firstRow, firstRow + rowsCount);
+        }
+
+        /**
+         * Writes this record.
+         *
+         * @param output  Output stream of the cache file.
+         * @param entries Table holding the entries of the record.
+         * @throws IOException If any I/O error occurs.
+         */
+        void write(DataOutputStream output, CycloTable entries) throws IOException {
+            output.writeLong(size);
+            output.writeLong(lastModified);
+            output.writeByte(digest.length);
+            output.write(digest);
+
+            output.writeInt(rowsCount);
+            for (int row = firstRow; row < firstRow + rowsCount; row++)
+                entries.write(row, output);
+        }
+    }
+}
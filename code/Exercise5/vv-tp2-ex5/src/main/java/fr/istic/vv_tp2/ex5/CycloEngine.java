@@ -0,0 +1,37 @@
+package fr.istic.vv_tp2.ex5;
+
+import java.util.Locale;
+
+/**
+ * Engines available to compute the cyclomatic complexity of a method.
+ */
+public enum CycloEngine {
+    /**
+     * Counts the vertices and edges of the control flow graph of the method.
+     *
+     * @see CyclomaticComplexityVisitor
+     */
+    CFG,
+
+    /**
+     * Counts the decision points of the method.
+     *
+     * @see DecisionCountVisitor
+     */
+    DECISIONS;
+
+    /**
+     * Gets an engine from its name, as given on the command line.
+     *
+     * @param name Name of the engine, case-insensitive.
+     * @return The engine.
+     * @throws IllegalArgumentException If there is no engine with this name.
+     */
+    public static CycloEngine fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown engine: " + name);
+        }
+    }
+}
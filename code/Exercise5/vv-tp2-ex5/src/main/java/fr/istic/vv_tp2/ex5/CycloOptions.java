@@ -0,0 +1,77 @@
+package fr.istic.vv_tp2.ex5;
+
+import fr.istic.vv_tp2.common.AnalysisOptions;
+
+import java.nio.file.Path;
+
+/**
+ * Command line options of the Cyclomatic Complexity calculator.
+ */
+public class CycloOptions extends AnalysisOptions {
+
+    /**
+     * Path of the cache file, or <code>null</code> if caching is disabled.
+     */
+    public Path cacheFile;
+
+    /**
+     * Engine evaluating the methods.
+     */
+    public CycloEngine engine = CycloEngine.CFG;
+
+    /**
+     * Path of the diff listing the changed lines, or <code>null</code> to analyze the whole
+     * project.
+     */
+    public Path diffFile;
+
+    /**
+     * Path of the baseline report the changed methods are compared with, or <code>null</code> if
+     * there is none.
+     */
+    public Path baselineFile;
+
+    /**
+     * Parses the program's arguments.
+     *
+     * @param args Program's arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static CycloOptions parse(String[] args) {
+        CycloOptions options = new CycloOptions();
+        options.parseArgs(args);
+        if (options.baselineFile != null && options.diffFile == null)
+            throw new IllegalArgumentException("option --baseline requires option --diff");
+        if (options.cacheFile != null && options.diffFile != null)
+            throw new IllegalArgumentException(
+                    "option --cache cannot be used with option --diff");
+        return options;
+    }
+
+    /**
+     * Tells whether the analyses need the positions of the nodes: only the methods changed by a
+     * diff are evaluated from their lines.
+     *
+     * @return <code>true</code> if a diff is given.
+     */
+    @Override
+    public boolean needsPositions() {
+        return diffFile != null;
+    }
+
+    @Override
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        switch (option) {
+            case "--cache" -> cacheFile = Path.of(value(args, index + 1, option));
+            case "--engine" -> engine = CycloEngine.fromName(value(args, index + 1, option));
+            case "--diff" -> diffFile = Path.of(value(args, index + 1, option));
+            case "--baseline" -> baselineFile = Path.of(value(args, index + 1, option));
+            default -> {
+                return super.parseOption(args, index);
+            }
+        }
+        return index + 2;
+    }
+}
@@ -0,0 +1,252 @@
+package fr.istic.vv_tp2.ex5;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact store of cyclomatic complexity entries.
+ * <p>
+ * Entries are stored in columns of primitive arrays rather than as objects: their package, class,
+ * method and parameter list are interned into a string table shared by the whole store, so that
+ * the names shared by many methods, and parameter lists such as <code>()</code>, are stored once.
+ * {@link CyclomaticComplexity.CycloEntry} objects are only materialized when rows are read back.
+ * <p>
+ * The store is thread-safe.
+ */
+public class CycloTable {
+
+    /**
+     * Number of columns of the table: package, class, method, parameter list, cyclomatic number.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * Number of rows which can be added to a new or cleared table before its columns grow.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Indices of the interned strings.
+     */
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Interned strings, by index.
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Columns of the rows, row after row.
+     */
+    private int[] cells;
+
+    /**
+     * Number of rows.
+     */
+    private int size = 0;
+
+    /**
+     * Constructor of the class.
+     */
+    public CycloTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param capacity Number of rows which can be added before the columns grow.
+     */
+    public CycloTable(int capacity) {
+        cells = new int[Math.max(1, capacity) * COLUMNS];
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param entry Cyclomatic complexity entry.
+     * @return The row of the entry.
+     */
+    public synchronized int add(CyclomaticComplexity.CycloEntry entry) {
+        return add(entry.packageName, entry.className, entry.methodName, entry.paramList,
+                entry.cyclomaticNumber);
+    }
+
+    /**
+     * Adds entries.
+     *
+     * @param cycloEntries Cyclomatic complexity entries.
+     * @return The row of the first entry, the others following it.
+     */
+    public synchronized int addAll(List<CyclomaticComplexity.CycloEntry> cycloEntries) {
+        int firstRow = size;
+        for (CyclomaticComplexity.CycloEntry entry : cycloEntries)
+            add(entry);
+        return firstRow;
+    }
+
+    /**
+     * Adds consecutive rows of another table, without materializing their entries.
+     *
+     * @param source  Table holding the rows.
+     * @param fromRow First row, inclusive.
+     * @param toRow   Last row, exclusive.
+     * @return The row of the first added entry, the others following it.
+     */
+    public synchronized int addAll(CycloTable source, int fromRow, int toRow) {
+        int firstRow = size;
+        synchronized (source) {
+            Objects.checkFromToIndex(fromRow, toRow, source.size);
+            for (int offset = fromRow * COLUMNS; offset < toRow * COLUMNS; offset += COLUMNS)
+                add(source.strings.get(source.cells[offset]),
+                        source.strings.get(source.cells[offset + 1]),
+                        source.strings.get(source.cells[offset + 2]),
+                        source.strings.get(source.cells[offset + 3]),
+                        source.cells[offset + 4]);
+        }
+        return firstRow;
+    }
+
+    /**
+     * Reads an entry written by {@link CyclomaticComplexity.CycloEntry#write(DataOutput)} and
+     * adds it, without materializing it.
+     *
+     * @param input Input to read the entry from.
+     * @return The row of the entry.
+     * @throws IOException If any I/O error occurs.
+     */
+    public synchronized int read(DataInput input) throws IOException {
+        return add(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(),
+                input.readInt());
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param packageName      Package of the class of the evaluated method.
+     * @param className        Name of the class of the evaluated method.
+     * @param methodName       Name of the evaluated method.
+     * @param paramList        Parameters list of the evaluated method.
+     * @param cyclomaticNumber Cyclomatic number found for the evaluated method.
+     * @return The row.
+     */
+    private int add(String packageName, String className, String methodName, String paramList,
+            int cyclomaticNumber) {
+        int offset = size * COLUMNS;
+        if (offset == cells.length)
+            cells = Arrays.copyOf(cells, cells.length * 2);
+
+        cells[offset] = intern(packageName);
+        cells[offset + 1] = intern(className);
+        cells[offset + 2] = intern(methodName);
+        cells[offset + 3] = intern(paramList);
+        cells[offset + 4] = cyclomaticNumber;
+        return size++;
+    }
+
+    /**
+     * Gets the index of a string in the string table, adding it if it is new.
+     *
+     * @param string String.
+     * @return The index of the string.
+     */
+    private int intern(String string) {
+        Integer id = ids.get(string);
+        if (id != null)
+            return id;
+
+        int newId = strings.size();
+        ids.put(string, newId);
+        strings.add(string);
+        return newId;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The number of entries of the table.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the cyclomatic number of a row, without materializing its entry.
+     *
+     * @param row Row.
+     * @return The cyclomatic number of the row.
+     */
+    public synchronized int cyclomaticNumber(int row) {
+        return cells[checkRow(row) * COLUMNS + 4];
+    }
+
+    /**
+     * Materializes the entry of a row. Its strings are shared with the table.
+     *
+     * @param row Row.
+     * @return The entry of the row.
+     */
+    public synchronized CyclomaticComplexity.CycloEntry entry(int row) {
+        int offset = checkRow(row) * COLUMNS;
+        return new CyclomaticComplexity.CycloEntry(strings.get(cells[offset]),
+                strings.get(cells[offset + 1]), strings.get(cells[offset + 2]),
+                strings.get(cells[offset + 3]), cells[offset + 4]);
+    }
+
+    /**
+     * Materializes the entries of consecutive rows.
+     *
+     * @param fromRow First row, inclusive.
+     * @param toRow   Last row, exclusive.
+     * @return The entries of the rows.
+     */
+    public synchronized List<CyclomaticComplexity.CycloEntry> entries(int fromRow, int toRow) {
+        List<CyclomaticComplexity.CycloEntry> cycloEntries = new ArrayList<>(toRow - fromRow);
+        for (int row = fromRow; row < toRow; row++)
+            cycloEntries.add(entry(row));
+        return cycloEntries;
+    }
+
+    /**
+     * Writes the entry of a row, as {@link CyclomaticComplexity.CycloEntry#write(DataOutput)}
+     * does, without materializing it.
+     *
+     * @param row    Row.
+     * @param output Output to write the entry into.
+     * @throws IOException If any I/O error occurs.
+     */
+    public synchronized void write(int row, DataOutput output) throws IOException {
+        int offset = checkRow(row) * COLUMNS;
+        for (int column = 0; column < 4; column++)
+            output.writeUTF(strings.get(cells[offset + column]));
+        output.writeInt(cells[offset + 4]);
+    }
+
+    /**
+     * Removes all the rows, and the string table, releasing their memory.
+     */
+    public synchronized void clear() {
+        ids.clear();
+        strings.clear();
+        cells = new int[DEFAULT_CAPACITY * COLUMNS];
+        size = 0;
+    }
+
+    /**
+     * Checks that a row exists.
+     *
+     * @param row Row.
+     * @return The row.
+     * @throws IndexOutOfBoundsException If the table has no such row.
+     */
+    private int checkRow(int row) {
+        return Objects.checkIndex(row, size);
+    }
+}
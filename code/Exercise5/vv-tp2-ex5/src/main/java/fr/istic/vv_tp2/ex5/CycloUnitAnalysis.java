@@ -0,0 +1,82 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv_tp2.common.ChangedLines;
+import fr.istic.vv_tp2.common.UnitAnalysis;
+import fr.istic.vv_tp2.ex5.export.CycloSink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the cyclomatic complexities of all methods of each compilation unit, and streams them
+ * to a {@link CycloSink}. Closing the analysis closes the sink.
+ */
+public class CycloUnitAnalysis implements UnitAnalysis<List<CyclomaticComplexity.CycloEntry>> {
+
+    /**
+     * Sink receiving the cyclomatic complexity entries.
+     */
+    private final CycloSink sink;
+
+    /**
+     * Compilation unit visitor of each worker.
+     */
+    private final ThreadLocal<CyclomaticUnitVisitor> visitors;
+
+    /**
+     * Constructor of the class, evaluating methods from their control flow graph.
+     *
+     * @param sink Sink receiving the cyclomatic complexity entries.
+     */
+    public CycloUnitAnalysis(CycloSink sink) {
+        this(sink, CycloEngine.CFG);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param sink   Sink receiving the cyclomatic complexity entries.
+     * @param engine Engine evaluating the methods.
+     */
+    public CycloUnitAnalysis(CycloSink sink, CycloEngine engine) {
+        this.sink = sink;
+        this.visitors = ThreadLocal.withInitial(() -> new CyclomaticUnitVisitor(engine));
+    }
+
+    @Override
+    public List<CyclomaticComplexity.CycloEntry> analyze(CompilationUnit unit) {
+        return analyze(unit, null);
+    }
+
+    /**
+     * Computes the cyclomatic complexities of the methods of a compilation unit holding a changed
+     * line.
+     *
+     * @param unit         Compilation unit.
+     * @param changedLines Changed lines of the unit, or <code>null</code> to evaluate every
+     *                     method.
+     * @return Cyclomatic complexity entries of the evaluated methods.
+     */
+    public List<CyclomaticComplexity.CycloEntry> analyze(CompilationUnit unit,
+            ChangedLines.Ranges changedLines) {
+        List<CyclomaticComplexity.CycloEntry> cycloEntries = new ArrayList<>();
+        CyclomaticUnitVisitor.CycloUnitParam param =
+                new CyclomaticUnitVisitor.CycloUnitParam(cycloEntries::add, changedLines);
+        unit.accept(visitors.get(), param);
+        return cycloEntries;
+    }
+
+    @Override
+    public void accept(List<CyclomaticComplexity.CycloEntry> cycloEntries) throws IOException {
+        for (CyclomaticComplexity.CycloEntry entry : cycloEntries)
+            sink.accept(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+}
@@ -1,16 +1,25 @@
 package fr.istic.vv_tp2.ex5;
 
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
-
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.ChangedLines;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.RunProfile;
 import fr.istic.vv_tp2.ex5.export.BarplotCycloExporter;
+import fr.istic.vv_tp2.ex5.export.BinaryCycloExporter;
 import fr.istic.vv_tp2.ex5.export.CSVCycloExporter;
-import fr.istic.vv_tp2.ex5.export.CycloExporter;
+import fr.istic.vv_tp2.ex5.export.CycloSink;
+import fr.istic.vv_tp2.ex5.export.DeltaCycloExporter;
+import fr.istic.vv_tp2.ex5.export.ExportStage;
+import fr.istic.vv_tp2.ex5.export.HistogramCycloExporter;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,83 +27,136 @@ import java.util.List;
  */
 public class CyclomaticComplexity {
 
-    // Exporters used by the program.
-    private static final CycloExporter[] EXPORTERS = new CycloExporter[] {
-            new CSVCycloExporter(),
-            new BarplotCycloExporter(),
-    };
 
     /**
      * Cyclomatic Complexity calculator entry point.
      *
-     * @param args Program's arguments : should contain the folder of a project.
+     * @param args Program's arguments : should contain the folder of a project, optionally
+     *             followed by <code>--threads &lt;count&gt;</code> to set the number of worker
+     *             threads (defaults to the number of available processors),
+     *             <code>--cache &lt;file&gt;</code> to reuse the results of unchanged files
+     *             from a previous run, <code>--engine cfg|decisions</code> to select how
+     *             methods are evaluated (defaults to <code>cfg</code>) and
+     *             <code>--charset &lt;name&gt;</code> to set the charset of the source files
+     *             (defaults to UTF-8). Analyzed files are selected by the options described in
+     *             {@link fr.istic.vv_tp2.common.AnalysisOptions}. With
+     *             <code>--diff &lt;file&gt;</code>, only the methods changed by a unified diff
+     *             of the project are evaluated, and compared with the binary report given by
+     *             <code>--baseline &lt;file&gt;</code>. The peak heap usage of the run is
+     *             printed at the end. With <code>--profile &lt;file&gt;</code>, the time spent
+     *             in each phase and the slowest files are written to the file.
      * @throws IOException If an I/O error occurs.
      */
     public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
-            System.err.println(
-                    "error: no inputFile provided: please provide at least one inputFile path.");
+        CycloOptions options = null;
+        try {
+            options = CycloOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
             System.exit(1);
         }
 
-        String path = args[0];
+        String path = options.path;
         String projectName = new File(path).getName();
 
-        System.out.println("Analyzing the project...");
+        if (options.diffFile != null) {
+            analyzeChanges(options, projectName);
+            return;
+        }
 
-        // Run the analysis.
-        List<CycloEntry> cycloEntries = new ArrayList<>();
-        exploreDirectory(args[0], cycloEntries);
+        System.out.println("Analyzing the project...");
 
-        // Export results.
-        int exportersCount = EXPORTERS.length;
-        for (int i = 0; i < exportersCount; i++) {
-            System.out.printf("Exporting... [%d/%d]%n", i + 1, exportersCount);
-            EXPORTERS[i].export(projectName, cycloEntries);
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        List<Path> javaFiles = JavaFiles.find(Path.of(path), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
+        CycloCache cache = options.cacheFile == null ? null
+                : CycloCache.load(options.cacheFile, options.engine, options.charset);
+
+        // Run the analysis, streaming entries to the exports.
+        // Files which cannot be analyzed are reported aside.
+        try (ParseFailures failures = new ParseFailures(
+                new File(projectName + "_parse_failures.csv"));
+             CycloAnalyzer analyzer = new CycloAnalyzer(
+                     new AnalysisEngine(options, failures).profiledBy(profile), cache,
+                     new CycloUnitAnalysis(openExports(projectName, options.engine),
+                             options.engine))) {
+            analyzer.analyze(javaFiles);
+            if (cache != null)
+                cache.save();
         }
+        profile.write();
+        PeakHeap.print();
     }
 
     /**
-     * Explore recursively a directory in order to find <code>.java</code> files
-     * in it, and calculate cyclomatic complexity of their methods.
+     * Computes the cyclomatic complexities of the methods changed by a diff, and exports them with
+     * their delta against a baseline report. Only the changed files are parsed.
      *
-     * @param path         Directory's path.
-     * @param cycloEntries List of cyclomatic complexity entries, to be expanded
-     *                     by complexity measurements of methods found in Java files inside the
-     *                     directory.
-     * @throws IOException If any I/O error occur.
+     * @param options     Options of the program.
+     * @param projectName Name of the evaluated project.
+     * @throws IOException If an I/O error occurs.
      */
-    private static void exploreDirectory(String path, List<CycloEntry> cycloEntries)
+    private static void analyzeChanges(CycloOptions options, String projectName)
             throws IOException {
-        File file = new File(path);
-
-        // If directory, explore its sub directories.
-        if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
-            for (File child : file.listFiles())
-                exploreDirectory(child.getPath(), cycloEntries);
-            return;
+        Path root = Path.of(options.path);
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        ChangedLines changes = ChangedLines.parse(options.diffFile, root);
+        List<Path> javaFiles = JavaFiles.select(root, changes.files(), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
+
+        // Baselines computed with another engine or analyzer are refused before any analysis.
+        CycloSink delta = null;
+        try {
+            delta = new DeltaCycloExporter(options.baselineFile, options.engine).open(projectName);
+        } catch (IOException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(1);
         }
 
-        // Otherwise parse file.
-        String fileName = file.getName();
-        int dotIndex = fileName.lastIndexOf(".");
-        if (fileName.substring(dotIndex == -1 ? 0 : dotIndex)
-                .equals(".java")) {
-            CompilationUnit unit = StaticJavaParser.parse(file);
-
-            // Create the compilation unit visitor.
-            CyclomaticUnitVisitor visitor = new CyclomaticUnitVisitor();
-            CyclomaticUnitVisitor.CycloUnitParam param =
-                    new CyclomaticUnitVisitor.CycloUnitParam(cycloEntries);
+        System.out.println("Analyzing " + javaFiles.size() + " changed files...");
 
-            unit.accept(visitor, param);
+        try (ParseFailures failures = new ParseFailures(
+                new File(projectName + "_parse_failures.csv"));
+             CycloAnalyzer analyzer = CycloAnalyzer.ofChanges(
+                     new AnalysisEngine(options, failures).profiledBy(profile), changes,
+                     new CycloUnitAnalysis(delta, options.engine))) {
+            analyzer.analyze(javaFiles);
         }
+        profile.write();
+        PeakHeap.print();
+    }
+
+    /**
+     * Opens the exports of the program.
+     *
+     * @param projectName Name of the evaluated project.
+     * @param engine      Engine which computes the exported entries.
+     * @return Sink streaming entries to every export, and completing them concurrently when
+     *         closed.
+     * @throws IOException If any I/O error occurs.
+     */
+    public static CycloSink openExports(String projectName, CycloEngine engine)
+            throws IOException {
+        return new ExportStage(List.of(
+                new CSVCycloExporter(),
+                new BinaryCycloExporter(engine),
+                new BarplotCycloExporter(),
+                new HistogramCycloExporter()), projectName);
     }
 
     /**
      * Represent a cyclomatic complexity measure entry.
      */
     public static class CycloEntry {
+        /**
+         * Order of entries by descending cyclomatic complexity.
+         */
+        public static final Comparator<CycloEntry> BY_DESCENDING_COMPLEXITY =
+                (entry1, entry2) -> Integer.compare(entry2.cyclomaticNumber,
+                        entry1.cyclomaticNumber);
+
         /**
          * Package of the class of the evaluated method.
          */
@@ -137,5 +199,31 @@ public class CyclomaticComplexity {
             this.paramList = paramList;
             this.cyclomaticNumber = cyclomaticNumber;
         }
+
+        /**
+         * Reads an entry written by {@link #write(DataOutput)}.
+         *
+         * @param input Input to read the entry from.
+         * @return The read entry.
+         * @throws IOException If any I/O error occurs.
+         */
+        public static CycloEntry read(DataInput input) throws IOException {
+            return new CycloEntry(input.readUTF(), input.readUTF(), input.readUTF(),
+                    input.readUTF(), input.readInt());
+        }
+
+        /**
+         * Writes this entry in a binary form.
+         *
+         * @param output Output to write the entry into.
+         * @throws IOException If any I/O error occurs.
+         */
+        public void write(DataOutput output) throws IOException {
+            output.writeUTF(packageName);
+            output.writeUTF(className);
+            output.writeUTF(methodName);
+            output.writeUTF(paramList);
+            output.writeInt(cyclomaticNumber);
+        }
     }
 }
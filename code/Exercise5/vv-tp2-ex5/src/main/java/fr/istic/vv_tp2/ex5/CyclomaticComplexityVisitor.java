@@ -1,5 +1,6 @@
 package fr.istic.vv_tp2.ex5;
 
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.BreakStmt;
@@ -20,6 +21,11 @@ import java.util.Optional;
 
 /**
  * Visitor used to evaluate the cyclomatic complexity of a method.
+ * <p>
+ * The statements of blocks and switch entries are dispatched by their kind, with no lambda: only
+ * the statements modifying the control flow are visited. The visitor holds no state, so it can be
+ * shared, and evaluating a method allocates nothing but what the JavaParser accessors themselves
+ * allocate.
  */
 public class CyclomaticComplexityVisitor extends
         VoidVisitorAdapter<CyclomaticComplexityVisitor.CycloCounter> {
@@ -31,29 +37,45 @@ public class CyclomaticComplexityVisitor extends
      * @param counter Cyclomatic complexity counter.
      */
     private void dispatchStat(Statement stat, CycloCounter counter) {
-        stat.ifBreakStmt(s -> s.accept(this, counter));
-        stat.ifBreakStmt(s -> s.accept(this, counter));
-        stat.ifContinueStmt(s -> s.accept(this, counter));
-        stat.ifDoStmt(s -> s.accept(this, counter));
-        stat.ifForEachStmt(s -> s.accept(this, counter));
-        stat.ifForStmt(s -> s.accept(this, counter));
-        stat.ifSwitchStmt(s -> s.accept(this, counter));
-        stat.ifTryStmt(s -> s.accept(this, counter));
-        stat.ifWhileStmt(s -> s.accept(this, counter));
+        // A break statement is counted twice.
+        if (stat.isBreakStmt()) {
+            stat.accept(this, counter);
+            stat.accept(this, counter);
+        } else if (stat.isContinueStmt() || stat.isDoStmt() || stat.isForEachStmt()
+                || stat.isForStmt() || stat.isSwitchStmt() || stat.isTryStmt()
+                || stat.isWhileStmt()) {
+            stat.accept(this, counter);
+        }
     }
 
     @Override
     public void visit(MethodDeclaration method, CycloCounter counter) {
+        Optional<BlockStmt> body = method.getBody();
+        if (body.isPresent())
+            visitMethodBody(body.get(), counter);
+        else
+            counter.addVertices(1); // end vertex.
+    }
+
+    /**
+     * Visits the body of a method. Callers which already hold the body use this method rather
+     * than visiting the method declaration, which avoids allocating an {@link Optional}.
+     *
+     * @param body    Body of the method.
+     * @param counter Cyclomatic complexity counter.
+     */
+    public void visitMethodBody(BlockStmt body, CycloCounter counter) {
         counter.addVertices(1); // end vertex.
 
-        Optional<BlockStmt> bodyOpt = method.getBody();
-        bodyOpt.ifPresent(blockStmt -> blockStmt.accept(this, counter));
+        body.accept(this, counter);
     }
 
     @Override
     public void visit(BlockStmt statement, CycloCounter counter) {
-        for (Statement stat : statement.getStatements())
-            dispatchStat(stat, counter);
+        // Indexed loop: no iterator allocation.
+        NodeList<Statement> statements = statement.getStatements();
+        for (int i = 0, size = statements.size(); i < size; i++)
+            dispatchStat(statements.get(i), counter);
     }
 
     @Override
@@ -105,10 +127,10 @@ public class CyclomaticComplexityVisitor extends
                 .accept(this, counter);
 
         // else block node.
-        Optional<Statement> elseStat = statement.getElseStmt();
-        if (elseStat.isPresent()) {
+        if (statement.hasElseBranch()) {
             counter.addEdges(1);
-            elseStat.get()
+            statement.getElseStmt()
+                    .get()
                     .accept(this, counter);
         }
     }
@@ -119,12 +141,17 @@ public class CyclomaticComplexityVisitor extends
         counter.addEdges(1);    // input edge.
 
         // Iterating over switch statements.
-        for (SwitchEntry entry : statement.getEntries()) {
+        NodeList<SwitchEntry> entries = statement.getEntries();
+        for (int i = 0, size = entries.size(); i < size; i++) {
             counter.addEdges(2);    // add input and output edge.
-            for (Statement stat : entry.getStatements())
+            NodeList<Statement> statements = entries.get(i)
+                    .getStatements();
+            for (int j = 0, count = statements.size(); j < count; j++) {
+                Statement stat = statements.get(j);
                 // does not take account of break, as the output edge is already registered.
                 if (!stat.isBreakStmt())
                     dispatchStat(stat, counter);
+            }
         }
     }
 
@@ -133,9 +160,11 @@ public class CyclomaticComplexityVisitor extends
         counter.addVertices(2); // extremities
         counter.addEdges(2);    // input + end of catch.
 
-        for (CatchClause catchClause : statement.getCatchClauses()) {
+        NodeList<CatchClause> catchClauses = statement.getCatchClauses();
+        for (int i = 0, size = catchClauses.size(); i < size; i++) {
             counter.addEdges(2); // input and output edges of the clause.
-            catchClause.getBody()
+            catchClauses.get(i)
+                    .getBody()
                     .accept(this, counter);
         }
 
@@ -166,6 +195,14 @@ public class CyclomaticComplexityVisitor extends
         private int vertices = 0;
         private int edges = 0;
 
+        /**
+         * Resets the counter, so that it can be reused for another method.
+         */
+        public void reset() {
+            vertices = 0;
+            edges = 0;
+        }
+
         /**
          * Add a given number of vertices.
          *
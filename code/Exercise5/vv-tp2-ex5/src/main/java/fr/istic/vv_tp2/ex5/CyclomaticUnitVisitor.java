@@ -1,22 +1,94 @@
 package fr.istic.vv_tp2.ex5;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.nodeTypes.NodeWithName;
+import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
+import fr.istic.vv_tp2.common.ChangedLines;
+
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Visitor used to compute cyclomatic complexities of all methods from a
  * compilation unit.
+ * <p>
+ * The visitor walks the unit once: every type declaration, whether top-level, nested, local or
+ * anonymous, and whether a class, an enum or a record, is visited exactly once, and the methods of
+ * each type are attributed to their innermost declaring type. Methods declared by interfaces are
+ * ignored.
+ * <p>
+ * Methods are evaluated by the {@link CycloEngine} given at construction. When the visitor's
+ * parameter holds the changed lines of the unit, only the methods holding a changed line are
+ * evaluated; the others are still walked, so that anonymous classes keep their names.
  */
 public class CyclomaticUnitVisitor extends
         VoidVisitorAdapter<CyclomaticUnitVisitor.CycloUnitParam> {
 
+    /**
+     * Parameter list of the methods with no parameter.
+     */
+    private static final String NO_PARAMS = "()";
+
+    /**
+     * Engine evaluating the methods.
+     */
+    private final CycloEngine engine;
+
+    /**
+     * Builder of parameter lists, reused for every evaluated method.
+     */
+    private final StringBuilder paramBuilder = new StringBuilder();
+
+    /**
+     * Visitor evaluating the cyclomatic complexity of methods.
+     */
+    private final CyclomaticComplexityVisitor complexityVisitor =
+            new CyclomaticComplexityVisitor();
+
+    /**
+     * Counter reused for every evaluated method.
+     */
+    private final CyclomaticComplexityVisitor.CycloCounter counter =
+            new CyclomaticComplexityVisitor.CycloCounter();
+
+    /**
+     * Visitor counting the decision points of methods.
+     */
+    private final DecisionCountVisitor decisionVisitor = new DecisionCountVisitor();
+
+    /**
+     * Decision counter reused for every evaluated method.
+     */
+    private final DecisionCountVisitor.DecisionCounter decisionCounter =
+            new DecisionCountVisitor.DecisionCounter();
+
+    /**
+     * Constructor of the class, evaluating methods from their control flow graph.
+     */
+    public CyclomaticUnitVisitor() {
+        this(CycloEngine.CFG);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param engine Engine evaluating the methods.
+     */
+    public CyclomaticUnitVisitor(CycloEngine engine) {
+        this.engine = engine;
+    }
+
     @Override
     public void visit(CompilationUnit unit, CycloUnitParam param) {
         // Get the package name.
@@ -24,64 +96,157 @@ public class CyclomaticUnitVisitor extends
                 .map(NodeWithName::getNameAsString)
                 .orElse("(default)");
 
-        // Iterate over unit's class declarations.
-        for (ClassOrInterfaceDeclaration intClass : unit.findAll(
-                ClassOrInterfaceDeclaration.class))
-            intClass.accept(this, param);
+        // Walk the whole unit.
+        super.visit(unit, param);
     }
 
     @Override
     public void visit(ClassOrInterfaceDeclaration intClass, CycloUnitParam param) {
-        // Filtering interfaces.
-        if (intClass.isInterface())
+        // Methods of interfaces are not evaluated, but their nested types are.
+        visitType(intClass.getNameAsString(), !intClass.isInterface(), param,
+                () -> super.visit(intClass, param));
+    }
+
+    @Override
+    public void visit(EnumDeclaration enumDecl, CycloUnitParam param) {
+        visitType(enumDecl.getNameAsString(), true, param, () -> super.visit(enumDecl, param));
+    }
+
+    @Override
+    public void visit(RecordDeclaration record, CycloUnitParam param) {
+        visitType(record.getNameAsString(), true, param, () -> super.visit(record, param));
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr creation, CycloUnitParam param) {
+        Optional<NodeList<BodyDeclaration<?>>> body = creation.getAnonymousClassBody();
+        if (body.isEmpty()) {
+            super.visit(creation, param);
             return;
+        }
 
-        String className = intClass.getNameAsString();
+        // Scope and arguments belong to the enclosing type.
+        creation.getScope()
+                .ifPresent(scope -> scope.accept(this, param));
+        creation.getArguments()
+                .forEach(argument -> argument.accept(this, param));
 
-        // Iterate over all methods of the class.
-        for (MethodDeclaration method : intClass.getMethods()) {
-            if (method.getBody()
-                    .isEmpty())
-                continue;
+        // Anonymous classes are named after their enclosing type, as the compiler does.
+        String className = param.className + "$" + ++param.anonymousClasses;
+        visitType(className, true, param, () -> body.get()
+                .forEach(member -> member.accept(this, param)));
+    }
 
+    @Override
+    public void visit(MethodDeclaration method, CycloUnitParam param) {
+        Optional<BlockStmt> body = method.getBody();
+        if (param.evaluateMethods && body.isPresent() && param.isChanged(method)) {
             String methodName = method.getNameAsString();
 
             // Build the list of parameters.
-            List<Parameter> params = method.getParameters();
-            List<String> paramStrings =
-                    params.stream()
-                            .map(p -> p.getTypeAsString() + " " + p.getNameAsString())
-                            .toList();
-            String paramList = "\"(" + String.join(", ", paramStrings) + ")\"";
+            String paramList = paramList(method.getParameters());
 
             // Compute the cyclomatic complexity.
-            int cyclomaticComplexity = calculateCyclomaticComplexity(method);
+            int cyclomaticComplexity = calculateCyclomaticComplexity(body.get());
 
             // Add the entry.
-            param.cycloEntries.add(
-                    new CyclomaticComplexity.CycloEntry(param.packageName, className, methodName,
-                            paramList,
-                            cyclomaticComplexity));
-
-            // Explore subclasses.
-            for (FieldDeclaration field : intClass.getFields())
-                field.ifClassOrInterfaceDeclaration(cls -> cls.accept(this, param));
+            param.cycloEntries.accept(
+                    new CyclomaticComplexity.CycloEntry(param.packageName, param.className,
+                            methodName, paramList, cyclomaticComplexity));
+        }
+
+        // Explore local and anonymous classes of the method.
+        super.visit(method, param);
+    }
+
+    /**
+     * Renders the parameter list of a method, e.g. <code>(int a, String b)</code>. The builder of
+     * this visitor is reused between calls, and methods with no parameter share a single string.
+     *
+     * @param params Parameters of the method.
+     * @return The parameter list.
+     */
+    private String paramList(List<Parameter> params) {
+        if (params.isEmpty())
+            return NO_PARAMS;
+
+        paramBuilder.setLength(0);
+        paramBuilder.append('(');
+        for (int i = 0; i < params.size(); i++) {
+            Parameter p = params.get(i);
+            if (i > 0)
+                paramBuilder.append(", ");
+            paramBuilder.append(p.getTypeAsString())
+                    .append(' ')
+                    .append(p.getNameAsString());
         }
+        return paramBuilder.append(')')
+                .toString();
     }
 
     /**
-     * Calculates the cyclomatic complexity of a method.
+     * Visits a type declaration, with the visitor's parameter describing this type.
+     *
+     * @param className       Name of the type.
+     * @param evaluateMethods Whether the methods of the type are evaluated.
+     * @param param           Parameter of the visitor.
+     * @param visitMembers    Visit of the members of the type.
+     */
+    private static void visitType(String className, boolean evaluateMethods,
+            CycloUnitParam param, Runnable visitMembers) {
+        String enclosingClassName = param.className;
+        boolean enclosingEvaluateMethods = param.evaluateMethods;
+        int enclosingAnonymousClasses = param.anonymousClasses;
+
+        param.className = className;
+        param.evaluateMethods = evaluateMethods;
+        param.anonymousClasses = 0;
+        visitMembers.run();
+
+        param.className = enclosingClassName;
+        param.evaluateMethods = enclosingEvaluateMethods;
+        param.anonymousClasses = enclosingAnonymousClasses;
+    }
+
+    /**
+     * Calculates the cyclomatic complexity of a method. The counter of this visitor is reused
+     * between calls, so a visitor must not be shared between threads.
      *
      * @param declaration AST node of the declaration of the method to evaluate.
      * @return The cyclomatic number of the method declared by <code>declaration</code>.
      * @see CyclomaticComplexityVisitor
+     * @see DecisionCountVisitor
      */
     public int calculateCyclomaticComplexity(MethodDeclaration declaration) {
-        CyclomaticComplexityVisitor visitor = new CyclomaticComplexityVisitor();
-        CyclomaticComplexityVisitor.CycloCounter counter =
-                new CyclomaticComplexityVisitor.CycloCounter();
+        if (engine == CycloEngine.DECISIONS)
+            return declaration.getBody()
+                    .map(this::calculateCyclomaticComplexity)
+                    .orElse(1);
+
+        counter.reset();
+        declaration.accept(complexityVisitor, counter);
+
+        return counter.getCyclomaticNumber();
+    }
+
+    /**
+     * Calculates the cyclomatic complexity of a method from its body with the engine of this
+     * visitor, reusing the counters of this visitor.
+     *
+     * @param body Body of the method to evaluate.
+     * @return The cyclomatic number of the method.
+     * @see #calculateCyclomaticComplexity(MethodDeclaration)
+     */
+    public int calculateCyclomaticComplexity(BlockStmt body) {
+        if (engine == CycloEngine.DECISIONS) {
+            decisionCounter.reset();
+            body.accept(decisionVisitor, decisionCounter);
+
+            return decisionCounter.getCyclomaticNumber();
+        }
 
-        declaration.accept(visitor, counter);
+        counter.reset();
+        complexityVisitor.visitMethodBody(body, counter);
 
         return counter.getCyclomaticNumber();
     }
@@ -96,17 +261,64 @@ public class CyclomaticUnitVisitor extends
         String packageName;
 
         /**
-         * List of cyclomatic entries to expand.
+         * Name of the current type.
          */
-        final List<CyclomaticComplexity.CycloEntry> cycloEntries;
+        String className;
+
+        /**
+         * Whether the methods of the current type are evaluated.
+         */
+        boolean evaluateMethods;
+
+        /**
+         * Number of anonymous classes met so far in the current type.
+         */
+        int anonymousClasses;
+
+        /**
+         * Consumer of the computed cyclomatic entries.
+         */
+        final Consumer<CyclomaticComplexity.CycloEntry> cycloEntries;
+
+        /**
+         * Changed lines of the unit, or <code>null</code> if every method is evaluated.
+         */
+        final ChangedLines.Ranges changedLines;
+
+        /**
+         * Constructor of the class, evaluating every method.
+         *
+         * @param cycloEntries Consumer of the computed cyclomatic entries.
+         */
+        public CycloUnitParam(Consumer<CyclomaticComplexity.CycloEntry> cycloEntries) {
+            this(cycloEntries, null);
+        }
 
         /**
          * Constructor of the class.
          *
-         * @param cycloEntries List of cyclomatic entries to expand.
+         * @param cycloEntries Consumer of the computed cyclomatic entries.
+         * @param changedLines Changed lines of the unit, so that only the methods holding a
+         *                     changed line are evaluated, or <code>null</code> to evaluate every
+         *                     method.
          */
-        public CycloUnitParam(List<CyclomaticComplexity.CycloEntry> cycloEntries) {
+        public CycloUnitParam(Consumer<CyclomaticComplexity.CycloEntry> cycloEntries,
+                ChangedLines.Ranges changedLines) {
             this.cycloEntries = cycloEntries;
+            this.changedLines = changedLines;
+        }
+
+        /**
+         * Tells whether a method must be evaluated, because it holds a changed line. Methods
+         * with no position are evaluated.
+         *
+         * @param method Declaration of the method.
+         * @return <code>true</code> if the method must be evaluated.
+         */
+        boolean isChanged(MethodDeclaration method) {
+            return changedLines == null || method.getRange()
+                    .map(range -> changedLines.overlaps(range.begin.line, range.end.line))
+                    .orElse(true);
         }
     }
 
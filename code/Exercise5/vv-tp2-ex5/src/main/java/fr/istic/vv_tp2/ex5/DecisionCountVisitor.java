@@ -0,0 +1,187 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.visitor.VoidVisitorWithDefaults;
+
+import java.util.List;
+
+/**
+ * Visitor used to evaluate the cyclomatic complexity of a method as its number of decision points
+ * plus one, in a single pass over its statements and expressions.
+ * <p>
+ * Decision points are conditional and loop statements, catch clauses, case labels of switch
+ * statements and expressions, conditional expressions and <code>&amp;&amp;</code> /
+ * <code>||</code> operators, including those of lambdas. Local and anonymous classes are not
+ * visited: their methods are evaluated on their own. The visitor holds no state, so it can be
+ * shared.
+ * <p>
+ * Every other node is walked through its children with an indexed loop, so that no iterator is
+ * allocated; {@link Node#getChildNodes()} still wraps the children of each walked node into a
+ * read-only view.
+ */
+public class DecisionCountVisitor extends
+        VoidVisitorWithDefaults<DecisionCountVisitor.DecisionCounter> {
+
+    @Override
+    public void defaultAction(Node node, DecisionCounter counter) {
+        visitChildren(node, counter);
+    }
+
+    /**
+     * Visits the children of a node.
+     *
+     * @param node    Node whose children are visited.
+     * @param counter Counter of the decision points.
+     */
+    private void visitChildren(Node node, DecisionCounter counter) {
+        List<Node> children = node.getChildNodes();
+        for (int i = 0; i < children.size(); i++)
+            children.get(i)
+                    .accept(this, counter);
+    }
+
+    @Override
+    public void visit(IfStmt statement, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(statement, counter);
+    }
+
+    @Override
+    public void visit(ForStmt statement, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(statement, counter);
+    }
+
+    @Override
+    public void visit(ForEachStmt statement, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(statement, counter);
+    }
+
+    @Override
+    public void visit(WhileStmt statement, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(statement, counter);
+    }
+
+    @Override
+    public void visit(DoStmt statement, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(statement, counter);
+    }
+
+    @Override
+    public void visit(CatchClause clause, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(clause, counter);
+    }
+
+    @Override
+    public void visit(SwitchEntry entry, DecisionCounter counter) {
+        // One decision per case label; the default entry has none.
+        counter.decisions += entry.getLabels()
+                .size();
+        visitChildren(entry, counter);
+    }
+
+    @Override
+    public void visit(ConditionalExpr expression, DecisionCounter counter) {
+        counter.decisions++;
+        visitChildren(expression, counter);
+    }
+
+    @Override
+    public void visit(BinaryExpr expression, DecisionCounter counter) {
+        BinaryExpr.Operator operator = expression.getOperator();
+        if (operator == BinaryExpr.Operator.AND || operator == BinaryExpr.Operator.OR)
+            counter.decisions++;
+        visitChildren(expression, counter);
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr expression, DecisionCounter counter) {
+        // Only the scope and the arguments belong to the method, not the anonymous class body.
+        List<Node> children = expression.getChildNodes();
+        for (int i = 0; i < children.size(); i++) {
+            Node child = children.get(i);
+            if (!(child instanceof BodyDeclaration))
+                child.accept(this, counter);
+        }
+    }
+
+    @Override
+    public void visit(SimpleName name, DecisionCounter counter) {
+        // Names hold no decision.
+    }
+
+    @Override
+    public void visit(NameExpr expression, DecisionCounter counter) {
+        // Names hold no decision.
+    }
+
+    @Override
+    public void visit(PrimitiveType type, DecisionCounter counter) {
+        // Types hold no decision.
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceType type, DecisionCounter counter) {
+        // Types hold no decision.
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration declaration, DecisionCounter counter) {
+        // Local classes are evaluated on their own.
+    }
+
+    @Override
+    public void visit(EnumDeclaration declaration, DecisionCounter counter) {
+        // Local enums are evaluated on their own.
+    }
+
+    @Override
+    public void visit(RecordDeclaration declaration, DecisionCounter counter) {
+        // Local records are evaluated on their own.
+    }
+
+    /**
+     * Counter of the decision points of a method.
+     */
+    public static class DecisionCounter {
+        private int decisions = 0;
+
+        /**
+         * Resets the counter, so that it can be reused for another method.
+         */
+        public void reset() {
+            decisions = 0;
+        }
+
+        /**
+         * Calculates the cyclomatic number of the method from its number of decision points.
+         *
+         * @return The cyclomatic complexity of the method <code>decisions + 1</code>
+         */
+        public int getCyclomaticNumber() {
+            return decisions + 1;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package fr.istic.vv_tp2.ex5.export;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
 
@@ -10,35 +12,107 @@ import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * Exports data into a bar plot, which is sorted by descending cyclomatic complexities.
+ * <p>
+ * Only the {@link #MAX_BARS} most complex methods are plotted: they are selected while entries
+ * are streamed, so memory usage and rendering time are bounded whatever the size of the project.
+ * Each bar is labeled by its rank and its method qualified by its class, so that overloaded
+ * methods get bars of their own. The distribution of all the methods is plotted by a
+ * {@link HistogramCycloExporter}.
  */
 public class BarplotCycloExporter implements CycloExporter {
 
+    /**
+     * Maximal number of bars of the plot.
+     */
+    public static final int MAX_BARS = 100;
+
     private static final int EXPORT_WIDTH = 800;
     private static final int EXPORT_HEIGHT = 600;
+    private static final float LABEL_FONT_SIZE = 6f;
 
     @Override
-    public void export(String file, List<CyclomaticComplexity.CycloEntry> cycloEntries) throws
-            IOException {
-        // Sort data by descending order.
-        cycloEntries.sort((entry1, entry2) -> Integer.compare(entry2.cyclomaticNumber,
-                entry1.cyclomaticNumber));
+    public CycloSink open(String file) {
+        // Heap whose head is the least complex selected entry, the latest one among equals.
+        Comparator<Ranked> order = Comparator.comparingInt((Ranked ranked) -> ranked.entry
+                        .cyclomaticNumber)
+                .thenComparing(Comparator.comparingLong((Ranked ranked) -> ranked.rank)
+                        .reversed());
+        PriorityQueue<Ranked> selected = new PriorityQueue<>(order);
+
+        return new CycloSink() {
+            private long rank = 0;
+
+            @Override
+            public void accept(CyclomaticComplexity.CycloEntry entry) {
+                if (selected.size() < MAX_BARS)
+                    selected.add(new Ranked(entry, rank));
+                else if (entry.cyclomaticNumber > selected.peek().entry.cyclomaticNumber) {
+                    selected.poll();
+                    selected.add(new Ranked(entry, rank));
+                }
+                rank++;
+            }
+
+            @Override
+            public void close() throws IOException {
+                // Sort data by descending order.
+                List<Ranked> ranked = new ArrayList<>(selected);
+                ranked.sort(order.reversed());
 
+                List<CyclomaticComplexity.CycloEntry> cycloEntries =
+                        new ArrayList<>(ranked.size());
+                for (Ranked entry : ranked)
+                    cycloEntries.add(entry.entry);
+                export(file, cycloEntries);
+            }
+        };
+    }
+
+    /**
+     * Renders the selected entries into the bar plot.
+     *
+     * @param file         Name of the evaluated project.
+     * @param cycloEntries Entries to plot, by descending cyclomatic complexities.
+     * @throws IOException If any I/O error occurs.
+     */
+    private void export(String file, List<CyclomaticComplexity.CycloEntry> cycloEntries) throws
+            IOException {
         // Produce the dataset.
+        // Bars are keyed by rank, since methods may share their name.
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        int rank = 0;
         for (CyclomaticComplexity.CycloEntry entry : cycloEntries)
-            dataset.addValue(entry.cyclomaticNumber, "Cyclomatic Complexity", entry.methodName);
+            dataset.addValue(entry.cyclomaticNumber, "Cyclomatic Complexity",
+                    ++rank + ". " + entry.className + "." + entry.methodName);
 
         // Produce the chart.
         JFreeChart chart =
                 ChartFactory.createBarChart(file, "Method", "Cyclomatic Complexity", dataset,
                         PlotOrientation.VERTICAL, false, false, false);
+        CategoryAxis axis = chart.getCategoryPlot()
+                .getDomainAxis();
+        axis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+        axis.setTickLabelFont(axis.getTickLabelFont()
+                .deriveFont(LABEL_FONT_SIZE));
 
         // Export the chart.
         File outputFile = new File(String.format("%s_chart.png", file));
         ChartUtils.saveChartAsPNG(outputFile, chart, EXPORT_WIDTH, EXPORT_HEIGHT);
     }
+
+    /**
+     * Entry selected for the plot, along with its arrival rank.
+     *
+     * @param entry Cyclomatic complexity entry.
+     * @param rank  Arrival rank of the entry.
+     */
+    private record Ranked(CyclomaticComplexity.CycloEntry entry, long rank) {
+    }
 }
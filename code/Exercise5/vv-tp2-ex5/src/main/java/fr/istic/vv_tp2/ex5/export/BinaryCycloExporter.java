@@ -0,0 +1,62 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloEngine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exports data into a compact columnar binary report, sorted by descending cyclomatic
+ * complexities. The report is written by a {@link CycloReportWriter} and can be loaded or
+ * filtered with a {@link CycloReportReader}, without parsing any text.
+ * <p>
+ * As the CSV export, the exporter {@link #needsSortedEntries() needs sorted entries}. Since the
+ * report is sorted, readers filtering by cyclomatic number skip most of its blocks.
+ */
+public class BinaryCycloExporter implements CycloExporter {
+
+    /**
+     * Suffix of the report files, appended to the name of the project.
+     */
+    public static final String FILE_SUFFIX = "_report_cc.cyclo";
+
+    /**
+     * Whether the reports are compressed.
+     */
+    private final boolean deflated;
+
+    /**
+     * Engine which computes the exported entries.
+     */
+    private final CycloEngine engine;
+
+    /**
+     * Constructor of the class, writing compressed reports.
+     *
+     * @param engine Engine which computes the exported entries.
+     */
+    public BinaryCycloExporter(CycloEngine engine) {
+        this(true, engine);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param deflated Whether the reports are compressed.
+     * @param engine   Engine which computes the exported entries.
+     */
+    public BinaryCycloExporter(boolean deflated, CycloEngine engine) {
+        this.deflated = deflated;
+        this.engine = engine;
+    }
+
+    @Override
+    public CycloSink open(String projectName) throws IOException {
+        return new CycloReportWriter(Path.of(projectName + FILE_SUFFIX), deflated, engine);
+    }
+
+    @Override
+    public boolean needsSortedEntries() {
+        return true;
+    }
+}
@@ -1,36 +1,45 @@
 package fr.istic.vv_tp2.ex5.export;
 
+import fr.istic.vv_tp2.common.CsvWriter;
 import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.List;
+import java.nio.file.Path;
 
 /**
  * Exports data into a CSV file, sorted by descending cyclomatic complexities.
+ * <p>
+ * The exporter {@link #needsSortedEntries() needs sorted entries}, and writes them as they are
+ * received.
  */
 public class CSVCycloExporter implements CycloExporter {
     @Override
-    public void export(String projectName, List<CyclomaticComplexity.CycloEntry> cycloEntries)
-            throws
-            IOException {
-        // Sort data by descending order.
-        cycloEntries.sort((entry1, entry2) -> Integer.compare(entry2.cyclomaticNumber,
-                entry1.cyclomaticNumber));
+    public CycloSink open(String projectName) throws IOException {
+        CsvWriter output = new CsvWriter(Path.of(projectName + "_report_cc.csv"));
 
-        File outputFile = new File(projectName + "_report_cc.csv");
+        // Print file's header.
+        output.row("Package", "Declaring class", "Method", "Params", "CC");
 
-        try (PrintWriter output = new PrintWriter(new FileOutputStream(outputFile))) {
-            // Print file's header.
-            output.println("Package,Declaring class,Method,Params,CC");
+        return new CycloSink() {
+            @Override
+            public void accept(CyclomaticComplexity.CycloEntry entry) throws IOException {
+                output.field(entry.packageName)
+                        .field(entry.className)
+                        .field(entry.methodName)
+                        .field(entry.paramList)
+                        .field(entry.cyclomaticNumber)
+                        .endRow();
+            }
 
-            // Prints all cyclomatic entries.
-            for (CyclomaticComplexity.CycloEntry entry : cycloEntries)
-                output.printf("%s,%s,%s,%s,%s%n", entry.packageName, entry.className,
-                        entry.methodName, entry.paramList,
-                        entry.cyclomaticNumber);
-        }
+            @Override
+            public void close() throws IOException {
+                output.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean needsSortedEntries() {
+        return true;
     }
 }
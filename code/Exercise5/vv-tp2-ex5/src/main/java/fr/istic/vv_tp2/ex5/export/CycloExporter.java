@@ -3,7 +3,6 @@ package fr.istic.vv_tp2.ex5.export;
 import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Defines operation over exporter objects, which export computed cyclomatic complexity data into a
@@ -11,12 +10,24 @@ import java.util.List;
  */
 public interface CycloExporter {
     /**
-     * Exports data to a file.
+     * Opens an export. Entries are streamed to the returned sink as they are computed, and the
+     * export is completed when the sink is closed.
      *
-     * @param projectName  Name of the evaluated project.
-     * @param cycloEntries Dataset of cyclomatic complexity entries computed.
+     * @param projectName Name of the evaluated project.
+     * @return Sink receiving the cyclomatic complexity entries to export.
      * @throws IOException If any I/O error occurs.
      */
-    void export(String projectName, List<CyclomaticComplexity.CycloEntry> cycloEntries)
-            throws IOException;
+    CycloSink open(String projectName) throws IOException;
+
+    /**
+     * Tells whether the sinks of this exporter must receive the entries sorted by
+     * {@link CyclomaticComplexity.CycloEntry#BY_DESCENDING_COMPLEXITY}. Entries are then sorted
+     * once for all such exporters, once they have all been computed.
+     *
+     * @return <code>true</code> if the sinks must receive sorted entries.
+     * @see ExportStage
+     */
+    default boolean needsSortedEntries() {
+        return false;
+    }
 }
@@ -0,0 +1,358 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloCache;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the binary reports written by a {@link CycloReportWriter}.
+ * <p>
+ * Rows are sent to a {@link CycloSink}, in the order of the report, and may be filtered by
+ * cyclomatic number: blocks holding no matching row are skipped without decoding their columns,
+ * and strings are shared between the entries instead of being decoded for each row.
+ */
+public final class CycloReportReader {
+
+    private CycloReportReader() {
+    }
+
+    /**
+     * Reads all the entries of a report.
+     *
+     * @param file Report file.
+     * @param sink Sink receiving the entries. The sink is not closed.
+     * @throws IOException If the file could not be read or is not a report.
+     */
+    public static void read(Path file, CycloSink sink) throws IOException {
+        read(file, 0, Integer.MAX_VALUE, sink);
+    }
+
+    /**
+     * Reads the entries of a report whose cyclomatic number lies in a range.
+     *
+     * @param file             Report file.
+     * @param minCyclomaticNum Minimal cyclomatic number of the read entries, inclusive.
+     * @param maxCyclomaticNum Maximal cyclomatic number of the read entries, inclusive.
+     * @param sink             Sink receiving the entries. The sink is not closed.
+     * @throws IOException If the file could not be read or is not a report.
+     */
+    public static void read(Path file, int minCyclomaticNum, int maxCyclomaticNum,
+            CycloSink sink) throws IOException {
+        try (DataInputStream input = open(file)) {
+            Header header = readHeader(file, input);
+
+            Inflater inflater = header.deflated() ? new Inflater() : null;
+            try {
+                new BlockReader(input, Files.size(file), inflater)
+                        .read(minCyclomaticNum, maxCyclomaticNum, sink);
+            } catch (DataFormatException e) {
+                throw new IOException("corrupted report " + file, e);
+            } finally {
+                if (inflater != null)
+                    inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Checks that the entries of a report were computed with an engine by this version of the
+     * analyzer, so that they can be compared with the entries of this run.
+     *
+     * @param file   Report file.
+     * @param engine Engine computing the entries of this run.
+     * @throws IOException If the file could not be read or is not a report, or if its entries were
+     *                     computed with another engine or by another version of the analyzer.
+     */
+    public static void checkComputedBy(Path file, CycloEngine engine) throws IOException {
+        try (DataInputStream input = open(file)) {
+            Header header = readHeader(file, input);
+            if (header.engine() != engine)
+                throw new IOException("report " + file + " was computed with the "
+                        + header.engine() + " engine, not with the " + engine + " engine");
+            if (header.analyzerVersion() != CycloCache.ANALYZER_VERSION)
+                throw new IOException("report " + file + " was computed by version "
+                        + header.analyzerVersion() + " of the analyzer, not by version "
+                        + CycloCache.ANALYZER_VERSION);
+        }
+    }
+
+    /**
+     * Opens a report file.
+     *
+     * @param file Report file.
+     * @return Input stream reading the report from its start.
+     * @throws IOException If the file could not be opened.
+     */
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+    }
+
+    /**
+     * Reads the header of a report.
+     *
+     * @param file  Report file.
+     * @param input Input stream positioned at the start of the report.
+     * @return The header of the report.
+     * @throws IOException If any I/O error occurs, or if the file is not a report.
+     */
+    private static Header readHeader(Path file, DataInputStream input) throws IOException {
+        if (input.readInt() != CycloReportWriter.MAGIC)
+            throw new IOException(file + " is not a cyclomatic complexity report");
+        int version = input.readUnsignedByte();
+        if (version != CycloReportWriter.VERSION)
+            throw new IOException("unsupported version " + version + " of report " + file);
+        boolean deflated = (input.readUnsignedByte() & CycloReportWriter.DEFLATED) != 0;
+
+        int engine = input.readUnsignedByte();
+        CycloEngine[] engines = CycloEngine.values();
+        if (engine >= engines.length)
+            throw new IOException("unknown engine " + engine + " of report " + file);
+        return new Header(deflated, engines[engine], readVarint(input));
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint written by
+     * {@link CycloReportWriter#writeVarint(java.io.OutputStream, int)}.
+     *
+     * @param input Input stream.
+     * @return The read value.
+     * @throws IOException If any I/O error occurs, or if the stream ends.
+     */
+    static int readVarint(InputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /**
+     * Header of a report.
+     *
+     * @param deflated        Whether the sections of the report are compressed.
+     * @param engine          Engine which computed the entries of the report.
+     * @param analyzerVersion Version of the analyzer which computed the entries of the report.
+     */
+    private record Header(boolean deflated, CycloEngine engine, int analyzerVersion) {
+    }
+
+    /**
+     * Reader of the blocks of a report.
+     */
+    private static final class BlockReader {
+
+        /**
+         * Maximal ratio between the raw and the compressed sizes of a Deflate stream.
+         */
+        private static final int MAX_DEFLATE_RATIO = 1032;
+
+        /**
+         * Input stream positioned on the first block.
+         */
+        private final DataInputStream input;
+
+        /**
+         * Size of the report file, bounding the size of its sections.
+         */
+        private final long fileSize;
+
+        /**
+         * Decompressor of the sections, or <code>null</code> if they are stored as is.
+         */
+        private final Inflater inflater;
+
+        /**
+         * Strings of the dictionary, by index.
+         */
+        private final List<String> dictionary = new ArrayList<>();
+
+        /**
+         * Raw bytes of the current section.
+         */
+        private byte[] section = new byte[8192];
+
+        /**
+         * Position of the next byte to read in the current section.
+         */
+        private int position;
+
+        /**
+         * Number of raw bytes of the current section.
+         */
+        private int limit;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param input    Input stream positioned on the first block.
+         * @param fileSize Size of the report file.
+         * @param inflater Decompressor of the sections, or <code>null</code> if they are stored
+         *                 as is.
+         */
+        BlockReader(DataInputStream input, long fileSize, Inflater inflater) {
+            this.input = input;
+            this.fileSize = fileSize;
+            this.inflater = inflater;
+        }
+
+        /**
+         * Reads the blocks, sending their matching rows to a sink.
+         *
+         * @param minCyclomaticNum Minimal cyclomatic number of the read entries, inclusive.
+         * @param maxCyclomaticNum Maximal cyclomatic number of the read entries, inclusive.
+         * @param sink             Sink receiving the entries.
+         * @throws IOException         If any I/O error occurs.
+         * @throws DataFormatException If a section could not be decompressed, or is corrupted.
+         */
+        void read(int minCyclomaticNum, int maxCyclomaticNum, CycloSink sink)
+                throws IOException, DataFormatException {
+            int[] columns = new int[0];
+            int rows;
+            while ((rows = readVarint(input)) != 0) {
+                int min = readVarint(input);
+                int max = readVarint(input);
+
+                // The dictionary grows with every block, even the skipped ones.
+                loadSection();
+                int newStrings = nextVarint();
+                for (int i = 0; i < newStrings; i++) {
+                    int length = nextVarint();
+                    if (length < 0 || length > limit - position)
+                        throw new DataFormatException("string overflowing its section");
+                    dictionary.add(new String(section, position, length,
+                            StandardCharsets.UTF_8));
+                    position += length;
+                }
+
+                if (max < minCyclomaticNum || min > maxCyclomaticNum) {
+                    skipSection();
+                    continue;
+                }
+
+                // Columns of packages, classes, methods, parameter lists, cyclomatic numbers.
+                loadSection();
+                // Each value takes at least one byte of the section.
+                if (rows < 0 || 5L * rows > limit)
+                    throw new DataFormatException("columns overflowing their section");
+                if (columns.length < 5 * rows)
+                    columns = new int[5 * rows];
+                for (int i = 0; i < 5 * rows; i++)
+                    columns[i] = nextVarint();
+                // The string columns hold indices into the dictionary.
+                for (int i = 0; i < 4 * rows; i++)
+                    if (columns[i] < 0 || columns[i] >= dictionary.size())
+                        throw new DataFormatException("string index out of range");
+
+                for (int row = 0; row < rows; row++) {
+                    int cyclomaticNumber = columns[4 * rows + row];
+                    if (cyclomaticNumber < minCyclomaticNum || cyclomaticNumber > maxCyclomaticNum)
+                        continue;
+                    sink.accept(new CyclomaticComplexity.CycloEntry(
+                            dictionary.get(columns[row]), dictionary.get(columns[rows + row]),
+                            dictionary.get(columns[2 * rows + row]),
+                            dictionary.get(columns[3 * rows + row]), cyclomaticNumber));
+                }
+            }
+        }
+
+        /**
+         * Loads the next section of the report, decompressing it if needed.
+         *
+         * @throws IOException         If any I/O error occurs.
+         * @throws DataFormatException If the section could not be decompressed.
+         */
+        private void loadSection() throws IOException, DataFormatException {
+            int stored = readStoredSize();
+            int raw = readVarint(input);
+            long maxRaw = inflater == null ? stored : (long) stored * MAX_DEFLATE_RATIO;
+            if (raw < 0 || raw > maxRaw)
+                throw new DataFormatException("invalid section size " + raw);
+            if (section.length < raw)
+                section = new byte[raw];
+
+            if (inflater == null) {
+                input.readFully(section, 0, raw);
+            } else {
+                byte[] bytes = new byte[stored];
+                input.readFully(bytes);
+                inflater.reset();
+                inflater.setInput(bytes);
+                int inflated = 0;
+                while (inflated < raw && !inflater.finished()) {
+                    int count = inflater.inflate(section, inflated, raw - inflated);
+                    // The compressed bytes are exhausted before the end of the section.
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                        throw new DataFormatException("truncated section");
+                    inflated += count;
+                }
+                if (inflated != raw)
+                    throw new DataFormatException("truncated section");
+            }
+            position = 0;
+            limit = raw;
+        }
+
+        /**
+         * Skips the next section of the report without reading it.
+         *
+         * @throws IOException         If any I/O error occurs.
+         * @throws DataFormatException If the size of the section is invalid.
+         */
+        private void skipSection() throws IOException, DataFormatException {
+            int stored = readStoredSize();
+            readVarint(input);
+            input.skipNBytes(stored);
+        }
+
+        /**
+         * Reads the stored size of the next section, which cannot exceed the size of the file.
+         *
+         * @return The number of bytes of the section in the file.
+         * @throws IOException         If any I/O error occurs.
+         * @throws DataFormatException If the size is negative or exceeds the size of the file.
+         */
+        private int readStoredSize() throws IOException, DataFormatException {
+            int stored = readVarint(input);
+            if (stored < 0 || stored > fileSize)
+                throw new DataFormatException("invalid section size " + stored);
+            return stored;
+        }
+
+        /**
+         * Reads a varint from the current section.
+         *
+         * @return The read value.
+         * @throws IOException If the section ends or holds a malformed varint.
+         */
+        private int nextVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= limit)
+                    throw new EOFException();
+                int b = section[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("malformed varint");
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloCache;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes cyclomatic complexity entries into a compact columnar binary report, which can be read
+ * back with a {@link CycloReportReader}.
+ * <p>
+ * The report starts with the {@link #MAGIC} number, the {@link #VERSION} of the format, a byte
+ * of flags ({@link #DEFLATED}), the ordinal of the {@link CycloEngine} which computed the entries
+ * and the {@link CycloCache#ANALYZER_VERSION version of the analyzer}. Entries follow in blocks
+ * of at most {@link #BLOCK_SIZE} rows, and a block of zero rows ends the report. Each block is
+ * made of:
+ * <ul>
+ * <li>its number of rows, and the minimal and maximal cyclomatic numbers of its rows, so that
+ * readers can skip the block without decoding it;</li>
+ * <li>a dictionary section, holding the strings met for the first time in this block, which get
+ * the next indices of the dictionary shared by the whole report;</li>
+ * <li>a column section, holding the dictionary indices of the packages, then of the classes, of
+ * the methods and of the parameter lists of the rows, then their cyclomatic numbers.</li>
+ * </ul>
+ * All integers are unsigned LEB128 varints, and strings are encoded in UTF-8 after their length.
+ * Each section is written as its stored length and its raw length, followed by its bytes, which
+ * are compressed with {@link Deflater} when the report is deflated.
+ */
+public class CycloReportWriter implements CycloSink {
+
+    /**
+     * Magic number of the reports, "CYCR".
+     */
+    static final int MAGIC = 0x43594352;
+
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Flag of the reports whose sections are compressed.
+     */
+    static final int DEFLATED = 1;
+
+    /**
+     * Maximal number of rows of a block.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Output stream to the report file.
+     */
+    private final OutputStream output;
+
+    /**
+     * Compressor of the sections, or <code>null</code> if they are stored as is.
+     */
+    private final Deflater deflater;
+
+    /**
+     * Indices of the strings of the dictionary.
+     */
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    /**
+     * Strings added to the dictionary by the current block.
+     */
+    private final List<String> newStrings = new ArrayList<>();
+
+    // Columns of the current block.
+    private final int[] packages = new int[BLOCK_SIZE];
+    private final int[] classes = new int[BLOCK_SIZE];
+    private final int[] methods = new int[BLOCK_SIZE];
+    private final int[] params = new int[BLOCK_SIZE];
+    private final int[] cyclomaticNumbers = new int[BLOCK_SIZE];
+
+    /**
+     * Number of rows of the current block.
+     */
+    private int rows = 0;
+
+    /**
+     * Raw bytes of the section being written.
+     */
+    private final Section section = new Section();
+
+    /**
+     * Compressed bytes of the section being written.
+     */
+    private final Section compressed = new Section();
+
+    /**
+     * Constructor of the class. The file is created, or truncated if it already exists.
+     *
+     * @param file     Report file.
+     * @param deflated Whether the sections are compressed.
+     * @param engine   Engine which computed the entries.
+     * @throws IOException If the file could not be opened.
+     */
+    public CycloReportWriter(Path file, boolean deflated, CycloEngine engine)
+            throws IOException {
+        output = new BufferedOutputStream(Files.newOutputStream(file));
+        deflater = deflated ? new Deflater() : null;
+
+        for (int shift = 24; shift >= 0; shift -= 8)
+            output.write(MAGIC >>> shift);
+        output.write(VERSION);
+        output.write(deflated ? DEFLATED : 0);
+        output.write(engine.ordinal());
+        writeVarint(output, CycloCache.ANALYZER_VERSION);
+    }
+
+    @Override
+    public void accept(CyclomaticComplexity.CycloEntry entry) throws IOException {
+        packages[rows] = index(entry.packageName);
+        classes[rows] = index(entry.className);
+        methods[rows] = index(entry.methodName);
+        params[rows] = index(entry.paramList);
+        cyclomaticNumbers[rows] = entry.cyclomaticNumber;
+        if (++rows == BLOCK_SIZE)
+            writeBlock();
+    }
+
+    /**
+     * Gets the dictionary index of a string, adding it to the dictionary if it is new.
+     *
+     * @param string String.
+     * @return The index of the string.
+     */
+    private int index(String string) {
+        Integer index = dictionary.get(string);
+        if (index != null)
+            return index;
+
+        int newIndex = dictionary.size();
+        dictionary.put(string, newIndex);
+        newStrings.add(string);
+        return newIndex;
+    }
+
+    /**
+     * Writes the current block, if it holds any row.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void writeBlock() throws IOException {
+        if (rows == 0)
+            return;
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int i = 0; i < rows; i++) {
+            min = Math.min(min, cyclomaticNumbers[i]);
+            max = Math.max(max, cyclomaticNumbers[i]);
+        }
+        writeVarint(output, rows);
+        writeVarint(output, min);
+        writeVarint(output, max);
+
+        section.reset();
+        writeVarint(section, newStrings.size());
+        for (String string : newStrings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(section, bytes.length);
+            section.write(bytes);
+        }
+        writeSection();
+
+        section.reset();
+        for (int[] column : new int[][] {packages, classes, methods, params, cyclomaticNumbers})
+            for (int i = 0; i < rows; i++)
+                writeVarint(section, column[i]);
+        writeSection();
+
+        newStrings.clear();
+        rows = 0;
+    }
+
+    /**
+     * Writes the current section, compressing it if the report is deflated.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void writeSection() throws IOException {
+        Section stored = section;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(section.bytes(), 0, section.size());
+            deflater.finish();
+            compressed.reset();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            stored = compressed;
+        }
+
+        writeVarint(output, stored.size());
+        writeVarint(output, section.size());
+        output.write(stored.bytes(), 0, stored.size());
+    }
+
+    /**
+     * Writes the last block and the end of the report, and closes the file.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try (output) {
+            writeBlock();
+            writeVarint(output, 0);
+        } finally {
+            if (deflater != null)
+                deflater.end();
+        }
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint: 7 bits per byte, least significant first, the high bit of
+     * each byte but the last being set.
+     *
+     * @param output Output stream.
+     * @param value  Non-negative value.
+     * @throws IOException If any I/O error occurs.
+     */
+    static void writeVarint(OutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    /**
+     * Growable byte buffer giving access to its bytes without copying them.
+     */
+    private static final class Section extends ByteArrayOutputStream {
+        /**
+         * Gets the buffer holding the bytes of the section.
+         *
+         * @return The buffer, whose first {@link #size()} bytes are the section's.
+         */
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives cyclomatic complexity entries one by one, as they are computed. Closing the sink
+ * signals that no more entries will be received.
+ */
+public interface CycloSink extends Closeable {
+    /**
+     * Receives an entry.
+     *
+     * @param entry Cyclomatic complexity entry.
+     * @throws IOException If any I/O error occurs.
+     */
+    void accept(CyclomaticComplexity.CycloEntry entry) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
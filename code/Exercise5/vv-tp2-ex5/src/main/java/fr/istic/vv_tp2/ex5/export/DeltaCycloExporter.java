@@ -0,0 +1,210 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.common.CsvWriter;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the cyclomatic complexities of changed methods into a CSV file, along with their
+ * complexity in a baseline report, sorted by descending increase of complexity.
+ * <p>
+ * The baseline is a binary report written by the {@link BinaryCycloExporter}, e.g. on the target
+ * branch of a pull request. Methods are matched by package, class, name and parameter list:
+ * methods missing from the baseline are new, and their whole complexity is an increase. Only the
+ * changed methods are kept in memory, the baseline being streamed once the analysis is over.
+ * Baselines computed with another engine or by another version of the analyzer are refused when
+ * the exporter is opened, before any method is evaluated.
+ */
+public class DeltaCycloExporter implements CycloExporter {
+
+    /**
+     * Suffix of the report files, appended to the name of the project.
+     */
+    public static final String FILE_SUFFIX = "_report_cc_delta.csv";
+
+    /**
+     * Order of the rows, by descending increase then descending complexity.
+     */
+    private static final Comparator<Delta> BY_DESCENDING_INCREASE =
+            Comparator.comparingInt(Delta::increase)
+                    .thenComparingInt(delta -> delta.entry.cyclomaticNumber)
+                    .reversed();
+
+    /**
+     * Baseline report, or <code>null</code> if every method is new.
+     */
+    private final Path baselineFile;
+
+    /**
+     * Engine which computes the changed methods.
+     */
+    private final CycloEngine engine;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param baselineFile Baseline binary report, or <code>null</code> if there is none.
+     * @param engine       Engine which computes the changed methods.
+     */
+    public DeltaCycloExporter(Path baselineFile, CycloEngine engine) {
+        this.baselineFile = baselineFile;
+        this.engine = engine;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException If the baseline could not be read, or was computed with another engine
+     *                     or by another version of the analyzer.
+     */
+    @Override
+    public CycloSink open(String projectName) throws IOException {
+        if (baselineFile != null)
+            CycloReportReader.checkComputedBy(baselineFile, engine);
+
+        Path reportFile = Path.of(projectName + FILE_SUFFIX);
+        List<CyclomaticComplexity.CycloEntry> changed = new ArrayList<>();
+
+        return new CycloSink() {
+            @Override
+            public void accept(CyclomaticComplexity.CycloEntry entry) {
+                changed.add(entry);
+            }
+
+            @Override
+            public void close() throws IOException {
+                List<Delta> deltas = compare(changed);
+                deltas.sort(BY_DESCENDING_INCREASE);
+                write(reportFile, deltas);
+                printSummary(deltas);
+            }
+        };
+    }
+
+    /**
+     * Compares changed methods with the baseline.
+     *
+     * @param changed Cyclomatic complexity entries of the changed methods.
+     * @return The deltas of the changed methods, in the order of the entries.
+     * @throws IOException If the baseline could not be read.
+     */
+    private List<Delta> compare(List<CyclomaticComplexity.CycloEntry> changed)
+            throws IOException {
+        Map<MethodKey, Integer> baseline = new HashMap<>();
+        for (CyclomaticComplexity.CycloEntry entry : changed)
+            baseline.put(MethodKey.of(entry), null);
+
+        // Only the baseline of the changed methods is retained.
+        if (baselineFile != null)
+            CycloReportReader.read(baselineFile, entry -> {
+                MethodKey key = MethodKey.of(entry);
+                if (baseline.containsKey(key))
+                    baseline.put(key, entry.cyclomaticNumber);
+            });
+
+        List<Delta> deltas = new ArrayList<>(changed.size());
+        for (CyclomaticComplexity.CycloEntry entry : changed)
+            deltas.add(new Delta(entry, baseline.get(MethodKey.of(entry))));
+        return deltas;
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param reportFile Report file.
+     * @param deltas     Deltas of the changed methods, sorted.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void write(Path reportFile, List<Delta> deltas) throws IOException {
+        try (CsvWriter output = new CsvWriter(reportFile)) {
+            output.row("Package", "Declaring class", "Method", "Params", "Baseline CC", "CC",
+                    "Delta");
+            for (Delta delta : deltas) {
+                CyclomaticComplexity.CycloEntry entry = delta.entry;
+                output.field(entry.packageName)
+                        .field(entry.className)
+                        .field(entry.methodName)
+                        .field(entry.paramList);
+                if (delta.baseline == null)
+                    output.field("");
+                else
+                    output.field(delta.baseline);
+                output.field(entry.cyclomaticNumber)
+                        .field(delta.increase())
+                        .endRow();
+            }
+        }
+    }
+
+    /**
+     * Prints a summary of the deltas.
+     *
+     * @param deltas Deltas of the changed methods.
+     */
+    private static void printSummary(List<Delta> deltas) {
+        int increased = 0;
+        int decreased = 0;
+        int added = 0;
+        for (Delta delta : deltas) {
+            if (delta.baseline == null)
+                added++;
+            else if (delta.increase() > 0)
+                increased++;
+            else if (delta.increase() < 0)
+                decreased++;
+        }
+        System.out.printf("%d changed methods: %d more complex, %d less complex, %d new%n",
+                deltas.size(), increased, decreased, added);
+    }
+
+    /**
+     * Identity of a method across reports.
+     *
+     * @param packageName Package of the class of the method.
+     * @param className   Name of the class of the method.
+     * @param methodName  Name of the method.
+     * @param paramList   Parameters list of the method.
+     */
+    private record MethodKey(String packageName, String className, String methodName,
+            String paramList) {
+
+        /**
+         * Gets the identity of the method of an entry.
+         *
+         * @param entry Cyclomatic complexity entry.
+         * @return The identity of the method.
+         */
+        static MethodKey of(CyclomaticComplexity.CycloEntry entry) {
+            return new MethodKey(entry.packageName, entry.className, entry.methodName,
+                    entry.paramList);
+        }
+    }
+
+    /**
+     * Complexity of a changed method, compared with the baseline.
+     *
+     * @param entry    Cyclomatic complexity entry of the method.
+     * @param baseline Cyclomatic number of the method in the baseline, or <code>null</code> if
+     *                 the method is new.
+     */
+    private record Delta(CyclomaticComplexity.CycloEntry entry, Integer baseline) {
+
+        /**
+         * Gets the increase of complexity of the method.
+         *
+         * @return The difference between the cyclomatic numbers of the method and of its
+         *         baseline, or the cyclomatic number of a new method.
+         */
+        int increase() {
+            return entry.cyclomaticNumber - (baseline == null ? 0 : baseline);
+        }
+    }
+}
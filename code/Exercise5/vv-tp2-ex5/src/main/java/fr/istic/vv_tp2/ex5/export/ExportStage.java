@@ -0,0 +1,189 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sink dispatching the computed entries to several exporters, and completing the exports
+ * concurrently.
+ * <p>
+ * Entries are sorted once, with an {@link ExternalCycloSorter}, for all the exporters which
+ * {@link CycloExporter#needsSortedEntries() need sorted entries}: when the stage is closed, a
+ * single merge pass streams the sorted entries to their sinks. The other exporters receive the
+ * entries as they are computed, and their sinks are closed, e.g. to render charts, on other
+ * threads at the same time, so the export takes as long as the slowest exporter. Entries are
+ * immutable, so they are shared by all the exporters.
+ */
+public class ExportStage implements CycloSink {
+
+    /**
+     * Sinks receiving the sorted entries.
+     */
+    private final List<CycloSink> sortedSinks = new ArrayList<>();
+
+    /**
+     * Sinks receiving the entries as they are computed.
+     */
+    private final List<CycloSink> sinks = new ArrayList<>();
+
+    /**
+     * Sorter of the entries, shared by the sorted sinks.
+     */
+    private final ExternalCycloSorter sorter =
+            new ExternalCycloSorter(ExternalCycloSorter.DEFAULT_RUN_SIZE);
+
+    /**
+     * Constructor of the class, opening the exports. If an export cannot be opened, the exports
+     * already opened are closed.
+     *
+     * @param exporters   Exporters.
+     * @param projectName Name of the evaluated project.
+     * @throws IOException If an export could not be opened.
+     */
+    public ExportStage(List<CycloExporter> exporters, String projectName) throws IOException {
+        try {
+            for (CycloExporter exporter : exporters) {
+                if (exporter.needsSortedEntries())
+                    sortedSinks.add(exporter.open(projectName));
+                else
+                    sinks.add(exporter.open(projectName));
+            }
+        } catch (IOException | RuntimeException e) {
+            closeOpened(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the sinks opened so far, after an export could not be opened.
+     *
+     * @param failure Failure of the opening, to which the failures of the closing are added.
+     */
+    private void closeOpened(Exception failure) {
+        List<CycloSink> opened = new ArrayList<>(sortedSinks);
+        opened.addAll(sinks);
+        for (CycloSink sink : opened) {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    @Override
+    public void accept(CyclomaticComplexity.CycloEntry entry) throws IOException {
+        if (!sortedSinks.isEmpty())
+            sorter.add(entry);
+        for (CycloSink sink : sinks)
+            sink.accept(entry);
+    }
+
+    /**
+     * Completes all the exports, concurrently, and waits for them.
+     *
+     * @throws IOException If an export failed, or if the thread was interrupted.
+     */
+    @Override
+    public void close() throws IOException {
+        int exportsCount = sinks.size() + (sortedSinks.isEmpty() ? 0 : 1);
+        AtomicInteger completed = new AtomicInteger();
+        List<Callable<Void>> exports = new ArrayList<>(exportsCount);
+        if (!sortedSinks.isEmpty())
+            exports.add(() -> {
+                exportSorted();
+                System.out.printf("Exporting... [%d/%d]%n", completed.incrementAndGet(),
+                        exportsCount);
+                return null;
+            });
+        for (CycloSink sink : sinks)
+            exports.add(() -> {
+                sink.close();
+                System.out.printf("Exporting... [%d/%d]%n", completed.incrementAndGet(),
+                        exportsCount);
+                return null;
+            });
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, exportsCount));
+        try {
+            IOException failure = null;
+            for (Future<Void> export : executor.invokeAll(exports)) {
+                try {
+                    export.get();
+                } catch (ExecutionException e) {
+                    IOException exportFailure = asIOException(e.getCause());
+                    if (failure == null)
+                        failure = exportFailure;
+                    else
+                        failure.addSuppressed(exportFailure);
+                }
+            }
+            if (failure != null)
+                throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new InterruptedIOException("interrupted while exporting");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Streams the sorted entries to the sorted sinks, and closes them.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void exportSorted() throws IOException {
+        IOException failure = null;
+        try (sorter) {
+            sorter.forEachSorted(entry -> {
+                for (CycloSink sink : sortedSinks)
+                    sink.accept(entry);
+            });
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        // Every sink is closed, even if the merge failed.
+        for (CycloSink sink : sortedSinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Converts the failure of an export into an I/O exception.
+     *
+     * @param cause Failure of the export.
+     * @return The failure, as an I/O exception.
+     */
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException e)
+            return e;
+        if (cause instanceof UncheckedIOException e)
+            return e.getCause();
+        if (cause instanceof Error e)
+            throw e;
+        return new IOException("export failed", cause);
+    }
+}
@@ -0,0 +1,260 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloTable;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts a stream of cyclomatic complexity entries by
+ * {@link CyclomaticComplexity.CycloEntry#BY_DESCENDING_COMPLEXITY descending complexity}, in
+ * bounded memory.
+ * <p>
+ * Entries are buffered up to a given run size, in a compact {@link CycloTable}; full buffers are
+ * sorted and spilled into temporary files, which are merged back when sorted entries are
+ * requested. Buffered rows are sorted on their cyclomatic numbers alone, without materializing
+ * their entries. The sort is stable: entries of equal complexity keep their insertion order.
+ */
+public class ExternalCycloSorter implements Closeable {
+
+    /**
+     * Default maximal number of entries kept in memory.
+     */
+    public static final int DEFAULT_RUN_SIZE = 100_000;
+
+    /**
+     * Order of the entries.
+     */
+    private static final Comparator<CyclomaticComplexity.CycloEntry> COMPARATOR =
+            CyclomaticComplexity.CycloEntry.BY_DESCENDING_COMPLEXITY;
+
+    /**
+     * Maximal number of entries kept in memory.
+     */
+    private final int runSize;
+
+    /**
+     * Entries not spilled yet.
+     */
+    private final CycloTable buffer = new CycloTable();
+
+    /**
+     * Sorted runs spilled on disk, in insertion order.
+     */
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * Constructor of the class.
+     *
+     * @param runSize Maximal number of entries kept in memory.
+     */
+    public ExternalCycloSorter(int runSize) {
+        this.runSize = runSize;
+    }
+
+    /**
+     * Adds an entry to sort.
+     *
+     * @param entry Cyclomatic complexity entry.
+     * @throws IOException If the entries could not be spilled on disk.
+     */
+    public void add(CyclomaticComplexity.CycloEntry entry) throws IOException {
+        buffer.add(entry);
+        if (buffer.size() >= runSize)
+            spill();
+    }
+
+    /**
+     * Sends all added entries, sorted, to a sink. The sink is not closed.
+     *
+     * @param sink Sink receiving the sorted entries.
+     * @throws IOException If any I/O error occurs.
+     */
+    public void forEachSorted(CycloSink sink) throws IOException {
+        int[] sortedRows = sortBuffer();
+
+        // Everything fits in memory.
+        if (runs.isEmpty()) {
+            for (int row : sortedRows)
+                sink.accept(buffer.entry(row));
+            return;
+        }
+
+        // k-way merge of the runs, the in-memory buffer being the last run. Equal entries are
+        // taken from the earliest run to keep the sort stable.
+        List<Run> sources = new ArrayList<>(runs.size() + 1);
+        PriorityQueue<Run> queue = new PriorityQueue<>(
+                Comparator.comparing((Run run) -> run.head, COMPARATOR)
+                        .thenComparingInt(run -> run.index));
+        try {
+            for (Path runFile : runs)
+                sources.add(new FileRun(sources.size(), runFile));
+            sources.add(new BufferRun(sources.size(), buffer, sortedRows));
+
+            for (Run source : sources)
+                if (source.advance())
+                    queue.add(source);
+
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                sink.accept(run.head);
+                if (run.advance())
+                    queue.add(run);
+            }
+        } finally {
+            for (Run source : sources)
+                source.close();
+        }
+    }
+
+    /**
+     * Deletes the spilled runs.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs)
+            Files.deleteIfExists(run);
+        runs.clear();
+        buffer.clear();
+    }
+
+    /**
+     * Sorts the buffered entries and spills them into a new run file.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void spill() throws IOException {
+        int[] sortedRows = sortBuffer();
+
+        Path runFile = Files.createTempFile("cc-run", ".bin");
+        runs.add(runFile);
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(runFile)))) {
+            output.writeInt(sortedRows.length);
+            for (int row : sortedRows)
+                buffer.write(row, output);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Sorts the rows of the buffer by descending cyclomatic number, then by insertion order.
+     *
+     * @return The sorted rows.
+     */
+    private int[] sortBuffer() {
+        // Each key holds the complement of the cyclomatic number, then the row.
+        int size = buffer.size();
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++)
+            keys[row] = (long) (Integer.MAX_VALUE - buffer.cyclomaticNumber(row)) << 32 | row;
+        Arrays.sort(keys);
+
+        int[] sortedRows = new int[size];
+        for (int i = 0; i < size; i++)
+            sortedRows[i] = (int) keys[i];
+        return sortedRows;
+    }
+
+    /**
+     * Sorted sequence of entries being merged.
+     */
+    private abstract static class Run implements Closeable {
+        /**
+         * Index of the run, in insertion order.
+         */
+        final int index;
+
+        /**
+         * Current entry of the run.
+         */
+        CyclomaticComplexity.CycloEntry head;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param index Index of the run, in insertion order.
+         */
+        Run(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Moves to the next entry of the run.
+         *
+         * @return <code>false</code> if the run is exhausted.
+         * @throws IOException If any I/O error occurs.
+         */
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Run spilled on disk.
+     */
+    private static class FileRun extends Run {
+        private final DataInputStream input;
+        private int remaining;
+
+        FileRun(int index, Path file) throws IOException {
+            super(index);
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            remaining = input.readInt();
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            head = CyclomaticComplexity.CycloEntry.read(input);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * Run kept in memory.
+     */
+    private static class BufferRun extends Run {
+        private final CycloTable buffer;
+        private final int[] sortedRows;
+        private int next = 0;
+
+        BufferRun(int index, CycloTable buffer, int[] sortedRows) {
+            super(index);
+            this.buffer = buffer;
+            this.sortedRows = sortedRows;
+        }
+
+        @Override
+        boolean advance() {
+            if (next == sortedRows.length)
+                return false;
+            head = buffer.entry(sortedRows[next++]);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Exports the distribution of the cyclomatic complexities of all the methods into a bar plot.
+ * <p>
+ * Entries are counted into a fixed set of buckets while they are streamed, and only the buckets
+ * are handed to JFreeChart, so memory usage and rendering time do not depend on the size of the
+ * project.
+ */
+public class HistogramCycloExporter implements CycloExporter {
+
+    /**
+     * Lower bounds of the buckets, inclusive. Buckets widen as complexities grow, and the last
+     * one holds all the methods above its bound.
+     */
+    static final int[] BUCKET_BOUNDS = {1, 2, 3, 4, 5, 6, 8, 11, 16, 21, 31, 51, 101};
+
+    private static final int EXPORT_WIDTH = 800;
+    private static final int EXPORT_HEIGHT = 600;
+    private static final float LABEL_WIDTH_RATIO = 2f;
+
+    @Override
+    public CycloSink open(String file) {
+        long[] counts = new long[BUCKET_BOUNDS.length];
+
+        return new CycloSink() {
+            @Override
+            public void accept(CyclomaticComplexity.CycloEntry entry) {
+                counts[bucket(entry.cyclomaticNumber)]++;
+            }
+
+            @Override
+            public void close() throws IOException {
+                export(file, counts);
+            }
+        };
+    }
+
+    /**
+     * Gets the bucket of a cyclomatic number.
+     *
+     * @param cyclomaticNumber Cyclomatic number of a method.
+     * @return The index of the bucket holding the number.
+     */
+    static int bucket(int cyclomaticNumber) {
+        int bucket = BUCKET_BOUNDS.length - 1;
+        while (bucket > 0 && cyclomaticNumber < BUCKET_BOUNDS[bucket])
+            bucket--;
+        return bucket;
+    }
+
+    /**
+     * Gets the label of a bucket, e.g. <code>6-7</code>.
+     *
+     * @param bucket Index of the bucket.
+     * @return The range of cyclomatic numbers of the bucket.
+     */
+    static String label(int bucket) {
+        int lower = BUCKET_BOUNDS[bucket];
+        if (bucket == BUCKET_BOUNDS.length - 1)
+            return lower + "+";
+
+        int upper = BUCKET_BOUNDS[bucket + 1] - 1;
+        return lower == upper ? String.valueOf(lower) : lower + "-" + upper;
+    }
+
+    /**
+     * Renders the buckets into the bar plot.
+     *
+     * @param file   Name of the evaluated project.
+     * @param counts Number of methods of each bucket.
+     * @throws IOException If any I/O error occurs.
+     */
+    private void export(String file, long[] counts) throws IOException {
+        // Produce the dataset.
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        for (int bucket = 0; bucket < counts.length; bucket++)
+            dataset.addValue(counts[bucket], "Methods", label(bucket));
+
+        // Produce the chart.
+        JFreeChart chart =
+                ChartFactory.createBarChart(file, "Cyclomatic Complexity", "Methods", dataset,
+                        PlotOrientation.VERTICAL, false, false, false);
+        chart.getCategoryPlot()
+                .getDomainAxis()
+                .setMaximumCategoryLabelWidthRatio(LABEL_WIDTH_RATIO);
+
+        // Export the chart.
+        File outputFile = new File(String.format("%s_histogram.png", file));
+        ChartUtils.saveChartAsPNG(outputFile, chart, EXPORT_WIDTH, EXPORT_HEIGHT);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.istic.vv_tp2.ex5;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that an in-memory {@link CycloCache}, as kept by a long-running server, reclaims the
+ * entries of changed and deleted files when it is compacted.
+ */
+class CycloCacheTest {
+
+    private static final byte[] DIGEST = new byte[32];
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compactionReclaimsSupersededRows() throws IOException {
+        Path changed = Files.writeString(directory.resolve("Changed.java"), "class Changed {}");
+        Path unchanged = Files.writeString(directory.resolve("Unchanged.java"),
+                "class Unchanged {}");
+        CycloCache cache = CycloCache.inMemory(CycloEngine.CFG, StandardCharsets.UTF_8);
+
+        cache.store(unchanged, 1, 1, DIGEST, List.of(entry("Unchanged", "run", 2)));
+        for (int version = 1; version <= 10; version++)
+            cache.store(changed, version, version, DIGEST,
+                    List.of(entry("Changed", "run", version), entry("Changed", "stop", 1)));
+        assertEquals(21, cache.rows());
+
+        cache.compact();
+
+        assertEquals(3, cache.rows());
+        assertEquals(List.of("Changed.run 10", "Changed.stop 1"),
+                render(cache.lookup(changed, 10, 10)));
+        assertEquals(List.of("Unchanged.run 2"), render(cache.lookup(unchanged, 1, 1)));
+    }
+
+    @Test
+    void compactionDropsDeletedFiles() throws IOException {
+        Path deleted = Files.writeString(directory.resolve("Deleted.java"), "class Deleted {}");
+        Path kept = Files.writeString(directory.resolve("Kept.java"), "class Kept {}");
+        CycloCache cache = CycloCache.inMemory(CycloEngine.CFG, StandardCharsets.UTF_8);
+        cache.store(deleted, 1, 1, DIGEST,
+                List.of(entry("Deleted", "run", 1), entry("Deleted", "stop", 1)));
+        cache.store(kept, 1, 1, DIGEST, List.of(entry("Kept", "run", 3)));
+
+        Files.delete(deleted);
+        cache.compact();
+
+        assertEquals(1, cache.rows());
+        assertNull(cache.lookup(deleted, 1, 1));
+        assertEquals(List.of("Kept.run 3"), render(cache.lookup(kept, 1, 1)));
+    }
+
+    /**
+     * Creates an entry of a method with no parameter.
+     *
+     * @param className        Name of the class of the method.
+     * @param methodName       Name of the method.
+     * @param cyclomaticNumber Cyclomatic number of the method.
+     * @return The entry.
+     */
+    private static CyclomaticComplexity.CycloEntry entry(String className, String methodName,
+            int cyclomaticNumber) {
+        return new CyclomaticComplexity.CycloEntry("p", className, methodName, "()",
+                cyclomaticNumber);
+    }
+
+    /**
+     * Renders cached entries as text.
+     *
+     * @param entries Cached entries.
+     * @return The class, method and cyclomatic number of each entry.
+     */
+    private static List<String> render(List<CyclomaticComplexity.CycloEntry> entries) {
+        return entries.stream()
+                .map(entry -> entry.className + "." + entry.methodName + " "
+                        + entry.cyclomaticNumber)
+                .toList();
+    }
+}
@@ -0,0 +1,119 @@
+package fr.istic.vv_tp2.ex5;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a {@link CycloTable} gives back the entries it stores, and shares their strings.
+ */
+class CycloTableTest {
+
+    /**
+     * Entries of the tests, whose strings repeat.
+     */
+    private static final List<CyclomaticComplexity.CycloEntry> ENTRIES = List.of(
+            new CyclomaticComplexity.CycloEntry("p", "A", "run", "()", 3),
+            new CyclomaticComplexity.CycloEntry("p", "A", "run", "(int x)", 7),
+            new CyclomaticComplexity.CycloEntry("", "B", "size", "()", 1),
+            new CyclomaticComplexity.CycloEntry("p.q", "Été", "a,b", "(Map<K, V> m)", 42));
+
+    @Test
+    void givesBackAddedEntries() {
+        // The columns grow past their initial capacity.
+        CycloTable table = new CycloTable(1);
+        assertEquals(0, table.add(ENTRIES.get(0)));
+        assertEquals(1, table.addAll(ENTRIES.subList(1, ENTRIES.size())));
+
+        assertEquals(ENTRIES.size(), table.size());
+        assertEquals(describe(ENTRIES), describe(table.entries(0, table.size())));
+        assertEquals(42, table.cyclomaticNumber(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.entry(ENTRIES.size()));
+    }
+
+    @Test
+    void sharesRepeatedStrings() {
+        CycloTable table = new CycloTable();
+        table.addAll(ENTRIES);
+        table.add(new CyclomaticComplexity.CycloEntry(new String("p"), new String("A"),
+                new String("run"), new String("()"), 5));
+
+        CyclomaticComplexity.CycloEntry first = table.entry(0);
+        CyclomaticComplexity.CycloEntry last = table.entry(ENTRIES.size());
+        assertSame(first.packageName, last.packageName);
+        assertSame(first.className, last.className);
+        assertSame(first.methodName, last.methodName);
+        assertSame(first.paramList, last.paramList);
+        assertSame(first.paramList, table.entry(2).paramList);
+    }
+
+    @Test
+    void copiesRowsOfAnotherTable() {
+        CycloTable source = new CycloTable();
+        source.addAll(ENTRIES);
+        CycloTable table = new CycloTable();
+        table.add(ENTRIES.get(3));
+
+        assertEquals(1, table.addAll(source, 1, 3));
+
+        assertEquals(describe(List.of(ENTRIES.get(3), ENTRIES.get(1), ENTRIES.get(2))),
+                describe(table.entries(0, table.size())));
+    }
+
+    @Test
+    void readsWrittenRows() throws IOException {
+        CycloTable source = new CycloTable();
+        source.addAll(ENTRIES);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            for (int row = 0; row < source.size(); row++)
+                source.write(row, output);
+        }
+
+        // Rows are written as entries write themselves.
+        CycloTable table = new CycloTable();
+        List<CyclomaticComplexity.CycloEntry> entries = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (int row = 0; row < source.size(); row++)
+                entries.add(table.entry(table.read(input)));
+        }
+        assertEquals(describe(ENTRIES), describe(entries));
+    }
+
+    @Test
+    void clearRemovesEveryRow() {
+        CycloTable table = new CycloTable();
+        table.addAll(ENTRIES);
+
+        table.clear();
+
+        assertEquals(0, table.size());
+        assertEquals(0, table.add(ENTRIES.get(2)));
+        assertEquals(describe(List.of(ENTRIES.get(2))), describe(table.entries(0, 1)));
+    }
+
+    /**
+     * Describes entries with all their fields.
+     *
+     * @param entries Entries.
+     * @return The fields of the entries, in the same order.
+     */
+    private static List<String> describe(List<CyclomaticComplexity.CycloEntry> entries) {
+        List<String> descriptions = new ArrayList<>(entries.size());
+        for (CyclomaticComplexity.CycloEntry entry : entries)
+            descriptions.add(entry.packageName + " " + entry.className + "." + entry.methodName
+                    + entry.paramList + " " + entry.cyclomaticNumber);
+        return descriptions;
+    }
+}
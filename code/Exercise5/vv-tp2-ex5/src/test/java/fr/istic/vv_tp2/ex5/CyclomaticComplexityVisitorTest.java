@@ -0,0 +1,159 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the cyclomatic complexity computed by the {@link CyclomaticComplexityVisitor} on small
+ * methods, one control flow construct at a time.
+ * <p>
+ * The values follow the rules of the visitor as they are: the statements of a block are only
+ * dispatched when they are loops, switches, try statements or jumps, so if statements met in
+ * blocks are not counted, breaks are counted twice, and the bodies of labeled and synchronized
+ * statements and the blocks of try statements are not walked.
+ */
+class CyclomaticComplexityVisitorTest {
+
+    /**
+     * Methods evaluated by the tests.
+     */
+    private static final String FIXTURE = """
+            class Fixture {
+                void empty() {
+                }
+
+                int ifThen(int x) {
+                    if (x < 0)
+                        return -x;
+                    return x;
+                }
+
+                int ifElse(int x) {
+                    if (x < 0) {
+                        return -x;
+                    } else {
+                        return x;
+                    }
+                }
+
+                int elseIf(int x) {
+                    if (x < 0)
+                        return -1;
+                    else if (x > 0)
+                        return 1;
+                    else
+                        return 0;
+                }
+
+                void whileLoop(boolean x) {
+                    while (x)
+                        run();
+                }
+
+                void doLoop(boolean x) {
+                    do {
+                        run();
+                    } while (x);
+                }
+
+                void forEachLoop(int[] values) {
+                    for (int value : values)
+                        run();
+                }
+
+                void breakOnce() {
+                    while (true) {
+                        break;
+                    }
+                }
+
+                void labeledContinue(int[] values) {
+                    outer:
+                    for (int i = 0; i < values.length; i++) {
+                        if (values[i] < 0)
+                            continue outer;
+                    }
+                }
+
+                int switchEntries(int x) {
+                    switch (x) {
+                        case 0:
+                            return 1;
+                        case 1:
+                            break;
+                        default:
+                            return 0;
+                    }
+                    return 2;
+                }
+
+                void ifInTryBlock(boolean x) {
+                    try {
+                        if (x)
+                            run();
+                    } catch (RuntimeException e) {
+                        run();
+                    } finally {
+                        run();
+                    }
+                }
+
+                void ifInSynchronized(boolean x) {
+                    synchronized (this) {
+                        if (x)
+                            run();
+                    }
+                }
+
+                void lambdaBody(boolean x) {
+                    Runnable runnable = () -> {
+                        if (x)
+                            run();
+                    };
+                }
+
+                void run() {
+                }
+            }
+            """;
+
+    private static CompilationUnit unit;
+
+    @BeforeAll
+    static void parse() {
+        unit = StaticJavaParser.parse(FIXTURE);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "empty, 1",
+            "ifThen, 1",
+            "ifElse, 1",
+            "elseIf, 1",
+            "whileLoop, 3",
+            "doLoop, 2",
+            "forEachLoop, 3",
+            "breakOnce, 5",
+            "labeledContinue, 1",
+            "switchEntries, 6",
+            "ifInTryBlock, 4",
+            "ifInSynchronized, 1",
+            // Lambdas are not part of the control flow of their enclosing method.
+            "lambdaBody, 1",
+    })
+    void complexity(String methodName, int expected) {
+        MethodDeclaration method = unit.getClassByName("Fixture")
+                .orElseThrow()
+                .getMethodsByName(methodName)
+                .get(0);
+
+        assertEquals(expected, new CyclomaticUnitVisitor().calculateCyclomaticComplexity(method));
+    }
+}
@@ -0,0 +1,89 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.StaticJavaParser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link CyclomaticUnitVisitor} reports every method exactly once, attributed to
+ * its innermost declaring type.
+ */
+class CyclomaticUnitVisitorTest {
+
+    /**
+     * Unit nesting an anonymous class inside a lambda inside an inner class, with overloads.
+     */
+    private static final String FIXTURE = """
+            package fixture;
+
+            import java.util.List;
+
+            class Outer {
+                Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                };
+
+                int size(int x) {
+                    return x;
+                }
+
+                int size(String s) {
+                    return s.length();
+                }
+
+                class Inner {
+                    void run(List<String> items) {
+                        items.forEach(item -> {
+                            Runnable check = new Runnable() {
+                                @Override
+                                public void run() {
+                                    do {
+                                        item.trim();
+                                    } while (item.isEmpty());
+                                }
+                            };
+                        });
+                    }
+
+                    void run() {
+                    }
+                }
+
+                interface Callback {
+                    default void call(int x) {
+                        if (x > 0)
+                            call(x - 1);
+                    }
+                }
+            }
+            """;
+
+    @ParameterizedTest
+    @EnumSource(CycloEngine.class)
+    void oneEntryPerMethod(CycloEngine engine) {
+        List<String> rows = new ArrayList<>();
+        StaticJavaParser.parse(FIXTURE)
+                .accept(new CyclomaticUnitVisitor(engine),
+                        new CyclomaticUnitVisitor.CycloUnitParam(entry -> rows.add(
+                                entry.packageName + " " + entry.className + "." + entry.methodName
+                                        + entry.paramList + " " + entry.cyclomaticNumber)));
+
+        assertEquals(List.of(
+                "fixture Outer$1.run() 1",
+                "fixture Outer.size(int x) 1",
+                "fixture Outer.size(String s) 1",
+                "fixture Inner.run(List<String> items) 1",
+                "fixture Inner$1.run() 2",
+                "fixture Inner.run() 1"), rows);
+        assertEquals(rows.size(), new HashSet<>(rows).size());
+    }
+}
@@ -0,0 +1,97 @@
+package fr.istic.vv_tp2.ex5;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that both {@link CycloEngine engines} evaluate methods alike where their models coincide.
+ * The control flow graph engine does not count the if statements met in blocks, nor walk labeled
+ * and synchronized statements, and it weights loops other than <code>do</code>, switch entries,
+ * catch clauses, jumps and boolean operators differently, so the fixtures only hold
+ * <code>do</code> loops and nested classes, whose methods are evaluated on their own.
+ */
+class EngineAgreementTest {
+
+    /**
+     * Methods evaluated by the tests.
+     */
+    private static final String FIXTURE = """
+            class Fixture {
+                void empty() {
+                }
+
+                void doLoop(boolean x) {
+                    do {
+                        run();
+                    } while (x);
+                }
+
+                void nestedDoLoops(boolean x, boolean y) {
+                    do {
+                        do {
+                            run();
+                        } while (y);
+                    } while (x);
+                }
+
+                void localClass(boolean x) {
+                    class Local {
+                        void check() {
+                            do {
+                                run();
+                            } while (x);
+                        }
+                    }
+                    new Local().check();
+                }
+
+                void anonymousClass(boolean x) {
+                    Runnable runnable = new Runnable() {
+                        @Override
+                        public void run() {
+                            do {
+                                Thread.yield();
+                            } while (x);
+                        }
+                    };
+                }
+
+                void run() {
+                }
+            }
+            """;
+
+    private static CompilationUnit unit;
+
+    @BeforeAll
+    static void parse() {
+        unit = StaticJavaParser.parse(FIXTURE);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "empty, 1",
+            "doLoop, 2",
+            "nestedDoLoops, 3",
+            "localClass, 1",
+            "anonymousClass, 1",
+    })
+    void enginesAgree(String methodName, int expected) {
+        MethodDeclaration method = unit.getClassByName("Fixture")
+                .orElseThrow()
+                .getMethodsByName(methodName)
+                .get(0);
+
+        assertEquals(expected, new CyclomaticUnitVisitor(CycloEngine.CFG)
+                .calculateCyclomaticComplexity(method));
+        assertEquals(expected, new CyclomaticUnitVisitor(CycloEngine.DECISIONS)
+                .calculateCyclomaticComplexity(method));
+    }
+}
@@ -0,0 +1,207 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloCache;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Checks that the {@link CycloReportReader} reads back the reports of a {@link CycloReportWriter},
+ * and fails on corrupted reports instead of hanging or exhausting the heap.
+ */
+class CycloReportReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readsWrittenEntries(boolean deflated) throws IOException {
+        Path file = directory.resolve("report.cyclo");
+        try (CycloReportWriter writer = new CycloReportWriter(file, deflated, CycloEngine.CFG)) {
+            writer.accept(new CyclomaticComplexity.CycloEntry("p", "A", "run", "()", 5));
+            writer.accept(new CyclomaticComplexity.CycloEntry("p", "A", "run", "(int x)", 2));
+            writer.accept(new CyclomaticComplexity.CycloEntry("q", "B", "get", "()", 1));
+        }
+
+        assertEquals(List.of("p A.run() 5", "p A.run(int x) 2", "q B.get() 1"), read(file, 0));
+        assertEquals(List.of("p A.run() 5", "p A.run(int x) 2"), read(file, 2));
+    }
+
+    @Test
+    void checksTheEngineOfTheEntries() throws IOException {
+        Path file = directory.resolve("report.cyclo");
+        new CycloReportWriter(file, true, CycloEngine.DECISIONS).close();
+
+        assertDoesNotThrow(() -> CycloReportReader.checkComputedBy(file, CycloEngine.DECISIONS));
+        assertThrows(IOException.class,
+                () -> CycloReportReader.checkComputedBy(file, CycloEngine.CFG));
+    }
+
+    @Test
+    void checksTheVersionOfTheAnalyzer() throws IOException {
+        ByteArrayOutputStream bytes = header(true, CycloCache.ANALYZER_VERSION - 1);
+        CycloReportWriter.writeVarint(bytes, 0);
+        Path file = write(bytes);
+
+        assertThrows(IOException.class,
+                () -> CycloReportReader.checkComputedBy(file, CycloEngine.CFG));
+    }
+
+    @Test
+    void rejectsTruncatedDeflateStream() throws IOException {
+        // A section whose compressed bytes end before its raw size is reached.
+        byte[] raw = new byte[1000];
+        Arrays.fill(raw, (byte) 1);
+        Deflater deflater = new Deflater();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] compressed = new byte[1000];
+        int length = deflater.deflate(compressed);
+        deflater.end();
+
+        ByteArrayOutputStream bytes = header(true);
+        block(bytes);
+        CycloReportWriter.writeVarint(bytes, length / 2);
+        CycloReportWriter.writeVarint(bytes, raw.length);
+        bytes.write(compressed, 0, length / 2);
+        Path file = write(bytes);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> read(file, 0)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void rejectsSectionLargerThanTheFile(boolean deflated) throws IOException {
+        ByteArrayOutputStream bytes = header(deflated);
+        block(bytes);
+        CycloReportWriter.writeVarint(bytes, Integer.MAX_VALUE);
+        CycloReportWriter.writeVarint(bytes, Integer.MAX_VALUE);
+        Path file = write(bytes);
+
+        assertThrows(IOException.class, () -> read(file, 0));
+    }
+
+    @Test
+    void rejectsStringIndexOutOfTheDictionary() throws IOException {
+        ByteArrayOutputStream bytes = header(false);
+        block(bytes);
+        // A dictionary of one empty string.
+        section(bytes, 1, 0);
+        // A row whose parameter list refers to a missing string.
+        section(bytes, 0, 0, 0, 7, 1);
+        CycloReportWriter.writeVarint(bytes, 0);
+        Path file = write(bytes);
+
+        IOException failure = assertThrows(IOException.class, () -> read(file, 0));
+
+        assertEquals("string index out of range", failure.getCause()
+                .getMessage());
+    }
+
+    /**
+     * Starts a report computed by the control flow graph engine of this version of the analyzer.
+     *
+     * @param deflated Whether the sections of the report are deflated.
+     * @return The bytes of the report.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static ByteArrayOutputStream header(boolean deflated) throws IOException {
+        return header(deflated, CycloCache.ANALYZER_VERSION);
+    }
+
+    /**
+     * Starts a report computed by the control flow graph engine.
+     *
+     * @param deflated        Whether the sections of the report are deflated.
+     * @param analyzerVersion Version of the analyzer which computed the report.
+     * @return The bytes of the report.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static ByteArrayOutputStream header(boolean deflated, int analyzerVersion)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(CycloReportWriter.MAGIC);
+        output.writeByte(CycloReportWriter.VERSION);
+        output.writeByte(deflated ? CycloReportWriter.DEFLATED : 0);
+        output.writeByte(CycloEngine.CFG.ordinal());
+        output.flush();
+        CycloReportWriter.writeVarint(bytes, analyzerVersion);
+        return bytes;
+    }
+
+    /**
+     * Starts a block of one row.
+     *
+     * @param bytes Bytes of the report.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void block(ByteArrayOutputStream bytes) throws IOException {
+        CycloReportWriter.writeVarint(bytes, 1);
+        CycloReportWriter.writeVarint(bytes, 1);
+        CycloReportWriter.writeVarint(bytes, 1);
+    }
+
+    /**
+     * Writes a stored section of small values.
+     *
+     * @param bytes  Bytes of the report.
+     * @param values Values of the section, each below 128 so it takes a single byte.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void section(ByteArrayOutputStream bytes, int... values) throws IOException {
+        CycloReportWriter.writeVarint(bytes, values.length);
+        CycloReportWriter.writeVarint(bytes, values.length);
+        for (int value : values)
+            CycloReportWriter.writeVarint(bytes, value);
+    }
+
+    /**
+     * Writes a report into a file.
+     *
+     * @param bytes Bytes of the report.
+     * @return The report file.
+     * @throws IOException If any I/O error occurs.
+     */
+    private Path write(ByteArrayOutputStream bytes) throws IOException {
+        return Files.write(directory.resolve("corrupted.cyclo"), bytes.toByteArray());
+    }
+
+    /**
+     * Reads the entries of a report.
+     *
+     * @param file             Report file.
+     * @param minCyclomaticNum Minimal cyclomatic number of the read entries.
+     * @return The read entries, rendered as text.
+     * @throws IOException If the report could not be read.
+     */
+    private static List<String> read(Path file, int minCyclomaticNum) throws IOException {
+        List<String> entries = new ArrayList<>();
+        CycloReportReader.read(file, minCyclomaticNum, Integer.MAX_VALUE,
+                entry -> entries.add(entry.packageName + " " + entry.className + "."
+                        + entry.methodName + entry.paramList + " " + entry.cyclomaticNumber));
+        return entries;
+    }
+}
@@ -0,0 +1,206 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link ExportStage} hands every entry to every exporter, sorted for those which
+ * need it, and that the failure of an export surfaces as an error without stopping the others.
+ */
+class ExportStageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dispatchesEveryEntryToEveryExporter() throws IOException {
+        RecordingExporter csv = new RecordingExporter(true);
+        RecordingExporter binary = new RecordingExporter(false);
+        RecordingExporter chart = new RecordingExporter(true);
+        RecordingExporter histogram = new RecordingExporter(false);
+        List<CyclomaticComplexity.CycloEntry> entries = entries(50);
+        try (ExportStage stage = new ExportStage(List.of(csv, binary, chart, histogram),
+                "project")) {
+            for (CyclomaticComplexity.CycloEntry entry : entries)
+                stage.accept(entry);
+        }
+
+        List<String> arrivalOrder = describe(entries);
+        List<CyclomaticComplexity.CycloEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(CyclomaticComplexity.CycloEntry.BY_DESCENDING_COMPLEXITY);
+        for (RecordingExporter exporter : List.of(csv, binary, chart, histogram))
+            assertTrue(exporter.closed);
+        assertEquals(describe(sorted), csv.received);
+        assertEquals(describe(sorted), chart.received);
+        assertEquals(arrivalOrder, binary.received);
+        assertEquals(arrivalOrder, histogram.received);
+    }
+
+    @Test
+    void writesEveryReport() throws IOException {
+        String project = directory.resolve("project")
+                .toString();
+        try (CycloSink exports = CyclomaticComplexity.openExports(project, CycloEngine.CFG)) {
+            exports.accept(new CyclomaticComplexity.CycloEntry("p", "A", "size", "()", 1));
+            // Overloads are reported apart.
+            exports.accept(new CyclomaticComplexity.CycloEntry("p", "A", "run", "()", 3));
+            exports.accept(new CyclomaticComplexity.CycloEntry("p", "A", "run", "(int x)", 7));
+        }
+
+        assertEquals(List.of("Package,Declaring class,Method,Params,CC", "p,A,run,(int x),7",
+                "p,A,run,(),3", "p,A,size,(),1"), Files.readAllLines(
+                directory.resolve("project_report_cc.csv"), StandardCharsets.UTF_8));
+        List<String> binary = new ArrayList<>();
+        CycloReportReader.read(directory.resolve("project_report_cc.cyclo"),
+                entry -> binary.add(entry.methodName + entry.paramList));
+        Collections.sort(binary);
+        assertEquals(List.of("run()", "run(int x)", "size()"), binary);
+        assertTrue(Files.size(directory.resolve("project_chart.png")) > 0);
+        assertTrue(Files.size(directory.resolve("project_histogram.png")) > 0);
+    }
+
+    @Test
+    void failedExportSurfacesAsError() throws IOException {
+        RecordingExporter failing = new RecordingExporter(false);
+        failing.failOnClose = true;
+        RecordingExporter sortedFailing = new RecordingExporter(true);
+        sortedFailing.failOnClose = true;
+        RecordingExporter other = new RecordingExporter(true);
+        ExportStage stage = new ExportStage(List.of(failing, sortedFailing, other), "project");
+        for (CyclomaticComplexity.CycloEntry entry : entries(10))
+            stage.accept(entry);
+
+        IOException failure = assertThrows(IOException.class, stage::close);
+
+        // Both failures are reported, and the other export is still completed.
+        assertEquals("export failed", failure.getMessage());
+        assertEquals(1, failure.getSuppressed().length);
+        assertTrue(other.closed);
+        assertEquals(10, other.received.size());
+    }
+
+    @Test
+    void failedOpeningClosesOpenedExports() {
+        RecordingExporter opened = new RecordingExporter(false);
+        RecordingExporter sortedOpened = new RecordingExporter(true);
+        RecordingExporter failing = new RecordingExporter(false);
+        failing.failOnOpen = true;
+
+        IOException failure = assertThrows(IOException.class,
+                () -> new ExportStage(List.of(opened, sortedOpened, failing), "project"));
+
+        assertEquals("cannot open", failure.getMessage());
+        assertTrue(opened.closed);
+        assertTrue(sortedOpened.closed);
+    }
+
+    /**
+     * Creates entries of varied complexities.
+     *
+     * @param count Number of entries.
+     * @return The entries, in no particular order of complexity.
+     */
+    private static List<CyclomaticComplexity.CycloEntry> entries(int count) {
+        List<CyclomaticComplexity.CycloEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            entries.add(new CyclomaticComplexity.CycloEntry("p", "C" + i, "m", "()",
+                    1 + i * 7 % 13));
+        return entries;
+    }
+
+    /**
+     * Describes entries, one string per entry.
+     *
+     * @param entries Entries.
+     * @return The descriptions of the entries, in the same order.
+     */
+    private static List<String> describe(List<CyclomaticComplexity.CycloEntry> entries) {
+        List<String> descriptions = new ArrayList<>(entries.size());
+        for (CyclomaticComplexity.CycloEntry entry : entries)
+            descriptions.add(describe(entry));
+        return descriptions;
+    }
+
+    /**
+     * Describes an entry.
+     *
+     * @param entry Entry.
+     * @return The class, method and complexity of the entry.
+     */
+    private static String describe(CyclomaticComplexity.CycloEntry entry) {
+        return entry.className + "." + entry.methodName + " " + entry.cyclomaticNumber;
+    }
+
+    /**
+     * Exporter recording the entries its sink receives, and whether it is closed.
+     */
+    private static final class RecordingExporter implements CycloExporter {
+        /**
+         * Whether the sink needs sorted entries.
+         */
+        private final boolean sorted;
+
+        /**
+         * Descriptions of the received entries, in their order of arrival.
+         */
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Whether the sink was closed.
+         */
+        volatile boolean closed;
+
+        /**
+         * Whether opening the export fails.
+         */
+        boolean failOnOpen;
+
+        /**
+         * Whether closing the sink fails.
+         */
+        boolean failOnClose;
+
+        RecordingExporter(boolean sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public CycloSink open(String projectName) throws IOException {
+            if (failOnOpen)
+                throw new IOException("cannot open");
+            return new CycloSink() {
+                @Override
+                public void accept(CyclomaticComplexity.CycloEntry entry) {
+                    received.add(describe(entry));
+                }
+
+                @Override
+                public void close() throws IOException {
+                    closed = true;
+                    if (failOnClose)
+                        throw new IOException("export failed");
+                }
+            };
+        }
+
+        @Override
+        public boolean needsSortedEntries() {
+            return sorted;
+        }
+    }
+}
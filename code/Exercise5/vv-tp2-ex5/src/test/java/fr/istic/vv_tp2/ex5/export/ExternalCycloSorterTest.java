@@ -0,0 +1,71 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link ExternalCycloSorter} gives back every added entry, sorted stably by
+ * descending complexity, whether the entries fit in memory or are spilled into several runs.
+ */
+class ExternalCycloSorterTest {
+
+    /**
+     * Number of sorted entries.
+     */
+    private static final int ENTRIES = 1000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 999, ENTRIES, 10_000})
+    void sortsEveryEntry(int runSize) throws IOException {
+        List<CyclomaticComplexity.CycloEntry> entries = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++)
+            entries.add(new CyclomaticComplexity.CycloEntry(i % 2 == 0 ? "" : "p.q",
+                    "C" + i % 13, "m" + i, i % 3 == 0 ? "()" : "(int x, Map<K, V> é)",
+                    1 + i * 31 % 47));
+
+        List<String> sorted = new ArrayList<>(ENTRIES);
+        try (ExternalCycloSorter sorter = new ExternalCycloSorter(runSize)) {
+            for (CyclomaticComplexity.CycloEntry entry : entries)
+                sorter.add(entry);
+            sorter.forEachSorted(entry -> sorted.add(describe(entry)));
+        }
+
+        // List.sort is stable too.
+        List<CyclomaticComplexity.CycloEntry> expected = new ArrayList<>(entries);
+        expected.sort(CyclomaticComplexity.CycloEntry.BY_DESCENDING_COMPLEXITY);
+        List<String> expectedDescriptions = new ArrayList<>(ENTRIES);
+        for (CyclomaticComplexity.CycloEntry entry : expected)
+            expectedDescriptions.add(describe(entry));
+        assertEquals(expectedDescriptions, sorted);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 100})
+    void sortsNothing(int runSize) throws IOException {
+        List<String> sorted = new ArrayList<>();
+        try (ExternalCycloSorter sorter = new ExternalCycloSorter(runSize)) {
+            sorter.forEachSorted(entry -> sorted.add(describe(entry)));
+        }
+
+        assertEquals(List.of(), sorted);
+    }
+
+    /**
+     * Describes an entry with all its fields.
+     *
+     * @param entry Entry.
+     * @return The fields of the entry.
+     */
+    private static String describe(CyclomaticComplexity.CycloEntry entry) {
+        return entry.packageName + " " + entry.className + "." + entry.methodName
+                + entry.paramList + " " + entry.cyclomaticNumber;
+    }
+}
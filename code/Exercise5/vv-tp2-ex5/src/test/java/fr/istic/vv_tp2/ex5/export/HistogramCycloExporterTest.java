@@ -0,0 +1,45 @@
+package fr.istic.vv_tp2.ex5.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link HistogramCycloExporter} counts every method into exactly one bucket,
+ * whatever its cyclomatic complexity.
+ */
+class HistogramCycloExporterTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, 1",
+            "5, 5",
+            "6, 6-7",
+            "7, 6-7",
+            "8, 8-10",
+            "100, 51-100",
+            "101, 101+",
+            "5000, 101+",
+    })
+    void bucketOf(int cyclomaticNumber, String label) {
+        assertEquals(label, HistogramCycloExporter.label(
+                HistogramCycloExporter.bucket(cyclomaticNumber)));
+    }
+
+    @Test
+    void bucketsFollowEachOther() {
+        // Each number falls into the bucket following the one of the previous number, or the same.
+        int previous = HistogramCycloExporter.bucket(1);
+        assertEquals(0, previous);
+        for (int cyclomaticNumber = 2; cyclomaticNumber <= 200; cyclomaticNumber++) {
+            int bucket = HistogramCycloExporter.bucket(cyclomaticNumber);
+            assertTrue(bucket == previous || bucket == previous + 1,
+                    "bucket of " + cyclomaticNumber);
+            previous = bucket;
+        }
+        assertEquals(HistogramCycloExporter.BUCKET_BOUNDS.length - 1, previous);
+    }
+}
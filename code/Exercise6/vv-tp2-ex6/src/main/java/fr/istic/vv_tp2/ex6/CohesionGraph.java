@@ -0,0 +1,229 @@
+package fr.istic.vv_tp2.ex6;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cohesion graph of a class: its nodes are the methods of the class, and two methods are linked by
+ * an edge when they use a common instance variable.
+ * <p>
+ * Overloads of a method share a single node, as in the usual drawings of the graph. Edges are
+ * stored as pairs of node indices in a single array.
+ */
+public final class CohesionGraph {
+
+    /**
+     * Names of the nodes.
+     */
+    private final String[] nodes;
+
+    /**
+     * Edges, the source and target of edge <code>i</code> being at <code>2 * i</code> and
+     * <code>2 * i + 1</code>.
+     */
+    private final int[] edges;
+
+    /**
+     * Whether edges were left out because of the cap on the edges of each node.
+     */
+    private final boolean truncated;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param nodes     Names of the nodes.
+     * @param edges     Sources and targets of the edges.
+     * @param truncated Whether edges were left out.
+     */
+    private CohesionGraph(String[] nodes, int[] edges, boolean truncated) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Gets the number of nodes of the graph.
+     *
+     * @return The number of nodes.
+     */
+    public int nodes() {
+        return nodes.length;
+    }
+
+    /**
+     * Gets the name of a node.
+     *
+     * @param node Index of the node.
+     * @return The name of the method of the node.
+     */
+    public String node(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Gets the number of edges of the graph.
+     *
+     * @return The number of edges.
+     */
+    public int edges() {
+        return edges.length / 2;
+    }
+
+    /**
+     * Gets the source of an edge.
+     *
+     * @param edge Index of the edge.
+     * @return The index of the source node of the edge.
+     */
+    public int source(int edge) {
+        return edges[2 * edge];
+    }
+
+    /**
+     * Gets the target of an edge.
+     *
+     * @param edge Index of the edge.
+     * @return The index of the target node of the edge.
+     */
+    public int target(int edge) {
+        return edges[2 * edge + 1];
+    }
+
+    /**
+     * Tells whether edges were left out because of the cap on the edges of each node.
+     *
+     * @return <code>true</code> if the graph is incomplete.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Builder of cohesion graphs, reused for every class, so a builder must not be shared between
+     * threads.
+     * <p>
+     * Edges are deduplicated through a set of packed pairs of nodes, so that the edges between
+     * overloads are only kept once, and the edges of a node beyond the cap are left out.
+     */
+    static final class Builder {
+
+        /**
+         * Maximal number of edges of a node.
+         */
+        private final int maxEdgesPerNode;
+
+        /**
+         * Indices of the nodes, by name.
+         */
+        private final Map<String, Integer> nodeIndices = new HashMap<>();
+
+        /**
+         * Names of the nodes.
+         */
+        private String[] nodes = new String[16];
+
+        /**
+         * Number of edges of each node.
+         */
+        private int[] degrees = new int[16];
+
+        /**
+         * Sources and targets of the edges.
+         */
+        private int[] edges = new int[32];
+
+        /**
+         * Number of edges.
+         */
+        private int edgeCount;
+
+        /**
+         * Edges added so far, packed as longs.
+         */
+        private final LongHashSet addedEdges = new LongHashSet();
+
+        /**
+         * Whether edges were left out.
+         */
+        private boolean truncated;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param maxEdgesPerNode Maximal number of edges of a node.
+         */
+        Builder(int maxEdgesPerNode) {
+            this.maxEdgesPerNode = maxEdgesPerNode;
+        }
+
+        /**
+         * Starts a new graph, with no node.
+         */
+        void start() {
+            nodeIndices.clear();
+            addedEdges.clear();
+            edgeCount = 0;
+            truncated = false;
+        }
+
+        /**
+         * Gets the node of a method, adding it if needed.
+         *
+         * @param name Name of the method.
+         * @return The index of the node.
+         */
+        int node(String name) {
+            Integer index = nodeIndices.get(name);
+            if (index != null)
+                return index;
+
+            int node = nodeIndices.size();
+            if (node == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * node);
+                degrees = Arrays.copyOf(degrees, 2 * node);
+            }
+            nodes[node] = name;
+            degrees[node] = 0;
+            nodeIndices.put(name, node);
+            return node;
+        }
+
+        /**
+         * Links two nodes. Loops and edges already added are ignored.
+         *
+         * @param first  Index of the first node.
+         * @param second Index of the second node.
+         */
+        void connect(int first, int second) {
+            if (first == second)
+                return;
+            int source = Math.min(first, second);
+            int target = Math.max(first, second);
+            if (!addedEdges.add((long) source << 32 | target))
+                return;
+            if (degrees[source] >= maxEdgesPerNode || degrees[target] >= maxEdgesPerNode) {
+                truncated = true;
+                return;
+            }
+
+            if (2 * edgeCount == edges.length)
+                edges = Arrays.copyOf(edges, 2 * edges.length);
+            edges[2 * edgeCount] = source;
+            edges[2 * edgeCount + 1] = target;
+            edgeCount++;
+            degrees[source]++;
+            degrees[target]++;
+        }
+
+        /**
+         * Builds the graph.
+         *
+         * @return A graph holding the nodes and edges added since the start.
+         */
+        CohesionGraph build() {
+            return new CohesionGraph(Arrays.copyOf(nodes, nodeIndices.size()),
+                    Arrays.copyOf(edges, 2 * edgeCount), truncated);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package fr.istic.vv_tp2.ex6;
+
+import fr.istic.vv_tp2.common.AnalysisOptions;
+import fr.istic.vv_tp2.ex6.export.DOTCohesionExporter;
+
+/**
+ * Command line options of the Tight Class Cohesion calculator.
+ */
+public class CohesionOptions extends AnalysisOptions {
+
+    /**
+     * Layout of the exported cohesion graphs, or <code>null</code> if graphs are not exported.
+     */
+    public DOTCohesionExporter.Layout graphs;
+
+    /**
+     * Maximal number of edges of a node of the cohesion graphs.
+     */
+    public int maxEdgesPerNode = Integer.MAX_VALUE;
+
+    /**
+     * Parses the program's arguments.
+     *
+     * @param args Program's arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static CohesionOptions parse(String[] args) {
+        CohesionOptions options = new CohesionOptions();
+        options.parseArgs(args);
+        if (options.maxEdgesPerNode != Integer.MAX_VALUE && options.graphs == null)
+            throw new IllegalArgumentException(
+                    "option --max-edges-per-node requires option --graphs");
+        return options;
+    }
+
+    @Override
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        switch (option) {
+            case "--graphs" ->
+                    graphs = DOTCohesionExporter.Layout.fromName(value(args, index + 1, option));
+            case "--max-edges-per-node" ->
+                    maxEdgesPerNode = parsePositive(option, value(args, index + 1, option));
+            default -> {
+                return super.parseOption(args, index);
+            }
+        }
+        return index + 2;
+    }
+}
@@ -0,0 +1,67 @@
+package fr.istic.vv_tp2.ex6;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv_tp2.common.UnitAnalysis;
+import fr.istic.vv_tp2.ex6.export.CohesionSink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the tight class cohesion of all classes of each compilation unit, and streams them to
+ * a {@link CohesionSink}. Closing the analysis closes the sink.
+ */
+public class CohesionUnitAnalysis implements UnitAnalysis<List<TightClassCohesion.CohesionEntry>> {
+
+    /**
+     * Sink receiving the tight class cohesion entries.
+     */
+    private final CohesionSink sink;
+
+    /**
+     * Compilation unit visitor of each worker.
+     */
+    private final ThreadLocal<CohesionUnitVisitor> visitors;
+
+    /**
+     * Constructor of the class, building no cohesion graph.
+     *
+     * @param sink Sink receiving the tight class cohesion entries.
+     */
+    public CohesionUnitAnalysis(CohesionSink sink) {
+        this.sink = sink;
+        this.visitors = ThreadLocal.withInitial(CohesionUnitVisitor::new);
+    }
+
+    /**
+     * Constructor of the class, building the cohesion graph of each class.
+     *
+     * @param sink            Sink receiving the tight class cohesion entries.
+     * @param maxEdgesPerNode Maximal number of edges of a node of the graphs.
+     */
+    public CohesionUnitAnalysis(CohesionSink sink, int maxEdgesPerNode) {
+        this.sink = sink;
+        this.visitors = ThreadLocal.withInitial(() -> new CohesionUnitVisitor(maxEdgesPerNode));
+    }
+
+    @Override
+    public List<TightClassCohesion.CohesionEntry> analyze(CompilationUnit unit) {
+        List<TightClassCohesion.CohesionEntry> cohesionEntries = new ArrayList<>();
+        unit.accept(visitors.get(), new CohesionUnitVisitor.CohesionParam(cohesionEntries::add));
+        return cohesionEntries;
+    }
+
+    @Override
+    public void accept(List<TightClassCohesion.CohesionEntry> cohesionEntries)
+            throws IOException {
+        for (TightClassCohesion.CohesionEntry entry : cohesionEntries)
+            sink.accept(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+}
@@ -0,0 +1,264 @@
+package fr.istic.vv_tp2.ex6;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithName;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Visitor used to compute the tight class cohesion of all classes from a compilation unit.
+ * <p>
+ * As the cyclomatic complexity visitor does, the visitor walks the unit once, and every type
+ * declaration, whether top-level, nested, local or anonymous, and whether a class, an enum or a
+ * record, is evaluated exactly once. Anonymous classes are named after their enclosing type.
+ * Interfaces are ignored, as well as inherited members.
+ * <p>
+ * The methods of a class are its non-static methods with a body, and its instance variables are
+ * its non-static fields and record components. The usages of each method are recorded into a
+ * {@link FieldUsageTable}, reused for every class, so a visitor must not be shared between
+ * threads. When asked to, the visitor also builds the {@link CohesionGraph} of each class from the
+ * connected pairs of methods, as they are counted.
+ */
+public class CohesionUnitVisitor extends VoidVisitorAdapter<CohesionUnitVisitor.CohesionParam> {
+
+    /**
+     * Usages of the instance variables of the evaluated class.
+     */
+    private final FieldUsageTable table = new FieldUsageTable();
+
+    /**
+     * Visitor recording the usages of the methods.
+     */
+    private final FieldUsageVisitor usageVisitor = new FieldUsageVisitor();
+
+    /**
+     * Builder of the cohesion graphs, or <code>null</code> if graphs are not built.
+     */
+    private final CohesionGraph.Builder graphBuilder;
+
+    /**
+     * Nodes of the methods of the evaluated class, by method index.
+     */
+    private int[] methodNodes = new int[16];
+
+    /**
+     * Receiver of the connected pairs of methods, adding them to the graph being built.
+     */
+    private final FieldUsageTable.PairConsumer edges = this::connect;
+
+    /**
+     * Constructor of the class, building no cohesion graph.
+     */
+    public CohesionUnitVisitor() {
+        this.graphBuilder = null;
+    }
+
+    /**
+     * Constructor of the class, building the cohesion graph of each class.
+     *
+     * @param maxEdgesPerNode Maximal number of edges of a node of the graphs: further edges are
+     *                        left out.
+     */
+    public CohesionUnitVisitor(int maxEdgesPerNode) {
+        this.graphBuilder = new CohesionGraph.Builder(maxEdgesPerNode);
+    }
+
+    @Override
+    public void visit(CompilationUnit unit, CohesionParam param) {
+        // Get the package name.
+        param.packageName = unit.getPackageDeclaration()
+                .map(NodeWithName::getNameAsString)
+                .orElse("(default)");
+
+        // Walk the whole unit.
+        super.visit(unit, param);
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration intClass, CohesionParam param) {
+        // Interfaces are not evaluated, but their nested types are.
+        visitType(intClass.getNameAsString(), param, () -> {
+            if (!intClass.isInterface())
+                evaluate(intClass.getMembers(), List.of(), param);
+            super.visit(intClass, param);
+        });
+    }
+
+    @Override
+    public void visit(EnumDeclaration enumDecl, CohesionParam param) {
+        visitType(enumDecl.getNameAsString(), param, () -> {
+            evaluate(enumDecl.getMembers(), List.of(), param);
+            super.visit(enumDecl, param);
+        });
+    }
+
+    @Override
+    public void visit(RecordDeclaration record, CohesionParam param) {
+        visitType(record.getNameAsString(), param, () -> {
+            evaluate(record.getMembers(), record.getParameters(), param);
+            super.visit(record, param);
+        });
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr creation, CohesionParam param) {
+        Optional<NodeList<BodyDeclaration<?>>> body = creation.getAnonymousClassBody();
+        if (body.isEmpty()) {
+            super.visit(creation, param);
+            return;
+        }
+
+        // Scope and arguments belong to the enclosing type.
+        creation.getScope()
+                .ifPresent(scope -> scope.accept(this, param));
+        creation.getArguments()
+                .forEach(argument -> argument.accept(this, param));
+
+        // Anonymous classes are named after their enclosing type, as the compiler does.
+        String className = param.className + "$" + ++param.anonymousClasses;
+        visitType(className, param, () -> {
+            evaluate(body.get(), List.of(), param);
+            body.get()
+                    .forEach(member -> member.accept(this, param));
+        });
+    }
+
+    /**
+     * Evaluates the tight class cohesion of a class from its own members, and adds its entry.
+     * Nested types are left to the visit of the members.
+     *
+     * @param members    Members of the class.
+     * @param components Components of the class if it is a record, or an empty list.
+     * @param param      Parameter of the visitor, describing the class.
+     */
+    private void evaluate(List<BodyDeclaration<?>> members, List<Parameter> components,
+            CohesionParam param) {
+        table.startClass();
+        if (graphBuilder != null)
+            graphBuilder.start();
+        for (Parameter component : components)
+            table.addField(component.getNameAsString());
+        for (BodyDeclaration<?> member : members) {
+            if (!(member instanceof FieldDeclaration field) || field.isStatic())
+                continue;
+            for (VariableDeclarator variable : field.getVariables())
+                table.addField(variable.getNameAsString());
+        }
+
+        for (BodyDeclaration<?> member : members) {
+            if (!(member instanceof MethodDeclaration method) || method.isStatic()
+                    || method.getBody()
+                            .isEmpty())
+                continue;
+            table.startMethod();
+            if (graphBuilder != null)
+                addNode(table.methods() - 1, method.getNameAsString());
+            // Methods of classes with no instance variable use none.
+            if (table.hasFields()) {
+                usageVisitor.startMethod(method.getParameters());
+                method.getBody()
+                        .get()
+                        .accept(usageVisitor, table);
+            }
+        }
+
+        int methods = table.methods();
+        if (graphBuilder == null) {
+            param.cohesionEntries.accept(new TightClassCohesion.CohesionEntry(param.packageName,
+                    param.className, methods, table.connectedPairs()));
+            return;
+        }
+        long connectedPairs = table.connectedPairs(edges);
+        param.cohesionEntries.accept(new TightClassCohesion.CohesionEntry(param.packageName,
+                param.className, methods, connectedPairs, graphBuilder.build()));
+    }
+
+    /**
+     * Adds the node of a method to the graph being built.
+     *
+     * @param method Index of the method.
+     * @param name   Name of the method.
+     */
+    private void addNode(int method, String name) {
+        if (method == methodNodes.length)
+            methodNodes = Arrays.copyOf(methodNodes, 2 * method);
+        methodNodes[method] = graphBuilder.node(name);
+    }
+
+    /**
+     * Links the nodes of two connected methods in the graph being built.
+     *
+     * @param first  Index of the first method.
+     * @param second Index of the second method.
+     */
+    private void connect(int first, int second) {
+        graphBuilder.connect(methodNodes[first], methodNodes[second]);
+    }
+
+    /**
+     * Visits a type declaration, with the visitor's parameter describing this type.
+     *
+     * @param className    Name of the type.
+     * @param param        Parameter of the visitor.
+     * @param visitMembers Visit of the type.
+     */
+    private static void visitType(String className, CohesionParam param, Runnable visitMembers) {
+        String enclosingClassName = param.className;
+        int enclosingAnonymousClasses = param.anonymousClasses;
+
+        param.className = className;
+        param.anonymousClasses = 0;
+        visitMembers.run();
+
+        param.className = enclosingClassName;
+        param.anonymousClasses = enclosingAnonymousClasses;
+    }
+
+    /**
+     * Parameter of the tight class cohesion visitor.
+     */
+    public static class CohesionParam {
+        /**
+         * Name of the current package.
+         */
+        String packageName;
+
+        /**
+         * Name of the current type.
+         */
+        String className;
+
+        /**
+         * Number of anonymous classes met so far in the current type.
+         */
+        int anonymousClasses;
+
+        /**
+         * Consumer of the computed cohesion entries.
+         */
+        final Consumer<TightClassCohesion.CohesionEntry> cohesionEntries;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param cohesionEntries Consumer of the computed cohesion entries.
+         */
+        public CohesionParam(Consumer<TightClassCohesion.CohesionEntry> cohesionEntries) {
+            this.cohesionEntries = cohesionEntries;
+        }
+    }
+}
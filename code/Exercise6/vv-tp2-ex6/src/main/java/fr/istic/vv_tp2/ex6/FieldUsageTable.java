@@ -0,0 +1,234 @@
+package fr.istic.vv_tp2.ex6;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records which instance variables of a class are used by each of its methods, and counts the
+ * pairs of methods using a common variable.
+ * <p>
+ * Variables are numbered in declaration order, and the usage of each method is a bitset of
+ * <code>words</code> longs, all bitsets being packed in a single array. Two methods are connected
+ * if the intersection of their bitsets is not empty, which is tested a word at a time, without
+ * allocating anything. The table is reused for every class, so a table must not be shared between
+ * threads.
+ */
+final class FieldUsageTable {
+
+    /**
+     * Number of bits of a word.
+     */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /**
+     * Indices of the instance variables of the current class, by name.
+     */
+    private final Map<String, Integer> fieldIndices = new HashMap<>();
+
+    /**
+     * Usage bitsets of the methods of the current class, <code>words</code> longs per method.
+     */
+    private long[] usages = new long[16];
+
+    /**
+     * Number of words of a bitset.
+     */
+    private int words;
+
+    /**
+     * Number of methods of the current class.
+     */
+    private int methods;
+
+    /**
+     * Indices of the methods whose bitsets were compacted at the head of the table.
+     */
+    private int[] users = new int[16];
+
+    /**
+     * Starts a new class, with no instance variable and no method.
+     */
+    void startClass() {
+        fieldIndices.clear();
+        methods = 0;
+        words = 0;
+    }
+
+    /**
+     * Declares an instance variable of the current class. Variables must be declared before any
+     * method is started.
+     *
+     * @param name Name of the variable.
+     */
+    void addField(String name) {
+        fieldIndices.putIfAbsent(name, fieldIndices.size());
+        words = (fieldIndices.size() + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Tells whether the current class has instance variables.
+     *
+     * @return <code>true</code> if a variable has been declared.
+     */
+    boolean hasFields() {
+        return !fieldIndices.isEmpty();
+    }
+
+    /**
+     * Tells whether a name is an instance variable of the current class.
+     *
+     * @param name Name.
+     * @return <code>true</code> if the name is an instance variable.
+     */
+    boolean isField(String name) {
+        return fieldIndices.containsKey(name);
+    }
+
+    /**
+     * Starts a new method of the current class, using no variable so far.
+     */
+    void startMethod() {
+        int end = (methods + 1) * words;
+        if (end > usages.length)
+            usages = Arrays.copyOf(usages, Math.max(end, usages.length * 2));
+        Arrays.fill(usages, methods * words, end, 0L);
+        methods++;
+    }
+
+    /**
+     * Records the use of a name by the current method. Names which are not instance variables
+     * are ignored.
+     *
+     * @param name Name used by the method.
+     */
+    void use(String name) {
+        Integer index = fieldIndices.get(name);
+        if (index == null || methods == 0)
+            return;
+        usages[(methods - 1) * words + index / WORD_BITS] |= 1L << index;
+    }
+
+    /**
+     * Gets the number of methods of the current class.
+     *
+     * @return The number of started methods.
+     */
+    int methods() {
+        return methods;
+    }
+
+    /**
+     * Counts the pairs of methods of the current class using a common instance variable.
+     *
+     * @return The number of connected pairs of methods.
+     */
+    long connectedPairs() {
+        return connectedPairs(null);
+    }
+
+    /**
+     * Counts the pairs of methods of the current class using a common instance variable, and
+     * reports each of them.
+     * <p>
+     * Methods using no variable are connected to no other method, so they are left out first, and
+     * the remaining bitsets are compacted at the head of the table. The usages of the class are
+     * thus lost once the pairs are counted.
+     *
+     * @param pairs Receiver of the connected pairs, or <code>null</code> to only count them.
+     * @return The number of connected pairs of methods.
+     */
+    long connectedPairs(PairConsumer pairs) {
+        int userCount = compactUsers();
+        long connected = 0;
+        if (words == 1) {
+            // Most classes have less than 64 variables.
+            for (int i = 0; i < userCount; i++) {
+                long usage = usages[i];
+                for (int j = i + 1; j < userCount; j++) {
+                    if ((usage & usages[j]) == 0)
+                        continue;
+                    connected++;
+                    if (pairs != null)
+                        pairs.accept(users[i], users[j]);
+                }
+            }
+            return connected;
+        }
+
+        for (int i = 0; i < userCount; i++) {
+            for (int j = i + 1; j < userCount; j++) {
+                if (!intersect(i, j))
+                    continue;
+                connected++;
+                if (pairs != null)
+                    pairs.accept(users[i], users[j]);
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Moves the bitsets of the methods using at least one variable to the head of the table, and
+     * their indices to the head of <code>users</code>.
+     *
+     * @return The number of methods using at least one variable.
+     */
+    private int compactUsers() {
+        if (users.length < methods)
+            users = new int[Math.max(methods, 2 * users.length)];
+        int userCount = 0;
+        for (int method = 0; method < methods; method++) {
+            int from = method * words;
+            if (isEmpty(from))
+                continue;
+            if (userCount != method)
+                System.arraycopy(usages, from, usages, userCount * words, words);
+            users[userCount++] = method;
+        }
+        return userCount;
+    }
+
+    /**
+     * Tells whether a bitset is empty.
+     *
+     * @param from Index of the first word of the bitset.
+     * @return <code>true</code> if no bit is set.
+     */
+    private boolean isEmpty(int from) {
+        for (int word = from; word < from + words; word++)
+            if (usages[word] != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Tells whether the bitsets of two methods intersect.
+     *
+     * @param first  Index of the first method.
+     * @param second Index of the second method.
+     * @return <code>true</code> if the methods use a common variable.
+     */
+    private boolean intersect(int first, int second) {
+        int a = first * words;
+        int b = second * words;
+        for (int word = 0; word < words; word++)
+            if ((usages[a + word] & usages[b + word]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Receiver of the connected pairs of methods of a class.
+     */
+    @FunctionalInterface
+    interface PairConsumer {
+        /**
+         * Receives a connected pair of methods.
+         *
+         * @param first  Index of the first method, in the order the methods were started.
+         * @param second Index of the second method, greater than the first.
+         */
+        void accept(int first, int second);
+    }
+}
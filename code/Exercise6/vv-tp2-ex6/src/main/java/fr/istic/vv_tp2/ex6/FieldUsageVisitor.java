@@ -0,0 +1,165 @@
+package fr.istic.vv_tp2.ex6;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.expr.TypePatternExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Visitor recording the instance variables used by the body of a method into a
+ * {@link FieldUsageTable}.
+ * <p>
+ * A variable is used when its simple name is not shadowed by a parameter or a local variable in
+ * scope, or when it is accessed through an unqualified <code>this</code>. Variables used by local
+ * and anonymous classes belong to these classes, so their bodies are not walked. Methods called
+ * by the method are not followed: only direct uses are recorded.
+ */
+class FieldUsageVisitor extends VoidVisitorAdapter<FieldUsageTable> {
+
+    /**
+     * Names of the parameters and local variables in scope, reused for every method.
+     */
+    private final List<String> locals = new ArrayList<>();
+
+    /**
+     * Prepares the visit of a new method.
+     *
+     * @param parameters Parameters of the method, in scope in its whole body.
+     */
+    void startMethod(List<Parameter> parameters) {
+        locals.clear();
+        for (Parameter parameter : parameters)
+            locals.add(parameter.getNameAsString());
+    }
+
+    @Override
+    public void visit(NameExpr name, FieldUsageTable table) {
+        String identifier = name.getNameAsString();
+        if (table.isField(identifier) && !locals.contains(identifier))
+            table.use(identifier);
+    }
+
+    @Override
+    public void visit(FieldAccessExpr access, FieldUsageTable table) {
+        if (access.getScope() instanceof ThisExpr self && self.getTypeName()
+                .isEmpty())
+            table.use(access.getNameAsString());
+        else
+            super.visit(access, table);
+    }
+
+    @Override
+    public void visit(VariableDeclarator declarator, FieldUsageTable table) {
+        // A local variable is in scope in its own initializer.
+        locals.add(declarator.getNameAsString());
+        super.visit(declarator, table);
+    }
+
+    @Override
+    public void visit(Parameter parameter, FieldUsageTable table) {
+        locals.add(parameter.getNameAsString());
+    }
+
+    @Override
+    public void visit(TypePatternExpr pattern, FieldUsageTable table) {
+        // Pattern variables stay in scope until the end of the enclosing block.
+        locals.add(pattern.getNameAsString());
+    }
+
+    @Override
+    public void visit(BlockStmt block, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(block, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(SwitchEntry entry, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(entry, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(ForStmt loop, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(loop, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(ForEachStmt loop, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(loop, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(TryStmt tryStmt, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(tryStmt, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(CatchClause clause, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(clause, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(LambdaExpr lambda, FieldUsageTable table) {
+        int scope = locals.size();
+        super.visit(lambda, table);
+        closeScope(scope);
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr creation, FieldUsageTable table) {
+        // The body of an anonymous class is left out.
+        creation.getScope()
+                .ifPresent(scope -> scope.accept(this, table));
+        creation.getArguments()
+                .forEach(argument -> argument.accept(this, table));
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration localClass, FieldUsageTable table) {
+    }
+
+    @Override
+    public void visit(EnumDeclaration localEnum, FieldUsageTable table) {
+    }
+
+    @Override
+    public void visit(RecordDeclaration localRecord, FieldUsageTable table) {
+    }
+
+    /**
+     * Forgets the local variables declared since a scope was opened.
+     *
+     * @param scope Number of local variables in scope when the scope was opened.
+     */
+    private void closeScope(int scope) {
+        locals.subList(scope, locals.size())
+                .clear();
+    }
+}
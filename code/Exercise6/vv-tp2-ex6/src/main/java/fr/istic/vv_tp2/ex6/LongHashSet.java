@@ -0,0 +1,109 @@
+package fr.istic.vv_tp2.ex6;
+
+import java.util.Arrays;
+
+/**
+ * Set of longs, stored unboxed in an open-addressing table with linear probing.
+ * <p>
+ * The set is meant to be cleared and reused: clearing it keeps its table, so a reused set does not
+ * allocate once it has grown to the size of its largest use. Since the table is scanned on
+ * clearing, it shrinks back when it is far larger than needed. The value
+ * {@link #EMPTY} cannot be stored.
+ */
+final class LongHashSet {
+
+    /**
+     * Marker of the empty slots of the table.
+     */
+    static final long EMPTY = -1L;
+
+    /**
+     * Initial and minimal capacity of the table.
+     */
+    private static final int MIN_CAPACITY = 64;
+
+    /**
+     * Slots of the table, whose length is a power of two.
+     */
+    private long[] slots = newSlots(MIN_CAPACITY);
+
+    /**
+     * Number of values of the set.
+     */
+    private int size;
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value Value, other than {@link #EMPTY}.
+     * @return <code>true</code> if the value was not in the set.
+     */
+    boolean add(long value) {
+        if (2 * (size + 1) > slots.length)
+            rehash(slots.length * 2);
+
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes all the values of the set.
+     */
+    void clear() {
+        if (slots.length > MIN_CAPACITY && 8 * size < slots.length)
+            slots = newSlots(Math.max(MIN_CAPACITY, Integer.highestOneBit(size) * 4));
+        else
+            Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Moves the values of the set into a new table.
+     *
+     * @param capacity Capacity of the new table, a power of two.
+     */
+    private void rehash(int capacity) {
+        long[] previous = slots;
+        slots = newSlots(capacity);
+        int mask = capacity - 1;
+        for (long value : previous) {
+            if (value == EMPTY)
+                continue;
+            int slot = hash(value) & mask;
+            while (slots[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            slots[slot] = value;
+        }
+    }
+
+    /**
+     * Mixes the bits of a value, so that close values spread over the table.
+     *
+     * @param value Value.
+     * @return The hash of the value.
+     */
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity Capacity of the table.
+     * @return The table.
+     */
+    private static long[] newSlots(int capacity) {
+        long[] slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
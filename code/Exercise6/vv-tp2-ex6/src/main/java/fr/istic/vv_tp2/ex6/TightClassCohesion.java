@@ -0,0 +1,179 @@
+package fr.istic.vv_tp2.ex6;
+
+import fr.istic.vv_tp2.common.AnalysisDriver;
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.RunProfile;
+import fr.istic.vv_tp2.ex6.export.CSVCohesionExporter;
+import fr.istic.vv_tp2.ex6.export.CohesionExporter;
+import fr.istic.vv_tp2.ex6.export.CohesionSink;
+import fr.istic.vv_tp2.ex6.export.DOTCohesionExporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main class of the Tight Class Cohesion calculator.
+ */
+public class TightClassCohesion {
+
+    /**
+     * Tight Class Cohesion calculator entry point.
+     *
+     * @param args Program's arguments : should contain the folder of a project, optionally
+     *             followed by <code>--threads &lt;count&gt;</code> to set the number of worker
+     *             threads (defaults to the number of available processors) and
+     *             <code>--charset &lt;name&gt;</code> to set the charset of the source files
+     *             (defaults to UTF-8). Analyzed files are selected by the options described in
+     *             {@link fr.istic.vv_tp2.common.AnalysisOptions}. With
+     *             <code>--graphs per-class|combined</code>, the cohesion graphs of the classes
+     *             are also exported in the DOT format, with at most
+     *             <code>--max-edges-per-node &lt;count&gt;</code> edges per method. The peak heap
+     *             usage of the run is printed at the end. With
+     *             <code>--profile &lt;file&gt;</code>, the time spent in each phase and the
+     *             slowest files are written to the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void main(String[] args) throws IOException {
+        CohesionOptions options = null;
+        try {
+            options = CohesionOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(1);
+        }
+
+        String projectName = new File(options.path).getName();
+
+        System.out.println("Analyzing the project...");
+
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        List<Path> javaFiles = JavaFiles.find(Path.of(options.path), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
+
+        // Classes are evaluated on the workers of the engine, file by file, and streamed to the
+        // exports. Files which cannot be analyzed are reported aside.
+        try (ParseFailures failures = new ParseFailures(
+                new File(projectName + "_parse_failures.csv"));
+             AnalysisDriver driver = new AnalysisDriver(
+                     new AnalysisEngine(options, failures).profiledBy(profile))) {
+            driver.add(options.graphs == null
+                            ? new CohesionUnitAnalysis(openExports(projectName, options))
+                            : new CohesionUnitAnalysis(openExports(projectName, options),
+                                    options.maxEdgesPerNode))
+                    .run(javaFiles);
+        }
+        profile.write();
+        PeakHeap.print();
+    }
+
+    /**
+     * Opens the exports of the program: the CSV report, and the cohesion graphs if asked for.
+     *
+     * @param projectName Name of the evaluated project.
+     * @param options     Options of the program.
+     * @return Sink streaming entries to every export.
+     * @throws IOException If any I/O error occurs.
+     */
+    public static CohesionSink openExports(String projectName, CohesionOptions options)
+            throws IOException {
+        List<CohesionExporter> exporters = new ArrayList<>();
+        exporters.add(new CSVCohesionExporter());
+        if (options.graphs != null)
+            exporters.add(new DOTCohesionExporter(options.graphs));
+
+        List<CohesionSink> sinks = new ArrayList<>();
+        for (CohesionExporter exporter : exporters)
+            sinks.add(exporter.open(projectName));
+        return CohesionSink.all(sinks);
+    }
+
+    /**
+     * Represent a tight class cohesion measure entry.
+     */
+    public static class CohesionEntry {
+        /**
+         * Package of the evaluated class.
+         */
+        public final String packageName;
+
+        /**
+         * Name of the evaluated class.
+         */
+        public final String className;
+
+        /**
+         * Number of methods of the class, i.e. of nodes of its cohesion graph.
+         */
+        public final int methods;
+
+        /**
+         * Number of pairs of methods of the class using a common instance variable, i.e. of
+         * edges of its cohesion graph.
+         */
+        public final long connectedPairs;
+
+        /**
+         * Cohesion graph of the class, or <code>null</code> if it was not built.
+         */
+        public final CohesionGraph graph;
+
+        /**
+         * Constructor of the class, with no cohesion graph.
+         *
+         * @param packageName    Package of the evaluated class.
+         * @param className      Name of the evaluated class.
+         * @param methods        Number of methods of the class.
+         * @param connectedPairs Number of pairs of methods using a common instance variable.
+         */
+        public CohesionEntry(String packageName, String className, int methods,
+                long connectedPairs) {
+            this(packageName, className, methods, connectedPairs, null);
+        }
+
+        /**
+         * Constructor of the class.
+         *
+         * @param packageName    Package of the evaluated class.
+         * @param className      Name of the evaluated class.
+         * @param methods        Number of methods of the class.
+         * @param connectedPairs Number of pairs of methods using a common instance variable.
+         * @param graph          Cohesion graph of the class, or <code>null</code> if it was not
+         *                       built.
+         */
+        public CohesionEntry(String packageName, String className, int methods,
+                long connectedPairs, CohesionGraph graph) {
+            this.packageName = packageName;
+            this.className = className;
+            this.methods = methods;
+            this.connectedPairs = connectedPairs;
+            this.graph = graph;
+        }
+
+        /**
+         * Gets the number of pairs of methods of the class.
+         *
+         * @return The number of pairs of methods.
+         */
+        public long pairs() {
+            return (long) methods * (methods - 1) / 2;
+        }
+
+        /**
+         * Gets the tight class cohesion of the class: its proportion of pairs of methods using a
+         * common instance variable.
+         *
+         * @return The TCC of the class, or {@link Double#NaN} if it has less than two methods.
+         */
+        public double tcc() {
+            long pairs = pairs();
+            return pairs == 0 ? Double.NaN : (double) connectedPairs / pairs;
+        }
+    }
+}
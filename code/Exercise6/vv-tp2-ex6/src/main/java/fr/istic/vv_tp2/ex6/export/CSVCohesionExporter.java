@@ -0,0 +1,41 @@
+package fr.istic.vv_tp2.ex6.export;
+
+import fr.istic.vv_tp2.common.CsvWriter;
+import fr.istic.vv_tp2.ex6.TightClassCohesion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Exports data into a CSV file, in the order classes are evaluated.
+ * <p>
+ * The TCC of classes with less than two methods is undefined, and left empty.
+ */
+public class CSVCohesionExporter implements CohesionExporter {
+    @Override
+    public CohesionSink open(String projectName) throws IOException {
+        CsvWriter output = new CsvWriter(Path.of(projectName + "_report_tcc.csv"));
+
+        // Print file's header.
+        output.row("Package", "Class", "Methods", "Connected pairs", "TCC");
+
+        return new CohesionSink() {
+            @Override
+            public void accept(TightClassCohesion.CohesionEntry entry) throws IOException {
+                double tcc = entry.tcc();
+                output.field(entry.packageName)
+                        .field(entry.className)
+                        .field(entry.methods)
+                        .field(entry.connectedPairs)
+                        .field(Double.isNaN(tcc) ? "" : String.format(Locale.ROOT, "%.4f", tcc))
+                        .endRow();
+            }
+
+            @Override
+            public void close() throws IOException {
+                output.close();
+            }
+        };
+    }
+}
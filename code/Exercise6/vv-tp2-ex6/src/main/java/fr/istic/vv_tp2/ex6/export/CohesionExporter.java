@@ -0,0 +1,19 @@
+package fr.istic.vv_tp2.ex6.export;
+
+import java.io.IOException;
+
+/**
+ * Defines operation over exporter objects, which export computed tight class cohesion data into a
+ * file of a given format.
+ */
+public interface CohesionExporter {
+    /**
+     * Opens an export. Entries are streamed to the returned sink as they are computed, and the
+     * export is completed when the sink is closed.
+     *
+     * @param projectName Name of the evaluated project.
+     * @return Sink receiving the tight class cohesion entries to export.
+     * @throws IOException If any I/O error occurs.
+     */
+    CohesionSink open(String projectName) throws IOException;
+}
@@ -0,0 +1,59 @@
+package fr.istic.vv_tp2.ex6.export;
+
+import fr.istic.vv_tp2.ex6.TightClassCohesion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives tight class cohesion entries one by one, as they are computed. Closing the sink
+ * signals that no more entries will be received.
+ */
+public interface CohesionSink extends Closeable {
+    /**
+     * Receives an entry.
+     *
+     * @param entry Tight class cohesion entry.
+     * @throws IOException If any I/O error occurs.
+     */
+    void accept(TightClassCohesion.CohesionEntry entry) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Gets a sink forwarding entries to several sinks, in order. Closing it closes every sink,
+     * even if some of them fail.
+     *
+     * @param sinks Sinks receiving the entries.
+     * @return The forwarding sink.
+     */
+    static CohesionSink all(List<CohesionSink> sinks) {
+        return new CohesionSink() {
+            @Override
+            public void accept(TightClassCohesion.CohesionEntry entry) throws IOException {
+                for (CohesionSink sink : sinks)
+                    sink.accept(entry);
+            }
+
+            @Override
+            public void close() throws IOException {
+                IOException failure = null;
+                for (CohesionSink sink : sinks) {
+                    try {
+                        sink.close();
+                    } catch (IOException e) {
+                        if (failure == null)
+                            failure = e;
+                        else
+                            failure.addSuppressed(e);
+                    }
+                }
+                if (failure != null)
+                    throw failure;
+            }
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package fr.istic.vv_tp2.ex6.export;
+
+import fr.istic.vv_tp2.ex6.CohesionGraph;
+import fr.istic.vv_tp2.ex6.TightClassCohesion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Exports the cohesion graphs of the classes in the GraphViz DOT format, either one file per
+ * class or a single file holding a cluster per class.
+ * <p>
+ * Each graph is written as soon as its class is received, through a buffered writer, and then
+ * dropped: the memory used by the export does not grow with the project. Classes with no method
+ * have no graph. Nodes are numbered in the graph, and labeled with the names of their methods.
+ */
+public class DOTCohesionExporter implements CohesionExporter {
+
+    /**
+     * Layout of the exported graphs.
+     */
+    private final Layout layout;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param layout Layout of the exported graphs.
+     */
+    public DOTCohesionExporter(Layout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public CohesionSink open(String projectName) throws IOException {
+        return layout == Layout.COMBINED ? openCombined(projectName) : openPerClass(projectName);
+    }
+
+    /**
+     * Opens an export writing a single graph, with a cluster per class.
+     *
+     * @param projectName Name of the evaluated project.
+     * @return Sink writing the graphs.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static CohesionSink openCombined(String projectName) throws IOException {
+        BufferedWriter output = Files.newBufferedWriter(Path.of(projectName + "_tcc.dot"),
+                StandardCharsets.UTF_8);
+        output.write("graph ");
+        writeString(output, projectName);
+        output.write(" {\n");
+
+        return new CohesionSink() {
+            // Number of the next cluster, prefixing the nodes of its class.
+            private int cluster;
+
+            @Override
+            public void accept(TightClassCohesion.CohesionEntry entry) throws IOException {
+                if (entry.graph == null || entry.graph.nodes() == 0)
+                    return;
+                String prefix = "c" + cluster;
+                output.write("  subgraph cluster_" + cluster++ + " {\n");
+                writeGraph(output, "    ", prefix, entry);
+                output.write("  }\n");
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (output) {
+                    output.write("}\n");
+                }
+            }
+        };
+    }
+
+    /**
+     * Opens an export writing a file per class, into a folder named after the project.
+     *
+     * @param projectName Name of the evaluated project.
+     * @return Sink writing the graphs.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static CohesionSink openPerClass(String projectName) throws IOException {
+        Path folder = Files.createDirectories(Path.of(projectName + "_tcc_graphs"));
+
+        return new CohesionSink() {
+            // Names of the written files, since local classes of a type may share a name.
+            private final Set<String> fileNames = new HashSet<>();
+
+            @Override
+            public void accept(TightClassCohesion.CohesionEntry entry) throws IOException {
+                if (entry.graph == null || entry.graph.nodes() == 0)
+                    return;
+                String className = entry.packageName + "." + entry.className;
+                String fileName = className;
+                for (int i = 2; !fileNames.add(fileName); i++)
+                    fileName = className + "~" + i;
+
+                try (BufferedWriter output = Files.newBufferedWriter(
+                        folder.resolve(fileName + ".dot"), StandardCharsets.UTF_8)) {
+                    output.write("graph ");
+                    writeString(output, className);
+                    output.write(" {\n");
+                    writeGraph(output, "  ", "n", entry);
+                    output.write("}\n");
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the statements of the graph of a class.
+     *
+     * @param output Output.
+     * @param indent Indentation of the statements.
+     * @param prefix Prefix of the identifiers of the nodes.
+     * @param entry  Tight class cohesion entry of the class.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void writeGraph(Writer output, String indent, String prefix,
+            TightClassCohesion.CohesionEntry entry) throws IOException {
+        CohesionGraph graph = entry.graph;
+        output.write(indent);
+        output.write("label=");
+        writeString(output, label(entry));
+        output.write(";\n");
+
+        for (int node = 0; node < graph.nodes(); node++) {
+            output.write(indent);
+            output.write(prefix + "_" + node + " [label=");
+            writeString(output, graph.node(node));
+            output.write("];\n");
+        }
+        for (int edge = 0; edge < graph.edges(); edge++) {
+            output.write(indent);
+            output.write(prefix + "_" + graph.source(edge) + " -- " + prefix + "_"
+                    + graph.target(edge) + ";\n");
+        }
+    }
+
+    /**
+     * Builds the label of the graph of a class, e.g. <code>org.example.Foo (TCC 0.25)</code>.
+     *
+     * @param entry Tight class cohesion entry of the class.
+     * @return The label of the graph.
+     */
+    private static String label(TightClassCohesion.CohesionEntry entry) {
+        String label = entry.packageName + "." + entry.className;
+        double tcc = entry.tcc();
+        if (!Double.isNaN(tcc))
+            label += String.format(Locale.ROOT, " (TCC %.2f)", tcc);
+        if (entry.graph.isTruncated())
+            label += " [edges capped]";
+        return label;
+    }
+
+    /**
+     * Writes a DOT quoted string.
+     *
+     * @param output Output.
+     * @param value  Value of the string.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void writeString(Writer output, String value) throws IOException {
+        output.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                output.write('\\');
+            output.write(c);
+        }
+        output.write('"');
+    }
+
+    /**
+     * Layouts of the exported graphs.
+     */
+    public enum Layout {
+        /**
+         * One file per class, in the folder <code>&lt;project&gt;_tcc_graphs</code>.
+         */
+        PER_CLASS,
+
+        /**
+         * A single file, <code>&lt;project&gt;_tcc.dot</code>, with a cluster per class.
+         */
+        COMBINED;
+
+        /**
+         * Gets a layout from its name, as given on the command line.
+         *
+         * @param name Name of the layout, e.g. <code>per-class</code>, case-insensitive.
+         * @return The layout.
+         * @throws IllegalArgumentException If there is no layout with this name.
+         */
+        public static Layout fromName(String name) {
+            try {
+                return valueOf(name.replace('-', '_')
+                        .toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown graph layout: " + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package fr.istic.vv_tp2.ex6.export;
+
+import com.github.javaparser.StaticJavaParser;
+
+import fr.istic.vv_tp2.ex6.CohesionUnitAnalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the graphs written by the {@link DOTCohesionExporter}: the edges between overloads are
+ * written once, and the edges of a node are capped.
+ */
+class DOTCohesionExporterTest {
+
+    /**
+     * Class whose five methods all use the same field, so its graph is complete.
+     */
+    private static final String COMPLETE = """
+            package p;
+
+            class Complete {
+                int x;
+
+                void a() { x++; }
+                void b() { x++; }
+                void c() { x++; }
+                void d() { x++; }
+                void e() { x++; }
+            }
+            """;
+
+    /**
+     * Edge statement of a DOT graph.
+     */
+    private static final Pattern EDGE = Pattern.compile("(\\w+) -- (\\w+);");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesEdgesBetweenOverloadsOnce() throws IOException {
+        String project = export(DOTCohesionExporter.Layout.PER_CLASS, Integer.MAX_VALUE, """
+                package p;
+
+                class A {
+                    int x;
+
+                    void f() { x++; }
+                    void f(int y) { x += y; }
+                    int g() { return x; }
+                }
+                """);
+
+        assertEquals("""
+                graph "p.A" {
+                  label="p.A (TCC 1.00)";
+                  n_0 [label="f"];
+                  n_1 [label="g"];
+                  n_0 -- n_1;
+                }
+                """, Files.readString(Path.of(project + "_tcc_graphs", "p.A.dot")));
+    }
+
+    @Test
+    void capsEdgesOfEachNode() throws IOException {
+        String graph = Files.readString(Path.of(
+                export(DOTCohesionExporter.Layout.COMBINED, 2, COMPLETE) + "_tcc.dot"));
+
+        Map<String, Integer> degrees = degrees(graph);
+        assertTrue(degrees.values()
+                .stream()
+                .allMatch(degree -> degree <= 2), graph);
+        // The TCC is still computed from every connected pair.
+        assertTrue(graph.contains("label=\"p.Complete (TCC 1.00) [edges capped]\";"), graph);
+    }
+
+    @Test
+    void writesEveryEdgeUnderTheCap() throws IOException {
+        String graph = Files.readString(Path.of(
+                export(DOTCohesionExporter.Layout.COMBINED, 4, COMPLETE) + "_tcc.dot"));
+
+        assertFalse(graph.contains("[edges capped]"), graph);
+        assertEquals(List.of(4, 4, 4, 4, 4), List.copyOf(degrees(graph).values()));
+    }
+
+    /**
+     * Analyzes a compilation unit and exports the graphs of its classes.
+     *
+     * @param layout          Layout of the graphs.
+     * @param maxEdgesPerNode Maximal number of edges of a node.
+     * @param source          Source of the compilation unit.
+     * @return The name of the project, prefixing the exported files.
+     * @throws IOException If the graphs could not be exported.
+     */
+    private String export(DOTCohesionExporter.Layout layout, int maxEdgesPerNode, String source)
+            throws IOException {
+        String project = directory.resolve("project")
+                .toString();
+        try (CohesionUnitAnalysis analysis = new CohesionUnitAnalysis(
+                new DOTCohesionExporter(layout).open(project), maxEdgesPerNode)) {
+            analysis.accept(analysis.analyze(StaticJavaParser.parse(source)));
+        }
+        return project;
+    }
+
+    /**
+     * Counts the edges of each node of a graph.
+     *
+     * @param graph DOT graph.
+     * @return The number of edges of each node having edges, by node.
+     */
+    private static Map<String, Integer> degrees(String graph) {
+        Map<String, Integer> degrees = new HashMap<>();
+        Matcher edge = EDGE.matcher(graph);
+        while (edge.find()) {
+            degrees.merge(edge.group(1), 1, Integer::sum);
+            degrees.merge(edge.group(2), 1, Integer::sum);
+        }
+        return degrees;
+    }
+}
@@ -1,17 +1,17 @@
 package fr.istic.vv;
 
-import com.github.javaparser.Problem;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitor;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import com.github.javaparser.utils.SourceRoot;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Main {
 
@@ -27,13 +27,26 @@ public class Main {
             System.exit(2);
         }
 
-        SourceRoot root = new SourceRoot(file.toPath());
+        // Each unit is printed then dropped, so the heap does not grow with the project.
+        // The printer does not need comments. Tokens are kept: this version of the parser
+        // fails on some files without them.
+        JavaParser parser = new JavaParser(new ParserConfiguration()
+                .setAttributeComments(false));
         PublicElementsPrinter printer = new PublicElementsPrinter();
-        root.parse("", (localPath, absolutePath, result) -> {
+        for(Path path : javaFiles(file.toPath())) {
+            ParseResult<CompilationUnit> result = parser.parse(path);
             result.ifSuccessful(unit -> unit.accept(printer, null));
-            return SourceRoot.Callback.Result.DONT_SAVE;
-        });
+        }
     }
 
+    // Lists the Java files of a directory, sorted so that the output is deterministic
+    private static List<Path> javaFiles(Path root) throws IOException {
+        try(Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(path -> path.toString().endsWith(".java")
+                            && Files.isRegularFile(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
 
 }
@@ -4,11 +4,24 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.visitor.VoidVisitorWithDefaults;
 
+import java.io.PrintStream;
+
 
 // This class visits a compilation unit and
 // prints all public enum, classes or interfaces along with their public methods
 public class PublicElementsPrinter extends VoidVisitorWithDefaults<Void> {
 
+    private final PrintStream out;
+
+    public PublicElementsPrinter() {
+        this(System.out);
+    }
+
+    // Prints the elements into the given stream instead of the standard output
+    public PublicElementsPrinter(PrintStream out) {
+        this.out = out;
+    }
+
     @Override
     public void visit(CompilationUnit unit, Void arg) {
         for(TypeDeclaration<?> type : unit.getTypes()) {
@@ -18,7 +31,7 @@ public class PublicElementsPrinter extends VoidVisitorWithDefaults<Void> {
 
     public void visitTypeDeclaration(TypeDeclaration<?> declaration, Void arg) {
         if(!declaration.isPublic()) return;
-        System.out.println(declaration.getFullyQualifiedName().orElse("[Anonymous]"));
+        out.println(declaration.getFullyQualifiedName().orElse("[Anonymous]"));
         for(MethodDeclaration method : declaration.getMethods()) {
             method.accept(this, arg);
         }
@@ -42,7 +55,7 @@ public class PublicElementsPrinter extends VoidVisitorWithDefaults<Void> {
     @Override
     public void visit(MethodDeclaration declaration, Void arg) {
         if(!declaration.isPublic()) return;
-        System.out.println("  " + declaration.getDeclarationAsString(true, true));
+        out.println("  " + declaration.getDeclarationAsString(true, true));
     }
 
 }
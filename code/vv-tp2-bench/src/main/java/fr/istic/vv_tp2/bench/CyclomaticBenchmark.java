@@ -0,0 +1,76 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticUnitVisitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the computation of the cyclomatic complexity of a single method, for methods of
+ * various branch depths and with each {@link CycloEngine}. Parsing is not measured.
+ * <p>
+ * Run with the GC profiler (<code>-prof gc</code>): <code>gc.alloc.rate.norm</code> of
+ * {@link #cyclomaticComplexity()} must stay at zero bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CyclomaticBenchmark {
+
+    /**
+     * Number of nested control-flow statements of the method.
+     */
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    /**
+     * Engine evaluating the method.
+     */
+    @Param({"CFG", "DECISIONS"})
+    public CycloEngine engine;
+
+    private MethodDeclaration method;
+
+    private BlockStmt body;
+
+    private CyclomaticUnitVisitor visitor;
+
+    @Setup
+    public void setUp() {
+        visitor = new CyclomaticUnitVisitor(engine);
+        method = StaticJavaParser.parse(SyntheticSources.branchyClass(depth))
+                .findFirst(MethodDeclaration.class)
+                .orElseThrow();
+        body = method.getBody()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public int cyclomaticComplexity() {
+        return visitor.calculateCyclomaticComplexity(body);
+    }
+
+    @Benchmark
+    public int cyclomaticComplexityOfDeclaration() {
+        return visitor.calculateCyclomaticComplexity(method);
+    }
+}
@@ -0,0 +1,79 @@
+package fr.istic.vv_tp2.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.ex5.CycloAnalyzer;
+import fr.istic.vv_tp2.ex5.CycloUnitAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a whole cyclomatic complexity analysis of a generated corpus, from directory
+ * exploration to the computed entries. Exports are not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    /**
+     * Number of files of the corpus.
+     */
+    @Param({"2000"})
+    public int files;
+
+    /**
+     * Number of worker threads.
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path corpus;
+
+    @Setup
+    public void setUp() throws IOException {
+        corpus = Files.createTempDirectory("cc-corpus");
+        SyntheticSources.writeCorpus(corpus, files);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(corpus)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder())
+                    .toList())
+                Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public void analyzeDirectory(Blackhole blackhole) throws IOException {
+        List<Path> javaFiles = JavaFiles.find(corpus.toString());
+        try (CycloAnalyzer analyzer = new CycloAnalyzer(new AnalysisEngine(threads), null,
+                new CycloUnitAnalysis(blackhole::consume))) {
+            analyzer.analyze(javaFiles);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CyclomaticUnitVisitor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Compares the cyclomatic complexities computed by each {@link CycloEngine} on every method of a
+ * project, and prints the distribution of their differences along with the time spent by each
+ * engine.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar fr.istic.vv_tp2.bench.EngineAgreement &lt;folder&gt;</code>
+ */
+public class EngineAgreement {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Should have a single argument : the folder of the project");
+            System.exit(1);
+        }
+
+        CyclomaticUnitVisitor cfg = new CyclomaticUnitVisitor(CycloEngine.CFG);
+        CyclomaticUnitVisitor decisions = new CyclomaticUnitVisitor(CycloEngine.DECISIONS);
+        JavaParser parser = new JavaParser();
+
+        // Differences "decisions - cfg", by count of methods.
+        Map<Integer, Integer> differences = new TreeMap<>();
+        long cfgNanos = 0;
+        long decisionsNanos = 0;
+        int methods = 0;
+
+        List<Path> files = JavaFiles.find(args[0]);
+        for (Path file : files) {
+            Optional<CompilationUnit> unit = parser.parse(file)
+                    .getResult();
+            if (unit.isEmpty())
+                continue;
+
+            for (MethodDeclaration method : unit.get()
+                    .findAll(MethodDeclaration.class)) {
+                Optional<BlockStmt> body = method.getBody();
+                if (body.isEmpty())
+                    continue;
+
+                long start = System.nanoTime();
+                int cfgNumber = cfg.calculateCyclomaticComplexity(body.get());
+                long middle = System.nanoTime();
+                int decisionsNumber = decisions.calculateCyclomaticComplexity(body.get());
+                long end = System.nanoTime();
+
+                cfgNanos += middle - start;
+                decisionsNanos += end - middle;
+                differences.merge(decisionsNumber - cfgNumber, 1, Integer::sum);
+                methods++;
+            }
+        }
+
+        System.out.printf("%d methods in %d files%n", methods, files.size());
+        System.out.printf("cfg: %.1f ms, decisions: %.1f ms%n", cfgNanos / 1e6,
+                decisionsNanos / 1e6);
+        System.out.println("Difference (decisions - cfg),Methods");
+        differences.forEach((difference, count) -> System.out.printf("%d,%d%n", difference, count));
+    }
+}
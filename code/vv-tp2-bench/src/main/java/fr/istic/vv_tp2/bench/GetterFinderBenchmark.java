@@ -0,0 +1,60 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.istic.vv_tp2.common.CsvWriter;
+import fr.istic.vv_tp2.ex4.GetterFinderVisitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the detection of fields with no getter, on classes with many fields. Parsing is not
+ * measured.
+ * <p>
+ * Getters are looked up in an index of the methods of each class, so the time per operation must
+ * grow linearly with the number of fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetterFinderBenchmark {
+
+    /**
+     * Number of fields of the class.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int fields;
+
+    private CompilationUnit unit;
+
+    private final GetterFinderVisitor visitor = new GetterFinderVisitor();
+
+    private final CsvWriter.Batch rows = new CsvWriter.Batch();
+
+    @Setup
+    public void setUp() {
+        unit = StaticJavaParser.parse(SyntheticSources.fieldsClass(fields));
+    }
+
+    @Benchmark
+    public void findGetters() {
+        rows.clear();
+        unit.accept(visitor, new GetterFinderVisitor.VisitorParam(rows));
+    }
+}
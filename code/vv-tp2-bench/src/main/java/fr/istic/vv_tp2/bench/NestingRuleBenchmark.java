@@ -0,0 +1,70 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.istic.vv_tp2.ex3.NestingRule;
+import fr.istic.vv_tp2.ex3.NestingVisitor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass {@link NestingVisitor} with the evaluation of the XPath rule
+ * <code>//IfStatement//IfStatement//IfStatement</code>, on methods nesting <code>if</code>
+ * statements. Parsing is not measured.
+ * <p>
+ * The visitor must grow linearly with the depth, and the XPath evaluation cubically.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestingRuleBenchmark {
+
+    /**
+     * Number of nested <code>if</code> statements of each method.
+     */
+    @Param({"4", "16", "64"})
+    public int depth;
+
+    private CompilationUnit unit;
+
+    private final NestingVisitor visitor = new NestingVisitor(List.of(NestingRule.defaults()
+            .get(0)));
+
+    private int violations;
+
+    @Setup
+    public void setUp() {
+        unit = StaticJavaParser.parse(SyntheticSources.nestedIfsClass(10, depth));
+    }
+
+    @Benchmark
+    public int nestingVisitor() {
+        violations = 0;
+        unit.accept(visitor, new NestingVisitor.NestingParam(visitor,
+                violation -> violations++));
+        return violations;
+    }
+
+    @Benchmark
+    public int xpathDescendantScans() {
+        return XPathNestedIf.evaluate(unit)
+                .size();
+    }
+}
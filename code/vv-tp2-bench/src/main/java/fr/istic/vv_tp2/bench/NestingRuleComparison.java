@@ -0,0 +1,88 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.stmt.IfStmt;
+
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.ex3.NestingRule;
+import fr.istic.vv_tp2.ex3.NestingVisitor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the <code>TooMuchNestedIf</code> rule of the {@link NestingVisitor} with the
+ * evaluation of the XPath rule <code>//IfStatement//IfStatement//IfStatement</code> on every file
+ * of a project, and prints the time spent by each and the number of their violations. Parsing is
+ * not measured. Unlike the XPath rule, the visitor does not count an <code>else if</code> as
+ * nested into the <code>if</code> it follows, so it reports less statements on real code.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar fr.istic.vv_tp2.bench.NestingRuleComparison
+ * &lt;folder&gt;</code>
+ */
+public class NestingRuleComparison {
+
+    /**
+     * Number of rounds over the files of the project.
+     */
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Should have a single argument : the folder of the project");
+            System.exit(1);
+        }
+
+        NestingVisitor visitor = new NestingVisitor(List.of(NestingRule.defaults()
+                .get(0)));
+        JavaParser parser = new JavaParser();
+
+        List<Path> files = JavaFiles.find(args[0]);
+        List<CompilationUnit> units = new ArrayList<>();
+        for (Path file : files)
+            parser.parse(file)
+                    .getResult()
+                    .ifPresent(units::add);
+
+        // The last round is printed, the previous ones warming the code of both up.
+        long visitorNanos = 0;
+        long xpathNanos = 0;
+        int[] violations = new int[1];
+        int xpathViolations = 0;
+        int xpathNodes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            visitorNanos = 0;
+            xpathNanos = 0;
+            violations[0] = 0;
+            xpathViolations = 0;
+            xpathNodes = 0;
+            for (CompilationUnit unit : units) {
+                long start = System.nanoTime();
+                unit.accept(visitor, new NestingVisitor.NestingParam(visitor,
+                        violation -> violations[0]++));
+                long middle = System.nanoTime();
+                List<IfStmt> selected = XPathNestedIf.evaluate(unit);
+                long end = System.nanoTime();
+
+                visitorNanos += middle - start;
+                xpathNanos += end - middle;
+                xpathViolations += selected.size();
+                Set<IfStmt> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+                distinct.addAll(selected);
+                xpathNodes += distinct.size();
+            }
+        }
+
+        System.out.printf("%d files%n", files.size());
+        System.out.printf("visitor: %.1f ms, %d violations%n", visitorNanos / 1e6,
+                violations[0]);
+        System.out.printf("xpath: %.1f ms, %d violations on %d distinct statements%n",
+                xpathNanos / 1e6, xpathViolations, xpathNodes);
+    }
+}
@@ -0,0 +1,49 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link StaticJavaParser#parse(String)} on synthetic compilation
+ * units.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    /**
+     * Index of the synthetic unit, which determines its size.
+     */
+    @Param({"1", "6"})
+    public int unitIndex;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = SyntheticSources.unit(unitIndex);
+    }
+
+    @Benchmark
+    public CompilationUnit parse() {
+        return StaticJavaParser.parse(source);
+    }
+}
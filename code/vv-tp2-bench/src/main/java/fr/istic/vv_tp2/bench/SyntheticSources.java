@@ -0,0 +1,160 @@
+package fr.istic.vv_tp2.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates the synthetic Java sources used by the benchmarks. Generated sources are fully
+ * deterministic, so that results of different commits can be compared.
+ */
+public final class SyntheticSources {
+
+    private SyntheticSources() {
+    }
+
+    /**
+     * Generates a class declaring a single method whose body nests control-flow statements.
+     *
+     * @param depth Number of nested control-flow statements.
+     * @return Source of the class.
+     */
+    public static String branchyClass(int depth) {
+        StringBuilder source = new StringBuilder("public class Branchy {\n");
+        appendBranchyMethod(source, "branchy", depth);
+        return source.append("}\n")
+                .toString();
+    }
+
+    /**
+     * Generates a class declaring methods whose bodies nest <code>if</code> statements, each
+     * <code>if</code> being followed by a statement.
+     *
+     * @param methods Number of methods.
+     * @param depth   Number of nested <code>if</code> statements of each method.
+     * @return Source of the class.
+     */
+    public static String nestedIfsClass(int methods, int depth) {
+        StringBuilder source = new StringBuilder("public class NestedIfs {\n");
+        for (int method = 0; method < methods; method++) {
+            source.append("    public int m")
+                    .append(method)
+                    .append("(int x) {\n        int acc = 0;\n");
+            for (int level = 0; level < depth; level++)
+                source.append("        if (x > ")
+                        .append(level)
+                        .append(") {\n        acc++;\n");
+            for (int level = 0; level < depth; level++)
+                source.append("        }\n");
+            source.append("        return acc;\n    }\n");
+        }
+        return source.append("}\n")
+                .toString();
+    }
+
+    /**
+     * Generates a class declaring private fields, half of them having a getter.
+     *
+     * @param fields Number of fields.
+     * @return Source of the class.
+     */
+    public static String fieldsClass(int fields) {
+        StringBuilder source = new StringBuilder("public class Fields {\n");
+        for (int i = 0; i < fields; i++)
+            source.append("    private int field")
+                    .append(i)
+                    .append(";\n");
+        for (int i = 0; i < fields; i += 2)
+            source.append("    public int getField")
+                    .append(i)
+                    .append("() { return field")
+                    .append(i)
+                    .append("; }\n");
+        return source.append("}\n")
+                .toString();
+    }
+
+    /**
+     * Generates a compilation unit resembling an ordinary class of a project: a few fields,
+     * getters, and methods of various complexities.
+     *
+     * @param index Index of the unit, used to name its class and vary its content.
+     * @return Source of the compilation unit.
+     */
+    public static String unit(int index) {
+        StringBuilder source = new StringBuilder();
+        source.append("package bench.p")
+                .append(index % 16)
+                .append(";\n\nimport java.util.List;\n\npublic class C")
+                .append(index)
+                .append(" {\n");
+
+        int fields = 4 + index % 8;
+        for (int i = 0; i < fields; i++)
+            source.append("    private List<String> items")
+                    .append(i)
+                    .append(";\n");
+        for (int i = 0; i < fields; i += 2)
+            source.append("    public List<String> getItems")
+                    .append(i)
+                    .append("() { return items")
+                    .append(i)
+                    .append("; }\n");
+        for (int i = 0; i < 6; i++)
+            appendBranchyMethod(source, "m" + i, (index + i) % 7);
+
+        return source.append("}\n")
+                .toString();
+    }
+
+    /**
+     * Writes a corpus of compilation units into a directory, spread over sub-directories.
+     *
+     * @param directory Directory of the corpus.
+     * @param units     Number of compilation units.
+     * @throws IOException If any I/O error occurs.
+     */
+    public static void writeCorpus(Path directory, int units) throws IOException {
+        for (int i = 0; i < units; i++) {
+            Path packageDir = directory.resolve("p" + i % 16);
+            Files.createDirectories(packageDir);
+            Files.writeString(packageDir.resolve("C" + i + ".java"), unit(i),
+                    StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Appends a method whose body nests control-flow statements.
+     *
+     * @param source Source to append the method to.
+     * @param name   Name of the method.
+     * @param depth  Number of nested control-flow statements.
+     */
+    private static void appendBranchyMethod(StringBuilder source, String name, int depth) {
+        source.append("    public int ")
+                .append(name)
+                .append("(int x, int[] values) {\n        int acc = 0;\n");
+        for (int level = 0; level < depth; level++) {
+            switch (level % 4) {
+                case 0 -> source.append("        if (x > ")
+                        .append(level)
+                        .append(" && acc < 100) {\n");
+                case 1 -> source.append("        for (int i")
+                        .append(level)
+                        .append(" = 0; i")
+                        .append(level)
+                        .append(" < x; i")
+                        .append(level)
+                        .append("++) {\n");
+                case 2 -> source.append("        while (acc < x) {\n        acc++;\n");
+                default -> source.append("        for (int v : values) {\n")
+                        .append("        if (v == 0) continue;\n");
+            }
+            source.append("        acc += x > 0 ? 1 : 2;\n");
+        }
+        for (int level = 0; level < depth; level++)
+            source.append("        }\n");
+        source.append("        return acc;\n    }\n");
+    }
+}
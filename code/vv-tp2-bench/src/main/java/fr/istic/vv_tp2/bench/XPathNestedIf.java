@@ -0,0 +1,51 @@
+package fr.istic.vv_tp2.bench;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.stmt.IfStmt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the XPath rule <code>//IfStatement//IfStatement//IfStatement</code> of the custom PMD
+ * ruleset over a JavaParser AST, step by step as an XPath engine does: each step scans the
+ * descendants of every node selected by the previous step. Nodes are not deduplicated between
+ * contexts, so an <code>if</code> statement nested into <code>n</code> others is selected once
+ * per pair of its enclosing <code>if</code> statements.
+ * <p>
+ * PMD itself is not a dependency of the project: this evaluation is the baseline the
+ * {@link fr.istic.vv_tp2.ex3.NestingVisitor} is compared with.
+ */
+public final class XPathNestedIf {
+
+    private XPathNestedIf() {
+    }
+
+    /**
+     * Evaluates the rule.
+     *
+     * @param root Root of the AST, e.g. a compilation unit.
+     * @return The selected <code>if</code> statements, with duplicates.
+     */
+    public static List<IfStmt> evaluate(Node root) {
+        List<IfStmt> selected = root.findAll(IfStmt.class);
+        for (int step = 1; step < 3; step++)
+            selected = descendants(selected);
+        return selected;
+    }
+
+    /**
+     * Selects the <code>if</code> statements strictly below each context node.
+     *
+     * @param contexts Context nodes.
+     * @return The selected statements, with duplicates.
+     */
+    private static List<IfStmt> descendants(List<IfStmt> contexts) {
+        List<IfStmt> selected = new ArrayList<>();
+        for (IfStmt context : contexts)
+            for (IfStmt descendant : context.findAll(IfStmt.class))
+                if (descendant != context)
+                    selected.add(descendant);
+        return selected;
+    }
+}
@@ -0,0 +1,123 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several analyses over a project while parsing each of its files only once: each parsed
+ * compilation unit is handed to every registered {@link UnitAnalysis} before being discarded.
+ * The phases of each file are measured in the {@link RunProfile profile} of the engine.
+ * <p>
+ * The driver owns its analyses: closing it closes them, completing their reports, and measures
+ * their closing in the export phase.
+ */
+public class AnalysisDriver implements Closeable {
+
+    /**
+     * Engine processing the files.
+     */
+    private final AnalysisEngine engine;
+
+    /**
+     * Registered analyses.
+     */
+    private final List<UnitAnalysis<?>> analyses = new ArrayList<>();
+
+    /**
+     * Constructor of the class.
+     *
+     * @param engine Engine processing the files.
+     */
+    public AnalysisDriver(AnalysisEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Registers an analysis, which is closed with this driver.
+     *
+     * @param analysis Analysis to run over each compilation unit.
+     * @return This driver.
+     */
+    public AnalysisDriver add(UnitAnalysis<?> analysis) {
+        analyses.add(analysis);
+        return this;
+    }
+
+    /**
+     * Runs the registered analyses over the given files. Analyses are closed with the driver.
+     *
+     * @param files Java files to analyze.
+     * @throws IOException If any I/O error occurs.
+     */
+    public void run(List<Path> files) throws IOException {
+        RunProfile profile = engine.profile();
+        engine.run(files, (file, parser) -> {
+            RunProfile.Probe probe = profile.start();
+            ByteBuffer content = parser.load(file);
+            long size = content.remaining();
+            long lines = profile.lines(content);
+            // The file is recorded as the storage of the unit, e.g. for reports by location.
+            CompilationUnit unit = parser.parse(content)
+                    .setStorage(file);
+            long parseNanos = profile.stop(probe, RunProfile.Phase.PARSE);
+
+            Object[] results = new Object[analyses.size()];
+            for (int i = 0; i < results.length; i++)
+                results[i] = analyses.get(i)
+                        .analyze(unit);
+            profile.file(file, size, lines, parseNanos,
+                    profile.stop(probe, RunProfile.Phase.ANALYZE));
+            return results;
+        }, (file, results) -> {
+            RunProfile.Probe probe = profile.start();
+            for (int i = 0; i < results.length; i++)
+                accept(analyses.get(i), results[i]);
+            profile.stop(probe, RunProfile.Phase.EXPORT);
+        });
+    }
+
+    /**
+     * Closes the registered analyses, in their order of registration. Every analysis is closed,
+     * even if another one failed.
+     *
+     * @throws IOException If an analysis could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        RunProfile profile = engine.profile();
+        RunProfile.Probe probe = profile.start();
+        IOException failure = null;
+        for (UnitAnalysis<?> analysis : analyses) {
+            try {
+                analysis.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        profile.stop(probe, RunProfile.Phase.EXPORT);
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Hands a result to the analysis which produced it.
+     *
+     * @param analysis Analysis.
+     * @param result   Result produced by <code>analysis</code>.
+     * @param <R>      Type of the result of a compilation unit.
+     * @throws IOException If any I/O error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> void accept(UnitAnalysis<R> analysis, Object result) throws IOException {
+        analysis.accept((R) result);
+    }
+}
@@ -0,0 +1,374 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processes a set of Java files on a pool of worker threads.
+ * <p>
+ * Each worker owns its {@link SourceParser}, so files are loaded and parsed without any shared
+ * state. Results
+ * are handed to a {@link ResultConsumer} on the calling thread, in the order of the given files,
+ * so they do not depend on the scheduling of the workers. Only a bounded number of files are
+ * processed ahead of the consumer, so memory usage does not grow with the size of the project:
+ * compilation units only live on the workers, while they are analyzed, and only the results of
+ * the analyses are handed to the consumer. With {@link AnalysisOptions#boundedMemory}, a single
+ * file is processed ahead per worker.
+ * <p>
+ * When a {@link ParseFailures} report is given, files which cannot be parsed or read, or whose
+ * processing fails unexpectedly, e.g. on a bug of a visitor or on a too deep nesting, are
+ * recorded into it and skipped, instead of aborting the whole run.
+ * <p>
+ * By default, each run starts its own workers. A {@link #persistent(AnalysisOptions) persistent}
+ * engine keeps its workers, and their parsers, between runs, e.g. for a long-running server; it
+ * must be closed to stop them.
+ * <p>
+ * A {@link #profiledBy(RunProfile) profiled} engine hands its {@link RunProfile} to the
+ * processors of the files, which measure their phases in it.
+ */
+public class AnalysisEngine implements Closeable {
+
+    /**
+     * Default maximal number of files processed ahead of the consumer, per worker.
+     */
+    private static final int FILES_AHEAD_PER_THREAD = 4;
+
+    /**
+     * Number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Maximal number of files processed ahead of the consumer, per worker.
+     */
+    private final int filesAhead;
+
+    /**
+     * Parser of each worker.
+     */
+    private final ThreadLocal<SourceParser> parsers;
+
+    /**
+     * Report of the files which could not be analyzed, or <code>null</code> if such files abort
+     * the run.
+     */
+    private final ParseFailures failures;
+
+    /**
+     * Workers kept between runs, or <code>null</code> if each run starts its own workers.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Whether closing this engine stops its workers.
+     */
+    private final boolean ownsWorkers;
+
+    /**
+     * Profile of the runs, {@link RunProfile#DISABLED} if they are not profiled.
+     */
+    private final RunProfile profile;
+
+    /**
+     * Constructor of the class, for UTF-8 source files.
+     *
+     * @param threads Number of worker threads.
+     */
+    public AnalysisEngine(int threads) {
+        this(threads, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param threads Number of worker threads.
+     * @param charset Charset of the source files.
+     */
+    public AnalysisEngine(int threads, Charset charset) {
+        this.threads = threads;
+        this.filesAhead = FILES_AHEAD_PER_THREAD;
+        this.parsers = ThreadLocal.withInitial(() -> new SourceParser(charset));
+        this.failures = null;
+        this.workers = null;
+        this.ownsWorkers = false;
+        this.profile = RunProfile.DISABLED;
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param options  Options of the analysis.
+     * @param failures Report of the files which could not be analyzed, or <code>null</code> to
+     *                 abort the run on such files.
+     */
+    public AnalysisEngine(AnalysisOptions options, ParseFailures failures) {
+        Charset charset = options.charset;
+        ParserConfiguration.LanguageLevel languageLevel = options.languageLevel;
+        ParserConfiguration.LanguageLevel retryLevel = options.retryLanguageLevel;
+
+        this.threads = options.threads;
+        this.filesAhead = options.boundedMemory ? 1 : FILES_AHEAD_PER_THREAD;
+        // Each worker gets its own configurations.
+        this.parsers = ThreadLocal.withInitial(() -> new SourceParser(charset,
+                options.parserConfiguration(languageLevel),
+                retryLevel == null ? null : options.parserConfiguration(retryLevel)));
+        this.failures = failures;
+        this.workers = null;
+        this.ownsWorkers = false;
+        this.profile = RunProfile.DISABLED;
+    }
+
+    /**
+     * Constructor of the class, sharing the parsers of another engine.
+     *
+     * @param engine      Engine whose parsers are shared.
+     * @param failures    Report of the files which could not be analyzed, or <code>null</code>
+     *                    to abort the run on such files.
+     * @param workers     Workers kept between runs, or <code>null</code> if each run starts its
+     *                    own workers.
+     * @param ownsWorkers Whether closing this engine stops its workers.
+     * @param profile     Profile of the runs, {@link RunProfile#DISABLED} if they are not
+     *                    profiled.
+     */
+    private AnalysisEngine(AnalysisEngine engine, ParseFailures failures,
+            ExecutorService workers, boolean ownsWorkers, RunProfile profile) {
+        this.threads = engine.threads;
+        this.filesAhead = engine.filesAhead;
+        this.parsers = engine.parsers;
+        this.failures = failures;
+        this.workers = workers;
+        this.ownsWorkers = ownsWorkers;
+        this.profile = profile;
+    }
+
+    /**
+     * Creates an engine keeping its workers, and their warmed-up parsers, between runs. Its
+     * workers are daemon threads, stopped when the engine is closed. Files which cannot be
+     * analyzed abort the run, unless a report is given with {@link #reportingTo(ParseFailures)}.
+     *
+     * @param options Options of the analysis.
+     * @return The persistent engine.
+     */
+    public static AnalysisEngine persistent(AnalysisOptions options) {
+        AnalysisEngine engine = new AnalysisEngine(options, null);
+        ExecutorService workers = Executors.newFixedThreadPool(engine.threads, task -> {
+            Thread worker = new Thread(task, "analysis-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        return new AnalysisEngine(engine, null, workers, true, RunProfile.DISABLED);
+    }
+
+    /**
+     * Gets an engine sharing the workers and parsers of this engine, which records the files
+     * which could not be analyzed into a report.
+     *
+     * @param failures Report of the files which could not be analyzed, or <code>null</code> to
+     *                 abort the run on such files.
+     * @return The engine. Closing it does not stop the workers of this engine.
+     */
+    public AnalysisEngine reportingTo(ParseFailures failures) {
+        return new AnalysisEngine(this, failures, workers, false, profile);
+    }
+
+    /**
+     * Gets an engine sharing the workers, parsers and report of this engine, whose runs are
+     * measured in a profile.
+     *
+     * @param profile Profile of the runs, {@link RunProfile#DISABLED} if they are not profiled.
+     * @return The engine. Closing it does not stop the workers of this engine.
+     */
+    public AnalysisEngine profiledBy(RunProfile profile) {
+        return new AnalysisEngine(this, failures, workers, false, profile);
+    }
+
+    /**
+     * Gets the profile of the runs of this engine.
+     *
+     * @return The profile, {@link RunProfile#DISABLED} if the runs are not profiled.
+     */
+    public RunProfile profile() {
+        return profile;
+    }
+
+    /**
+     * Processes the given files.
+     *
+     * @param files     Java files to process.
+     * @param processor Processing applied to each file, on a worker thread.
+     * @param consumer  Consumer of the results, called on the calling thread in the order of
+     *                  <code>files</code>.
+     * @param <R>       Type of the result of a file.
+     * @throws IOException If any I/O error occurs.
+     */
+    public <R> void run(List<Path> files, FileProcessor<R> processor,
+            ResultConsumer<R> consumer) throws IOException {
+        ExecutorService executor = workers != null ? workers
+                : Executors.newFixedThreadPool(threads);
+        Deque<Pending<R>> pending = new ArrayDeque<>();
+        try {
+            int maxPending = threads * filesAhead;
+
+            for (Path file : files) {
+                if (pending.size() == maxPending)
+                    pending.poll()
+                            .drain(consumer, failures);
+                pending.add(new Pending<>(file,
+                        executor.submit(() -> processor.process(file, parsers.get()))));
+            }
+            while (!pending.isEmpty())
+                pending.poll()
+                        .drain(consumer, failures);
+        } finally {
+            // Files left pending by a failure are not processed.
+            for (Pending<R> file : pending)
+                file.result()
+                        .cancel(true);
+            if (workers == null)
+                executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops the workers of a persistent engine. Other engines start their workers for each run, or
+     * share the workers of another engine, so there is nothing to stop.
+     */
+    @Override
+    public void close() {
+        if (ownsWorkers)
+            workers.shutdownNow();
+    }
+
+    /**
+     * Gets the compilation unit of a parsing result.
+     *
+     * @param result Result of the parsing of a compilation unit.
+     * @return The parsed compilation unit.
+     * @throws ParseProblemException If the compilation unit could not be parsed.
+     */
+    public static CompilationUnit unit(ParseResult<CompilationUnit> result) {
+        if (!result.isSuccessful())
+            throw new ParseProblemException(result.getProblems());
+        return result.getResult()
+                .orElseThrow();
+    }
+
+    /**
+     * Waits for the result of a worker, and rethrows its failure if any.
+     *
+     * @param future Pending result.
+     * @param <T>    Type of the result.
+     * @return The result of the worker.
+     * @throws IOException If the worker failed with an I/O error.
+     */
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw (IOException) new InterruptedIOException("analysis interrupted").initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException)
+                throw ioException;
+            if (cause instanceof UncheckedIOException uncheckedIOException)
+                throw uncheckedIOException.getCause();
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (cause instanceof Error error)
+                throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Processing applied to each file.
+     *
+     * @param <R> Type of the result of a file.
+     */
+    @FunctionalInterface
+    public interface FileProcessor<R> {
+        /**
+         * Processes a file.
+         *
+         * @param file   Java file to process.
+         * @param parser Parser of the current worker.
+         * @return The result of the file.
+         * @throws IOException If any I/O error occurs.
+         */
+        R process(Path file, SourceParser parser) throws IOException;
+    }
+
+    /**
+     * Consumer of the results of the files.
+     *
+     * @param <R> Type of the result of a file.
+     */
+    @FunctionalInterface
+    public interface ResultConsumer<R> {
+        /**
+         * Receives the result of a file.
+         *
+         * @param file   Processed Java file.
+         * @param result Result of the file.
+         * @throws IOException If any I/O error occurs.
+         */
+        void accept(Path file, R result) throws IOException;
+    }
+
+    /**
+     * File being processed by a worker.
+     *
+     * @param file   Java file.
+     * @param result Pending result of the file.
+     * @param <R>    Type of the result of a file.
+     */
+    private record Pending<R>(Path file, Future<R> result) {
+        /**
+         * Waits for the result and hands it to a consumer, or records the failure of the file.
+         *
+         * @param consumer Consumer of the results.
+         * @param failures Report of the files which could not be analyzed, or <code>null</code>
+         *                 to rethrow failures.
+         * @throws IOException If any I/O error occurs.
+         */
+        void drain(ResultConsumer<R> consumer, ParseFailures failures) throws IOException {
+            R value;
+            try {
+                value = await(result);
+            } catch (ParseProblemException e) {
+                if (failures == null)
+                    throw e;
+                failures.recordProblems(file, e.getProblems());
+                return;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException | RuntimeException | StackOverflowError e) {
+                // Only this file failed: the workers and the other files are not affected.
+                if (failures == null)
+                    throw e;
+                failures.recordError(file, e);
+                return;
+            }
+            consumer.accept(file, value);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ParserConfiguration;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Command line options shared by the analysis programs. Programs with specific options extend
+ * this class and override {@link #parseOption(String[], int)}.
+ * <p>
+ * Analyzed files are selected by <code>--include &lt;glob&gt;</code> (defaults to
+ * <code>*.java</code>) and <code>--exclude &lt;glob&gt;</code>, both repeatable,
+ * <code>--no-default-excludes</code> to explore the directories excluded by default and
+ * <code>--gitignore</code> to honor <code>.gitignore</code> files.
+ * <p>
+ * Files are parsed at the level given by <code>--language-level &lt;level&gt;</code> (e.g.
+ * <code>JAVA_17</code> or <code>17</code>, defaults to the level of the parser), and files which
+ * cannot be parsed are parsed again at the level given by
+ * <code>--retry-language-level &lt;level&gt;</code>, if any.
+ * <p>
+ * With <code>--bounded-memory</code>, the parsers neither attribute comments to nodes nor keep
+ * tokens, unless the analyses {@link #needsPositions() need positions}, and fewer files are
+ * processed ahead, so that the heap needed does not depend on the size of the project.
+ * <p>
+ * With <code>--profile &lt;file&gt;</code>, the run is {@link RunProfile profiled}, and its
+ * summary, listing the <code>--slowest-files &lt;count&gt;</code> slowest files (defaults to
+ * 10), is written to the file in JSON.
+ *
+ * @see SourceFilter
+ */
+public class AnalysisOptions {
+
+    /**
+     * Path of the project to analyze.
+     */
+    public String path;
+
+    /**
+     * Number of worker threads used to parse and analyze files.
+     */
+    public int threads = Runtime.getRuntime()
+            .availableProcessors();
+
+    /**
+     * Charset of the source files.
+     */
+    public Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * Globs of the included files, or an empty list to include Java files.
+     */
+    public final List<String> includes = new ArrayList<>();
+
+    /**
+     * Globs of the excluded files and directories, in addition to the default ones.
+     */
+    public final List<String> excludes = new ArrayList<>();
+
+    /**
+     * Whether the directories excluded by default are excluded.
+     */
+    public boolean defaultExcludes = true;
+
+    /**
+     * Whether <code>.gitignore</code> files are honored.
+     */
+    public boolean gitignore = false;
+
+    /**
+     * Language level of the source files, or <code>null</code> for the default level of the
+     * parser.
+     */
+    public ParserConfiguration.LanguageLevel languageLevel = null;
+
+    /**
+     * Language level at which files which could not be parsed are parsed again, or
+     * <code>null</code> to not retry them.
+     */
+    public ParserConfiguration.LanguageLevel retryLanguageLevel = null;
+
+    /**
+     * Whether memory usage is kept as low as possible.
+     */
+    public boolean boundedMemory = false;
+
+    /**
+     * File the profile of the run is written to, or <code>null</code> if the run is not profiled.
+     */
+    public Path profileFile = null;
+
+    /**
+     * Number of slowest files listed by the profile of the run.
+     */
+    public int slowestFiles = 10;
+
+    /**
+     * Parses the program's arguments into this object.
+     *
+     * @param args Program's arguments.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public final void parseArgs(String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            int next = parseOption(args, i);
+            if (next >= 0) {
+                i = next;
+                continue;
+            }
+
+            if (args[i].startsWith("--") || path != null)
+                throw new IllegalArgumentException("unexpected argument: " + args[i]);
+            path = args[i++];
+        }
+
+        if (path == null && requiresPath())
+            throw new IllegalArgumentException(
+                    "no inputFile provided: please provide at least one inputFile path.");
+
+        // Report malformed globs along with the other malformed arguments.
+        try {
+            sourceFilter();
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("invalid glob: " + e.getPattern());
+        }
+    }
+
+    /**
+     * Parses the option at a given index of the program's arguments.
+     *
+     * @param args  Program's arguments.
+     * @param index Index of the option in <code>args</code>.
+     * @return The index of the argument following the option, or <code>-1</code> if
+     *         <code>args[index]</code> is not an option known by this object.
+     * @throws IllegalArgumentException If the option is malformed.
+     */
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        switch (option) {
+            case "--threads" -> threads = parsePositive(option, value(args, index + 1, option));
+            case "--charset" -> charset = parseCharset(option, value(args, index + 1, option));
+            case "--include" -> includes.add(value(args, index + 1, option));
+            case "--exclude" -> excludes.add(value(args, index + 1, option));
+            case "--language-level" ->
+                    languageLevel = parseLanguageLevel(option, value(args, index + 1, option));
+            case "--retry-language-level" -> retryLanguageLevel =
+                    parseLanguageLevel(option, value(args, index + 1, option));
+            case "--profile" -> profileFile = Path.of(value(args, index + 1, option));
+            case "--slowest-files" ->
+                    slowestFiles = parsePositive(option, value(args, index + 1, option));
+            case "--no-default-excludes" -> {
+                defaultExcludes = false;
+                return index + 1;
+            }
+            case "--gitignore" -> {
+                gitignore = true;
+                return index + 1;
+            }
+            case "--bounded-memory" -> {
+                boundedMemory = true;
+                return index + 1;
+            }
+            default -> {
+                return -1;
+            }
+        }
+        return index + 2;
+    }
+
+    /**
+     * Tells whether the path of the project must be given. Programs which receive their paths
+     * otherwise, e.g. from requests, override this method.
+     *
+     * @return <code>true</code> if a missing path is an error.
+     */
+    protected boolean requiresPath() {
+        return true;
+    }
+
+    /**
+     * Tells whether the analyses need the positions of the nodes in their files, e.g. to report
+     * line numbers. Without positions, the parsers do not need to keep the tokens of the files.
+     * Programs whose analyses need positions override this method.
+     *
+     * @return <code>true</code> if the nodes must have positions.
+     */
+    public boolean needsPositions() {
+        return false;
+    }
+
+    /**
+     * Builds the configuration of a parser.
+     *
+     * @param level Language level of the parser, or <code>null</code> for the default level.
+     * @return A new configuration, as described by the options.
+     */
+    public ParserConfiguration parserConfiguration(ParserConfiguration.LanguageLevel level) {
+        ParserConfiguration configuration = new ParserConfiguration();
+        if (level != null)
+            configuration.setLanguageLevel(level);
+        if (boundedMemory)
+            configuration.setAttributeComments(false)
+                    .setStoreTokens(needsPositions());
+        return configuration;
+    }
+
+    /**
+     * Builds the filter selecting the files to analyze.
+     *
+     * @return The filter described by the options.
+     * @throws IllegalArgumentException If a glob is malformed.
+     */
+    public SourceFilter sourceFilter() {
+        List<String> excludedGlobs = new ArrayList<>();
+        if (defaultExcludes)
+            excludedGlobs.addAll(SourceFilter.DEFAULT_EXCLUDES);
+        excludedGlobs.addAll(excludes);
+
+        return new SourceFilter(includes.isEmpty() ? SourceFilter.DEFAULT_INCLUDES : includes,
+                excludedGlobs, gitignore);
+    }
+
+    /**
+     * Gets the value of an option.
+     *
+     * @param args   Program's arguments.
+     * @param index  Index of the value in <code>args</code>.
+     * @param option Name of the option.
+     * @return The value of the option.
+     * @throws IllegalArgumentException If the value is missing.
+     */
+    protected static String value(String[] args, int index, String option) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("missing value for option " + option);
+        return args[index];
+    }
+
+    /**
+     * Parses a strictly positive integer option value.
+     *
+     * @param option Name of the option.
+     * @param value  Value of the option.
+     * @return The parsed value.
+     * @throws IllegalArgumentException If the value is not a strictly positive integer.
+     */
+    protected static int parsePositive(String option, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0)
+                return parsed;
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(
+                "invalid value for option " + option + ": " + value);
+    }
+
+    /**
+     * Parses a language level option value, either the name of a level or a Java version.
+     *
+     * @param option Name of the option.
+     * @param value  Value of the option.
+     * @return The language level named by the value.
+     * @throws IllegalArgumentException If the value does not name a language level.
+     */
+    protected static ParserConfiguration.LanguageLevel parseLanguageLevel(String option,
+            String value) {
+        String name = value.toUpperCase(Locale.ROOT);
+        if (!name.isEmpty() && Character.isDigit(name.charAt(0)))
+            name = "JAVA_" + name.replace('.', '_');
+        try {
+            return ParserConfiguration.LanguageLevel.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "invalid value for option " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Parses a charset option value.
+     *
+     * @param option Name of the option.
+     * @param value  Value of the option.
+     * @return The charset named by the value.
+     * @throws IllegalArgumentException If the value does not name a supported charset.
+     */
+    protected static Charset parseCharset(String option, String value) {
+        try {
+            return Charset.forName(value);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new IllegalArgumentException(
+                    "invalid value for option " + option + ": " + value);
+        }
+    }
+}
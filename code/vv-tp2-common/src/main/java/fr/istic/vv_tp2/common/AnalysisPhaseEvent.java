@@ -0,0 +1,38 @@
+package fr.istic.vv_tp2.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a phase of a profiled run, emitted at its end with the totals of the
+ * phase.
+ *
+ * @see RunProfile
+ */
+@Name("fr.istic.vv_tp2.AnalysisPhase")
+@Label("Analysis Phase")
+@Category({"VV TP2", "Analysis"})
+@Description("Totals of a phase of an analysis run, summed over the threads running it")
+@StackTrace(false)
+class AnalysisPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Wall Time")
+    @Timespan
+    long wallTime;
+
+    @Label("CPU Time")
+    @Timespan
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,256 @@
+package fr.istic.vv_tp2.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lines changed in the files of a project, read from a unified diff, such as the output of
+ * <code>git diff --relative</code>.
+ * <p>
+ * Only the new version of each file matters: a line is changed when it was added, and the lines
+ * surrounding removed lines are changed too, so that a removal inside a method marks this method as
+ * changed. Context lines are not changed, so diffs may be produced with any amount of context.
+ * Deleted files are ignored.
+ */
+public class ChangedLines {
+
+    /**
+     * Prefix of the header line naming the new version of a file.
+     */
+    private static final String NEW_FILE = "+++ ";
+
+    /**
+     * Prefix of the header line of a hunk.
+     */
+    private static final String HUNK = "@@ ";
+
+    /**
+     * Changed line ranges of each changed file, by path.
+     */
+    private final Map<Path, Ranges> files = new LinkedHashMap<>();
+
+    /**
+     * Reads the changed lines of a unified diff.
+     *
+     * @param diffFile Path of the diff.
+     * @param root     Directory the paths of the diff are relative to.
+     * @return The changed lines.
+     * @throws IOException If the diff could not be read, or is malformed.
+     */
+    public static ChangedLines parse(Path diffFile, Path root) throws IOException {
+        ChangedLines changes = new ChangedLines();
+        try (BufferedReader reader = Files.newBufferedReader(diffFile, StandardCharsets.UTF_8)) {
+            Ranges ranges = null;
+            // Position in the current hunk: next line of the new version, and remaining lines of
+            // each version.
+            int[] hunk = new int[3];
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (hunk[1] > 0 || hunk[2] > 0)
+                    readHunkLine(line, hunk, ranges);
+                else if (line.startsWith(NEW_FILE)) {
+                    Path file = newFile(line.substring(NEW_FILE.length()));
+                    ranges = file == null ? null
+                            : changes.files.computeIfAbsent(root.resolve(file),
+                                    ignored -> new Ranges());
+                } else if (line.startsWith(HUNK))
+                    readHunkHeader(line, hunk, diffFile, lineNumber);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads a line of the body of a hunk.
+     *
+     * @param line   Line of the hunk.
+     * @param hunk   Position in the hunk, updated.
+     * @param ranges Changed line ranges of the file of the hunk, or <code>null</code> if the
+     *               file was deleted.
+     */
+    private static void readHunkLine(String line, int[] hunk, Ranges ranges) {
+        switch (line.isEmpty() ? ' ' : line.charAt(0)) {
+            case '+' -> {
+                if (ranges != null)
+                    ranges.add(hunk[0], hunk[0]);
+                hunk[0]++;
+                hunk[2]--;
+            }
+            case '-' -> {
+                // The lines around a removal are changed.
+                if (ranges != null)
+                    ranges.add(Math.max(1, hunk[0] - 1), hunk[0]);
+                hunk[1]--;
+            }
+            case '\\' -> {
+                // "\ No newline at end of file"
+            }
+            default -> {
+                hunk[0]++;
+                hunk[1]--;
+                hunk[2]--;
+            }
+        }
+    }
+
+    /**
+     * Gets the path of the new version of a file, from its header line.
+     *
+     * @param name Name of the file in its header line.
+     * @return The path of the file, relative to the root of the diff, or <code>null</code> if
+     *         the file was deleted.
+     */
+    private static Path newFile(String name) {
+        // Plain diffs append a timestamp after a tab.
+        int tab = name.indexOf('\t');
+        if (tab >= 0)
+            name = name.substring(0, tab);
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\""))
+            name = name.substring(1, name.length() - 1);
+        if (name.equals("/dev/null"))
+            return null;
+        if (name.startsWith("b/"))
+            name = name.substring(2);
+        return Path.of(name);
+    }
+
+    /**
+     * Reads the header line of a hunk, e.g. <code>@@ -10,2 +12,3 @@</code>.
+     *
+     * @param line       Header line of the hunk.
+     * @param hunk       Position in the hunk, set to its start.
+     * @param diffFile   Path of the diff.
+     * @param lineNumber Number of the line in the diff.
+     * @throws IOException If the header is malformed.
+     */
+    private static void readHunkHeader(String line, int[] hunk, Path diffFile, int lineNumber)
+            throws IOException {
+        int oldStart = HUNK.length();
+        int newStart = line.indexOf(" +", oldStart);
+        int newEnd = newStart < 0 ? -1 : line.indexOf(' ', newStart + 2);
+        if (!line.startsWith("-", oldStart) || newEnd < 0)
+            throw new IOException(diffFile + ":" + lineNumber + ": malformed hunk header");
+
+        try {
+            int[] oldRange = range(line.substring(oldStart + 1, newStart));
+            int[] newRange = range(line.substring(newStart + 2, newEnd));
+            // Hunks adding no line start before their position.
+            hunk[0] = newRange[1] == 0 ? newRange[0] + 1 : newRange[0];
+            hunk[1] = oldRange[1];
+            hunk[2] = newRange[1];
+        } catch (NumberFormatException e) {
+            throw new IOException(diffFile + ":" + lineNumber + ": malformed hunk header");
+        }
+    }
+
+    /**
+     * Parses a range of a hunk header, e.g. <code>12,3</code>, or <code>12</code> for a single
+     * line.
+     *
+     * @param range Range.
+     * @return The first line and the number of lines of the range.
+     * @throws NumberFormatException If the range is malformed.
+     */
+    private static int[] range(String range) {
+        int comma = range.indexOf(',');
+        if (comma < 0)
+            return new int[] {Integer.parseInt(range), 1};
+        return new int[] {Integer.parseInt(range.substring(0, comma)),
+                Integer.parseInt(range.substring(comma + 1))};
+    }
+
+    /**
+     * Gets the changed files.
+     *
+     * @return The paths of the changed files, resolved against the root of the diff, in the order
+     *         of the diff.
+     */
+    public Set<Path> files() {
+        return files.keySet();
+    }
+
+    /**
+     * Gets the changed lines of a file.
+     *
+     * @param file Path of the file, resolved against the root of the diff.
+     * @return The changed line ranges of the file, empty if it was not changed.
+     */
+    public Ranges ranges(Path file) {
+        Ranges ranges = files.get(file);
+        return ranges == null ? new Ranges() : ranges;
+    }
+
+    /**
+     * Sorted ranges of changed lines of a file.
+     */
+    public static final class Ranges {
+
+        /**
+         * First and last lines of each range, inclusive, range after range.
+         */
+        private int[] bounds = new int[8];
+
+        /**
+         * Number of ranges.
+         */
+        private int count = 0;
+
+        /**
+         * Adds a range of lines, after the ranges already added.
+         *
+         * @param first First line, inclusive.
+         * @param last  Last line, inclusive.
+         */
+        void add(int first, int last) {
+            // Diffs list lines in order, so ranges are merged as they come.
+            if (count > 0 && first <= bounds[2 * count - 1] + 1) {
+                bounds[2 * count - 1] = Math.max(bounds[2 * count - 1], last);
+                return;
+            }
+            if (2 * count == bounds.length)
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            bounds[2 * count] = first;
+            bounds[2 * count + 1] = last;
+            count++;
+        }
+
+        /**
+         * Tells whether a range of lines holds a changed line.
+         *
+         * @param first First line, inclusive.
+         * @param last  Last line, inclusive.
+         * @return <code>true</code> if a line of the range was changed.
+         */
+        public boolean overlaps(int first, int last) {
+            // Find the first range ending at or after the first line.
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (bounds[2 * middle + 1] < first)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low < count && bounds[2 * low] <= last;
+        }
+
+        /**
+         * Tells whether no line was changed.
+         *
+         * @return <code>true</code> if there is no range.
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+    }
+}
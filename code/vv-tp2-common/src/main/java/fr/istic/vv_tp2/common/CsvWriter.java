@@ -0,0 +1,283 @@
+package fr.istic.vv_tp2.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes CSV files in UTF-8, quoting fields as specified by RFC 4180: fields holding a comma, a
+ * double quote or a line break are enclosed in double quotes, and their double quotes are doubled.
+ * <p>
+ * Rows are built into {@link Batch batches} without formatting nor locking, and written through a
+ * buffered file channel. Several threads may build their own batches and {@link #append(Batch)}
+ * them concurrently: each batch is written as a whole. Rows may also be written directly with
+ * {@link #field(CharSequence)} and {@link #endRow()}, from a single thread.
+ */
+public class CsvWriter implements Closeable {
+
+    /**
+     * Number of buffered characters from which rows are written to the file.
+     */
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    /**
+     * Channel to the CSV file.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Encoder of the rows.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Rows not written to the file yet.
+     */
+    private final Batch pending = new Batch();
+
+    /**
+     * Characters being encoded.
+     */
+    private char[] chars = new char[FLUSH_THRESHOLD];
+
+    /**
+     * Bytes being written to the file.
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(FLUSH_THRESHOLD);
+
+    /**
+     * Constructor of the class. The file is created, or truncated if it already exists.
+     *
+     * @param file CSV file.
+     * @throws IOException If the file could not be opened.
+     */
+    public CsvWriter(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Constructor of the class, writing to a channel, e.g. to a socket. Closing the writer
+     * closes the channel.
+     *
+     * @param channel Channel receiving the CSV file.
+     */
+    public CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a row of fields, e.g. the header of the file.
+     *
+     * @param fields Fields of the row.
+     * @return This writer.
+     * @throws IOException If any I/O error occurs.
+     */
+    public synchronized CsvWriter row(String... fields) throws IOException {
+        for (String field : fields)
+            pending.field(field);
+        return endRow();
+    }
+
+    /**
+     * Adds a field to the current row.
+     *
+     * @param value Value of the field.
+     * @return This writer.
+     */
+    public synchronized CsvWriter field(CharSequence value) {
+        pending.field(value);
+        return this;
+    }
+
+    /**
+     * Adds a numeric field to the current row.
+     *
+     * @param value Value of the field.
+     * @return This writer.
+     */
+    public synchronized CsvWriter field(long value) {
+        pending.field(value);
+        return this;
+    }
+
+    /**
+     * Ends the current row.
+     *
+     * @return This writer.
+     * @throws IOException If any I/O error occurs.
+     */
+    public synchronized CsvWriter endRow() throws IOException {
+        pending.endRow();
+        if (pending.text.length() >= FLUSH_THRESHOLD)
+            flushRows();
+        return this;
+    }
+
+    /**
+     * Appends the rows of a batch, as a whole. The batch is left unchanged.
+     *
+     * @param batch Batch of rows.
+     * @throws IOException If any I/O error occurs.
+     */
+    public synchronized void append(Batch batch) throws IOException {
+        pending.text.append(batch.text);
+        if (pending.text.length() >= FLUSH_THRESHOLD)
+            flushRows();
+    }
+
+    /**
+     * Encodes the pending rows and writes them to the file.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void flushRows() throws IOException {
+        int length = pending.text.length();
+        if (chars.length < length)
+            chars = new char[length];
+        pending.text.getChars(0, length, chars, 0);
+        pending.clear();
+
+        CharBuffer input = CharBuffer.wrap(chars, 0, length);
+        CoderResult result;
+        do {
+            result = encoder.encode(input, bytes, true);
+            if (result.isError())
+                result.throwException();
+            writeBytes();
+        } while (result.isOverflow());
+        encoder.reset();
+    }
+
+    /**
+     * Writes the encoded bytes to the file.
+     *
+     * @throws IOException If any I/O error occurs.
+     */
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try (channel) {
+            flushRows();
+        }
+    }
+
+    /**
+     * Rows of a CSV file, built in memory. A batch is not thread-safe: each thread builds its own
+     * batches.
+     */
+    public static class Batch {
+
+        /**
+         * Text of the rows.
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * Whether the next field starts a row.
+         */
+        private boolean rowStart = true;
+
+        /**
+         * Adds a field to the current row.
+         *
+         * @param value Value of the field.
+         * @return This batch.
+         */
+        public Batch field(CharSequence value) {
+            separate();
+            if (!needsQuotes(value)) {
+                text.append(value);
+                return this;
+            }
+
+            text.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"')
+                    text.append('"');
+                text.append(c);
+            }
+            text.append('"');
+            return this;
+        }
+
+        /**
+         * Adds a numeric field to the current row.
+         *
+         * @param value Value of the field.
+         * @return This batch.
+         */
+        public Batch field(long value) {
+            separate();
+            text.append(value);
+            return this;
+        }
+
+        /**
+         * Ends the current row.
+         *
+         * @return This batch.
+         */
+        public Batch endRow() {
+            text.append(System.lineSeparator());
+            rowStart = true;
+            return this;
+        }
+
+        /**
+         * Tells whether the batch holds no row.
+         *
+         * @return <code>true</code> if the batch is empty.
+         */
+        public boolean isEmpty() {
+            return text.isEmpty();
+        }
+
+        /**
+         * Removes all rows of the batch, so that it can be reused.
+         */
+        public void clear() {
+            text.setLength(0);
+            rowStart = true;
+        }
+
+        /**
+         * Separates a new field from the previous one of its row.
+         */
+        private void separate() {
+            if (!rowStart)
+                text.append(',');
+            rowStart = false;
+        }
+
+        /**
+         * Tells whether a field must be quoted.
+         *
+         * @param value Value of the field.
+         * @return <code>true</code> if the value holds a comma, a double quote or a line break.
+         */
+        private static boolean needsQuotes(CharSequence value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                    return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package fr.istic.vv_tp2.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a file analyzed by a profiled run.
+ *
+ * @see RunProfile
+ */
+@Name("fr.istic.vv_tp2.FileAnalysis")
+@Label("File Analysis")
+@Category({"VV TP2", "Analysis"})
+@Description("Java file loaded, parsed and analyzed by a worker")
+@StackTrace(false)
+class FileAnalysisEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Lines")
+    long lines;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseTime;
+
+    @Label("Analyze Time")
+    @Timespan
+    long analyzeTime;
+}
@@ -0,0 +1,176 @@
+package fr.istic.vv_tp2.common;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds the Java files of a project.
+ */
+public final class JavaFiles {
+
+    /**
+     * Order of paths by name, directory level after directory level: the order of a depth-first
+     * traversal exploring the children of each directory by name.
+     */
+    private static final Comparator<Path> BY_NAMES = (path1, path2) -> {
+        int count = Math.min(path1.getNameCount(), path2.getNameCount());
+        for (int i = 0; i < count; i++) {
+            int comparison = path1.getName(i)
+                    .compareTo(path2.getName(i));
+            if (comparison != 0)
+                return comparison;
+        }
+        return Integer.compare(path1.getNameCount(), path2.getNameCount());
+    };
+
+    private JavaFiles() {
+    }
+
+    /**
+     * Finds recursively the <code>.java</code> files of a directory, outside of the directories
+     * excluded by default.
+     *
+     * @param path Directory's path.
+     * @return The Java files found inside the directory.
+     * @throws IOException If the directory could not be explored.
+     * @see #find(Path, SourceFilter)
+     */
+    public static List<Path> find(String path) throws IOException {
+        return find(Path.of(path), SourceFilter.defaults());
+    }
+
+    /**
+     * Finds recursively the files of a directory selected by a filter. Excluded directories are
+     * not explored. Symbolic links to directories are not followed. Files are sorted by name,
+     * directory level after directory level, so that the list of found files is deterministic.
+     *
+     * @param root   Directory's path.
+     * @param filter Filter selecting the files.
+     * @return The files found inside the directory.
+     * @throws IOException If the directory could not be explored.
+     */
+    public static List<Path> find(Path root, SourceFilter filter) throws IOException {
+        List<Path> javaFiles = new ArrayList<>();
+        Deque<SourceFilter.Ignores> ignores = new ArrayDeque<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes)
+                    throws IOException {
+                if (!dir.equals(root) && (filter.excludesDirectory(root.relativize(dir))
+                        || isIgnored(ignores, dir, true)))
+                    return FileVisitResult.SKIP_SUBTREE;
+
+                if (filter.gitignore) {
+                    SourceFilter.Ignores dirIgnores = SourceFilter.Ignores.load(dir);
+                    if (dirIgnores != null)
+                        ignores.push(dirIgnores);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                // Symbolic links to files are kept, but links to directories are not followed.
+                boolean regularFile = attributes.isRegularFile()
+                        || attributes.isSymbolicLink() && Files.isRegularFile(file);
+                Path relativePath = file.equals(root) ? file.getFileName()
+                        : root.relativize(file);
+                if (regularFile && filter.includesFile(relativePath)
+                        && !isIgnored(ignores, file, false))
+                    javaFiles.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (file.equals(root))
+                    throw e;
+                System.err.println("warning: skipping unreadable " + file + ": " + e);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                if (!ignores.isEmpty() && ignores.peek()
+                        .directory()
+                        .equals(dir))
+                    ignores.pop();
+                if (e != null)
+                    System.err.println("warning: could not fully explore " + dir + ": " + e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        javaFiles.sort(BY_NAMES);
+        return javaFiles;
+    }
+
+    /**
+     * Selects, among given files of a directory, the existing files selected by a filter, as
+     * {@link #find(Path, SourceFilter)} would find them, without exploring the directory. Files
+     * inside an excluded directory are not selected. <code>.gitignore</code> files are not
+     * read.
+     *
+     * @param root   Directory's path.
+     * @param files  Paths of files, resolved against the directory.
+     * @param filter Filter selecting the files.
+     * @return The selected files, sorted as {@link #find(Path, SourceFilter)} sorts them.
+     */
+    public static List<Path> select(Path root, Collection<Path> files, SourceFilter filter) {
+        List<Path> javaFiles = new ArrayList<>();
+        for (Path file : files) {
+            Path relativePath = root.relativize(file);
+            if (Files.isRegularFile(file) && filter.includesFile(relativePath)
+                    && !inExcludedDirectory(relativePath, filter))
+                javaFiles.add(file);
+        }
+
+        javaFiles.sort(BY_NAMES);
+        return javaFiles;
+    }
+
+    /**
+     * Tells whether a file is inside a directory excluded by a filter.
+     *
+     * @param relativePath Path of the file, relative to the project.
+     * @param filter       Filter.
+     * @return <code>true</code> if a directory of the path is excluded.
+     */
+    private static boolean inExcludedDirectory(Path relativePath, SourceFilter filter) {
+        for (Path dir = relativePath.getParent(); dir != null; dir = dir.getParent())
+            if (filter.excludesDirectory(dir))
+                return true;
+        return false;
+    }
+
+    /**
+     * Tells whether a path is ignored by the <code>.gitignore</code> files of its directories.
+     * The deepest file matching the path decides, as Git does.
+     *
+     * @param ignores   Patterns of the <code>.gitignore</code> files of the directories of the
+     *                  path, deepest first.
+     * @param path      Path of the file or directory.
+     * @param directory Whether the path is a directory.
+     * @return <code>true</code> if the path is ignored.
+     */
+    private static boolean isIgnored(Deque<SourceFilter.Ignores> ignores, Path path,
+            boolean directory) {
+        for (SourceFilter.Ignores dirIgnores : ignores) {
+            Boolean ignored = dirIgnores.ignores(path, directory);
+            if (ignored != null)
+                return ignored;
+        }
+        return false;
+    }
+}
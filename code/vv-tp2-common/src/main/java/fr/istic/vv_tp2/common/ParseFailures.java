@@ -0,0 +1,142 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Problem;
+import com.github.javaparser.TokenRange;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Side report of the files which could not be analyzed, so that an analysis goes on when a file
+ * cannot be parsed or read, or when its analysis fails. Each problem of a file is written as a row of a CSV file. Closing
+ * the report closes the file.
+ */
+public class ParseFailures implements Closeable {
+
+    /**
+     * Header of the CSV report.
+     */
+    static final String[] CSV_HEADER = {"File", "Line", "Column", "Problem"};
+
+    /**
+     * Report file, or <code>null</code> if the report is not written to a file.
+     */
+    private final File reportFile;
+
+    /**
+     * Writer of the report file.
+     */
+    private final CsvWriter output;
+
+    /**
+     * Number of files which could not be analyzed.
+     */
+    private int failedFiles = 0;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param reportFile CSV report file.
+     * @throws IOException If the report file could not be opened.
+     */
+    public ParseFailures(File reportFile) throws IOException {
+        this(reportFile, new CsvWriter(reportFile.toPath()));
+    }
+
+    /**
+     * Constructor of the class, writing the report to a CSV writer, e.g. to answer a request.
+     * Closing the report closes the writer, without any warning.
+     *
+     * @param output Writer of the report.
+     * @throws IOException If the report could not be written.
+     */
+    public ParseFailures(CsvWriter output) throws IOException {
+        this(null, output);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param reportFile Report file, or <code>null</code> if the report is not written to a
+     *                   file.
+     * @param output     Writer of the report.
+     * @throws IOException If the report could not be written.
+     */
+    private ParseFailures(File reportFile, CsvWriter output) throws IOException {
+        this.reportFile = reportFile;
+        this.output = output;
+        output.row(CSV_HEADER);
+    }
+
+    /**
+     * Records a file which could not be parsed.
+     *
+     * @param file     Java file.
+     * @param problems Problems met while parsing the file.
+     * @throws IOException If the report could not be written.
+     */
+    public void recordProblems(Path file, List<Problem> problems) throws IOException {
+        failedFiles++;
+        for (Problem problem : problems) {
+            Optional<Position> begin = problem.getLocation()
+                    .flatMap(TokenRange::toRange)
+                    .map(range -> range.begin);
+            output.field(file.toString())
+                    .field(begin.map(position -> String.valueOf(position.line))
+                            .orElse(""))
+                    .field(begin.map(position -> String.valueOf(position.column))
+                            .orElse(""))
+                    .field(singleLine(problem.getMessage()))
+                    .endRow();
+        }
+    }
+
+    /**
+     * Records a file which could not be read or analyzed.
+     *
+     * @param file  Java file.
+     * @param error Error met while reading or analyzing the file.
+     * @throws IOException If the report could not be written.
+     */
+    public void recordError(Path file, Throwable error) throws IOException {
+        failedFiles++;
+        output.row(file.toString(), "", "", singleLine(error.toString()));
+    }
+
+    /**
+     * Gets the number of files which could not be analyzed.
+     *
+     * @return The number of recorded files.
+     */
+    public int getFailedFiles() {
+        return failedFiles;
+    }
+
+    /**
+     * Puts a message on a single line, so that each problem is a single line of the report.
+     *
+     * @param message Message.
+     * @return The message, with its line breaks replaced by spaces.
+     */
+    private static String singleLine(String message) {
+        return message.replaceAll("\\R", " ");
+    }
+
+    /**
+     * Closes the report, and warns about the failed files if any.
+     *
+     * @throws IOException If the report could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        output.close();
+        if (failedFiles > 0 && reportFile != null)
+            System.err.printf("warning: %d file(s) could not be analyzed, see %s%n", failedFiles,
+                    reportFile);
+    }
+}
@@ -0,0 +1,168 @@
+package fr.istic.vv_tp2.common;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Glob pattern matched against the paths of a project, with <code>.gitignore</code>-like
+ * semantics: a pattern with no slash matches the name of a file or directory at any depth, while
+ * a pattern with a slash matches its path relative to a base directory. A <code>**</code>
+ * between two slashes matches zero or more directories, e.g. <code>a/**&#47;b</code> matches
+ * <code>a/b</code> as well as <code>a/x/y/b</code>.
+ */
+final class PathPattern {
+
+    /**
+     * Matchers of the glob, one for each way of matching its <code>**</code> directories: with
+     * at least one directory, or with none.
+     */
+    private final List<PathMatcher> matchers = new ArrayList<>();
+
+    /**
+     * Whether the pattern matches names rather than relative paths.
+     */
+    private final boolean matchesName;
+
+    /**
+     * Whether the pattern only matches directories.
+     */
+    final boolean directoryOnly;
+
+    /**
+     * Whether a match of the pattern re-includes the path, as <code>!</code> patterns of
+     * <code>.gitignore</code> files do.
+     */
+    final boolean negated;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param glob          Glob pattern, with no leading <code>!</code> or trailing
+     *                      <code>/</code>.
+     * @param directoryOnly Whether the pattern only matches directories.
+     * @param negated       Whether a match of the pattern re-includes the path.
+     */
+    private PathPattern(String glob, boolean directoryOnly, boolean negated) {
+        // A leading "**/" before a name matches any depth, as a pattern with no slash does.
+        if (glob.startsWith("**/") && glob.indexOf('/', 3) < 0)
+            glob = glob.substring(3);
+        if (glob.startsWith("/")) {
+            glob = glob.substring(1);
+            matchesName = false;
+        } else {
+            matchesName = glob.indexOf('/') < 0;
+        }
+
+        // The glob syntax of the JDK requires a directory for each "/**/".
+        for (String expanded : expandDirectories(glob))
+            matchers.add(FileSystems.getDefault()
+                    .getPathMatcher("glob:" + expanded));
+        this.directoryOnly = directoryOnly;
+        this.negated = negated;
+    }
+
+    /**
+     * Compiles an include or exclude pattern given on the command line.
+     *
+     * @param glob Glob pattern.
+     * @return The compiled pattern.
+     * @throws IllegalArgumentException If the pattern is malformed.
+     */
+    static PathPattern glob(String glob) {
+        return new PathPattern(glob, false, false);
+    }
+
+    /**
+     * Compiles a line of a <code>.gitignore</code> file.
+     *
+     * @param line Line of the file.
+     * @return The compiled pattern, or <code>null</code> if the line is blank or a comment.
+     * @throws IllegalArgumentException If the pattern is malformed.
+     */
+    static PathPattern gitignore(String line) {
+        String glob = line.strip();
+        if (glob.isEmpty() || glob.startsWith("#"))
+            return null;
+
+        boolean negated = glob.startsWith("!");
+        if (negated)
+            glob = glob.substring(1);
+        boolean directoryOnly = glob.endsWith("/");
+        if (directoryOnly)
+            glob = glob.substring(0, glob.length() - 1);
+        if (glob.isEmpty())
+            return null;
+
+        return new PathPattern(escapeGroups(glob), directoryOnly, negated);
+    }
+
+    /**
+     * Escapes the characters of a <code>.gitignore</code> pattern which start or separate groups
+     * in the glob syntax of the JDK, and are literal in <code>.gitignore</code> files.
+     *
+     * @param glob Pattern of a <code>.gitignore</code> file.
+     * @return The glob matching the same paths.
+     */
+    private static String escapeGroups(String glob) {
+        StringBuilder escaped = new StringBuilder(glob.length());
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                // Characters escaped in the file stay escaped.
+                escaped.append(c)
+                        .append(glob.charAt(++i));
+                continue;
+            }
+            if (c == '{' || c == '}' || c == ',')
+                escaped.append('\\');
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Expands the <code>**</code> directories of a glob into globs matching at least one
+     * directory, and globs matching none.
+     *
+     * @param glob Glob pattern.
+     * @return The expanded globs, which together match the paths of the pattern.
+     */
+    private static List<String> expandDirectories(String glob) {
+        boolean leading = glob.startsWith("**/");
+        int index = leading ? 0 : glob.indexOf("/**/");
+        if (index < 0)
+            return List.of(glob);
+
+        // Leading directories are not preceded by a slash.
+        String prefix = glob.substring(0, index) + (leading ? "" : "/");
+        List<String> globs = new ArrayList<>();
+        for (String rest : expandDirectories(glob.substring(index + (leading ? 3 : 4)))) {
+            globs.add(prefix + "**/" + rest);
+            globs.add(prefix + rest);
+        }
+        return globs;
+    }
+
+    /**
+     * Tells whether a path matches this pattern.
+     *
+     * @param relativePath Path relative to the base directory of the pattern.
+     * @param directory    Whether the path is a directory.
+     * @return <code>true</code> if the path matches.
+     */
+    boolean matches(Path relativePath, boolean directory) {
+        if (directoryOnly && !directory)
+            return false;
+
+        Path matched = matchesName ? relativePath.getFileName() : relativePath;
+        if (matched == null)
+            return false;
+        for (PathMatcher matcher : matchers)
+            if (matcher.matches(matched))
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package fr.istic.vv_tp2.common;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+
+/**
+ * Measures the peak heap usage of a run, e.g. to size the container of an analysis.
+ * <p>
+ * The peak is the sum of the peak usages of the heap memory pools of the JVM (e.g. eden,
+ * survivor and old generation), as recorded by the JVM itself, so measuring costs nothing during
+ * the run. Since pools may peak at different times, it is an upper bound of the heap actually used
+ * at once, which is what a container must provide anyway.
+ */
+public final class PeakHeap {
+
+    /**
+     * Number of bytes in a mebibyte.
+     */
+    private static final double MIB = 1024 * 1024;
+
+    private PeakHeap() {
+    }
+
+    /**
+     * Starts a new measure, forgetting the peaks reached so far.
+     */
+    public static void reset() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.isValid())
+                pool.resetPeakUsage();
+    }
+
+    /**
+     * Gets the peak heap usage since the start of the JVM or the last {@link #reset()}.
+     *
+     * @return The peak heap usage, in bytes.
+     */
+    public static long bytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid())
+                continue;
+            MemoryUsage usage = pool.getPeakUsage();
+            if (usage != null)
+                peak += usage.getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * Prints the peak heap usage since the start of the JVM or the last {@link #reset()}, along
+     * with the maximal heap size of the JVM.
+     */
+    public static void print() {
+        System.out.printf(Locale.ROOT, "Peak heap usage: %.1f MiB (max heap %.1f MiB)%n",
+                bytes() / MIB, Runtime.getRuntime()
+                        .maxMemory() / MIB);
+    }
+}
@@ -0,0 +1,480 @@
+package fr.istic.vv_tp2.common;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments an analysis run: wall time, CPU time and allocated bytes of each {@link Phase},
+ * the slowest files with their sizes, and the throughput of the run, in files and lines per
+ * second. Files whose results were found in a cache are counted apart from the analyzed files,
+ * since they are neither parsed nor scanned for their lines.
+ * <p>
+ * Phases are measured on the threads running them, so the times of the phases run on the workers
+ * are summed over the workers, and may exceed the wall time of the run. At the end of the run, the
+ * profile is written as a JSON summary, and the files and phases are also emitted as JDK Flight
+ * Recorder events (<code>fr.istic.vv_tp2.FileAnalysis</code> and
+ * <code>fr.istic.vv_tp2.AnalysisPhase</code>) when a recording enables them, e.g. with
+ * <code>-XX:StartFlightRecording</code>.
+ * <p>
+ * Profiling is enabled by {@link AnalysisOptions#profileFile}. Otherwise, runs share the
+ * {@link #DISABLED} profile, whose methods return at once: neither clocks nor counters are read,
+ * and files are not scanned for their lines.
+ */
+public final class RunProfile {
+
+    /**
+     * Profile of the runs which are not profiled.
+     */
+    public static final RunProfile DISABLED = new RunProfile(null, 0);
+
+    /**
+     * Number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Order of the files from the fastest to the slowest.
+     */
+    private static final Comparator<FileTiming> BY_NANOS =
+            Comparator.comparingLong(FileTiming::nanos);
+
+    /**
+     * Phase of an analysis run.
+     */
+    public enum Phase {
+        /**
+         * Walk of the directories of the project, selecting the analyzed files.
+         */
+        WALK,
+        /**
+         * Loading and parsing of the files, on the workers.
+         */
+        PARSE,
+        /**
+         * Analysis of the compilation units, e.g. by visitors, on the workers.
+         */
+        ANALYZE,
+        /**
+         * Export of the results of the files, and completion of the reports when the analyses are
+         * closed, on the calling thread.
+         */
+        EXPORT
+    }
+
+    /**
+     * File the summary is written to, or <code>null</code> if profiling is disabled.
+     */
+    private final Path file;
+
+    /**
+     * Number of slowest files kept.
+     */
+    private final int slowestFiles;
+
+    /**
+     * Monitoring of the threads, or <code>null</code> if profiling is disabled.
+     */
+    private final ThreadMXBean threads;
+
+    /**
+     * Whether the allocated bytes of the threads are measured.
+     */
+    private final boolean allocations;
+
+    /**
+     * Start of the run, in nanoseconds.
+     */
+    private final long start;
+
+    /**
+     * Wall time of each phase, by phase ordinal, in nanoseconds.
+     */
+    private final LongAdder[] wallNanos = adders();
+
+    /**
+     * CPU time of each phase, by phase ordinal, in nanoseconds.
+     */
+    private final LongAdder[] cpuNanos = adders();
+
+    /**
+     * Allocated bytes of each phase, by phase ordinal.
+     */
+    private final LongAdder[] allocatedBytes = adders();
+
+    /**
+     * Number of analyzed files.
+     */
+    private final LongAdder files = new LongAdder();
+
+    /**
+     * Number of files whose results were found in a cache.
+     */
+    private final LongAdder cachedFiles = new LongAdder();
+
+    /**
+     * Size of the analyzed files, in bytes.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Number of lines of the analyzed files.
+     */
+    private final LongAdder lines = new LongAdder();
+
+    /**
+     * Slowest files, fastest first. Guarded by the queue.
+     */
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<>(BY_NANOS);
+
+    /**
+     * Constructor of the class, starting the run.
+     *
+     * @param file         File the summary is written to, or <code>null</code> if profiling is
+     *                     disabled.
+     * @param slowestFiles Number of slowest files kept.
+     */
+    private RunProfile(Path file, int slowestFiles) {
+        this.file = file;
+        this.slowestFiles = slowestFiles;
+        if (file == null) {
+            this.threads = null;
+            this.allocations = false;
+            this.start = 0;
+            return;
+        }
+
+        this.threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled())
+            threads.setThreadCpuTimeEnabled(true);
+        this.allocations = threads instanceof com.sun.management.ThreadMXBean hotspot
+                && hotspot.isThreadAllocatedMemorySupported()
+                && enableAllocations(hotspot);
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts the profile of a run, as described by its options.
+     *
+     * @param options Options of the run.
+     * @return The profile of the run, or {@link #DISABLED} if it is not profiled.
+     */
+    public static RunProfile of(AnalysisOptions options) {
+        return options.profileFile == null ? DISABLED
+                : new RunProfile(options.profileFile, options.slowestFiles);
+    }
+
+    /**
+     * Tells whether the run is profiled.
+     *
+     * @return <code>true</code> if the run is profiled.
+     */
+    public boolean enabled() {
+        return file != null;
+    }
+
+    /**
+     * Starts measuring a phase on the current thread.
+     *
+     * @return The probe measuring the phase, or <code>null</code> if the run is not profiled.
+     */
+    public Probe start() {
+        if (file == null)
+            return null;
+        Probe probe = new Probe();
+        probe.reset(this);
+        return probe;
+    }
+
+    /**
+     * Stops measuring a phase on the current thread, and restarts the probe, e.g. for the next
+     * phase of the same file.
+     *
+     * @param probe Probe returned by {@link #start()}, on the current thread.
+     * @param phase Measured phase.
+     * @return The wall time of the phase, in nanoseconds, or 0 if the run is not profiled.
+     */
+    public long stop(Probe probe, Phase phase) {
+        if (file == null)
+            return 0;
+        long wall = probe.wallNanos;
+        long cpu = probe.cpuNanos;
+        long allocated = probe.allocatedBytes;
+        probe.reset(this);
+
+        int index = phase.ordinal();
+        wallNanos[index].add(probe.wallNanos - wall);
+        cpuNanos[index].add(probe.cpuNanos - cpu);
+        allocatedBytes[index].add(probe.allocatedBytes - allocated);
+        return probe.wallNanos - wall;
+    }
+
+    /**
+     * Counts the lines of the content of a file, leaving it unconsumed.
+     *
+     * @param content Content of a file.
+     * @return The number of lines of the content, or 0 if the run is not profiled.
+     */
+    public long lines(ByteBuffer content) {
+        if (file == null)
+            return 0;
+        int limit = content.limit();
+        long count = 0;
+        for (int i = content.position(); i < limit; i++)
+            if (content.get(i) == '\n')
+                count++;
+        // The last line may not end with a line terminator.
+        if (limit > content.position() && content.get(limit - 1) != '\n')
+            count++;
+        return count;
+    }
+
+    /**
+     * Records an analyzed file.
+     *
+     * @param path         Analyzed file.
+     * @param size         Size of the file, in bytes.
+     * @param lineCount    Number of lines of the file.
+     * @param parseNanos   Time spent loading and parsing the file, in nanoseconds.
+     * @param analyzeNanos Time spent analyzing the compilation unit of the file, in nanoseconds.
+     */
+    public void file(Path path, long size, long lineCount, long parseNanos, long analyzeNanos) {
+        if (file == null)
+            return;
+        files.increment();
+        bytes.add(size);
+        lines.add(lineCount);
+
+        FileTiming timing = new FileTiming(path, size, lineCount, parseNanos, analyzeNanos);
+        synchronized (slowest) {
+            if (slowest.size() < slowestFiles)
+                slowest.add(timing);
+            else if (BY_NANOS.compare(timing, slowest.peek()) > 0) {
+                slowest.poll();
+                slowest.add(timing);
+            }
+        }
+
+        FileAnalysisEvent event = new FileAnalysisEvent();
+        if (event.shouldCommit()) {
+            event.file = path.toString();
+            event.bytes = size;
+            event.lines = lineCount;
+            event.parseTime = parseNanos;
+            event.analyzeTime = analyzeNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a file whose results were found in a cache, so that it was not analyzed.
+     */
+    public void cachedFile() {
+        if (file == null)
+            return;
+        cachedFiles.increment();
+    }
+
+    /**
+     * Ends the run: emits its phases as events, writes its summary, and prints where.
+     *
+     * @throws IOException If the summary could not be written.
+     */
+    public void write() throws IOException {
+        if (file == null)
+            return;
+        long wall = System.nanoTime() - start;
+
+        for (Phase phase : Phase.values()) {
+            AnalysisPhaseEvent event = new AnalysisPhaseEvent();
+            if (!event.shouldCommit())
+                continue;
+            event.phase = phase.name()
+                    .toLowerCase(Locale.ROOT);
+            event.wallTime = wallNanos[phase.ordinal()].sum();
+            event.cpuTime = cpuNanos[phase.ordinal()].sum();
+            event.allocated = allocatedBytes[phase.ordinal()].sum();
+            event.commit();
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeSummary(writer, wall);
+        }
+        System.out.println("Profile written to " + file);
+    }
+
+    /**
+     * Writes the summary of the run in JSON. The files per second count both the analyzed and the
+     * cached files, whereas the lines per second count the lines of the analyzed files only.
+     *
+     * @param writer Writer of the summary.
+     * @param wall   Wall time of the run, in nanoseconds.
+     * @throws IOException If any I/O error occurs.
+     */
+    private void writeSummary(Writer writer, long wall) throws IOException {
+        double seconds = wall / 1e9;
+        writer.write(String.format(Locale.ROOT, """
+                {
+                  "files": %d,
+                  "cachedFiles": %d,
+                  "bytes": %d,
+                  "lines": %d,
+                  "wallTimeMs": %.3f,
+                  "filesPerSecond": %.1f,
+                  "linesPerSecond": %.1f,
+                  "cpuTimeMeasured": %b,
+                  "allocationsMeasured": %b,
+                  "phases": {
+                """, files.sum(), cachedFiles.sum(), bytes.sum(), lines.sum(),
+                wall / NANOS_PER_MILLI, (files.sum() + cachedFiles.sum()) / seconds,
+                lines.sum() / seconds,
+                threads.isThreadCpuTimeEnabled(), allocations));
+
+        Phase[] phases = Phase.values();
+        for (Phase phase : phases) {
+            int index = phase.ordinal();
+            writer.write(String.format(Locale.ROOT,
+                    "    \"%s\": {\"wallTimeMs\": %.3f, \"cpuTimeMs\": %.3f, "
+                            + "\"allocatedBytes\": %d}%s%n",
+                    phase.name()
+                            .toLowerCase(Locale.ROOT),
+                    wallNanos[index].sum() / NANOS_PER_MILLI,
+                    cpuNanos[index].sum() / NANOS_PER_MILLI, allocatedBytes[index].sum(),
+                    index < phases.length - 1 ? "," : ""));
+        }
+        writer.write("  },\n  \"slowestFiles\": [\n");
+
+        List<FileTiming> timings;
+        synchronized (slowest) {
+            timings = new ArrayList<>(slowest);
+        }
+        timings.sort(BY_NANOS.reversed());
+        for (int i = 0; i < timings.size(); i++) {
+            FileTiming timing = timings.get(i);
+            writer.write(String.format(Locale.ROOT,
+                    "    {\"file\": %s, \"bytes\": %d, \"lines\": %d, \"parseTimeMs\": %.3f, "
+                            + "\"analyzeTimeMs\": %.3f}%s%n",
+                    quote(timing.path()
+                            .toString()),
+                    timing.bytes(), timing.lines(), timing.parseNanos() / NANOS_PER_MILLI,
+                    timing.analyzeNanos() / NANOS_PER_MILLI, i < timings.size() - 1 ? "," : ""));
+        }
+        writer.write("  ]\n}\n");
+    }
+
+    /**
+     * Quotes a JSON string.
+     *
+     * @param value Value of the string.
+     * @return The quoted and escaped string.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\')
+                        .append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"')
+                .toString();
+    }
+
+    /**
+     * Enables the measure of the allocated bytes of the threads.
+     *
+     * @param threads Monitoring of the threads, supporting the measure.
+     * @return <code>true</code> once enabled.
+     */
+    private static boolean enableAllocations(com.sun.management.ThreadMXBean threads) {
+        if (!threads.isThreadAllocatedMemoryEnabled())
+            threads.setThreadAllocatedMemoryEnabled(true);
+        return true;
+    }
+
+    /**
+     * Creates a counter per phase.
+     *
+     * @return The counters, by phase ordinal.
+     */
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Phase.values().length];
+        for (int i = 0; i < adders.length; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * Measure of a phase in progress on a thread: the clocks and counters of the thread when the
+     * phase started.
+     */
+    public static final class Probe {
+        /**
+         * Wall clock, in nanoseconds.
+         */
+        private long wallNanos;
+
+        /**
+         * CPU time of the thread, in nanoseconds, or 0 if it is not measured.
+         */
+        private long cpuNanos;
+
+        /**
+         * Bytes allocated by the thread, or 0 if they are not measured.
+         */
+        private long allocatedBytes;
+
+        private Probe() {
+        }
+
+        /**
+         * Reads the clocks and counters of the current thread.
+         *
+         * @param profile Profile of the run.
+         */
+        private void reset(RunProfile profile) {
+            wallNanos = System.nanoTime();
+            if (profile.threads.isThreadCpuTimeEnabled())
+                cpuNanos = profile.threads.getCurrentThreadCpuTime();
+            if (profile.allocations)
+                allocatedBytes = ((com.sun.management.ThreadMXBean) profile.threads)
+                        .getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Timing of an analyzed file.
+     *
+     * @param path         Analyzed file.
+     * @param bytes        Size of the file, in bytes.
+     * @param lines        Number of lines of the file.
+     * @param parseNanos   Time spent loading and parsing the file, in nanoseconds.
+     * @param analyzeNanos Time spent analyzing the file, in nanoseconds.
+     */
+    private record FileTiming(Path path, long bytes, long lines, long parseNanos,
+            long analyzeNanos) {
+        /**
+         * Gets the time spent on the file.
+         *
+         * @return The time spent parsing and analyzing the file, in nanoseconds.
+         */
+        long nanos() {
+            return parseNanos + analyzeNanos;
+        }
+    }
+}
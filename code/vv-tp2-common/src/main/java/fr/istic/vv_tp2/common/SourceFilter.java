@@ -0,0 +1,199 @@
+package fr.istic.vv_tp2.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects the files of a project to analyze.
+ * <p>
+ * Files are included when their name or relative path matches an include glob, unless it matches
+ * an exclude glob. Excluded directories are pruned with their whole subtree. Globs with no slash
+ * match names at any depth (e.g. <code>target</code>), while globs with a slash match paths
+ * relative to the project (e.g. <code>src/test/**</code>). Optionally, the
+ * <code>.gitignore</code> files of the project are honored as well.
+ */
+public class SourceFilter {
+
+    /**
+     * Globs of the files included by default.
+     */
+    public static final List<String> DEFAULT_INCLUDES = List.of("*.java");
+
+    /**
+     * Globs of the directories excluded by default: version control metadata, build output and
+     * generated sources.
+     */
+    public static final List<String> DEFAULT_EXCLUDES = List.of(".git", ".hg", ".svn", "target",
+            "build", "generated-sources", "generated-test-sources");
+
+    /**
+     * Name of the files listing ignored paths.
+     */
+    static final String GITIGNORE = ".gitignore";
+
+    /**
+     * Patterns of the included files.
+     */
+    private final List<PathPattern> includes = new ArrayList<>();
+
+    /**
+     * Patterns of the excluded files and directories.
+     */
+    private final List<PathPattern> excludes = new ArrayList<>();
+
+    /**
+     * Whether <code>.gitignore</code> files are honored.
+     */
+    final boolean gitignore;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param includes  Globs of the included files.
+     * @param excludes  Globs of the excluded files and directories.
+     * @param gitignore Whether <code>.gitignore</code> files are honored.
+     * @throws IllegalArgumentException If a glob is malformed.
+     */
+    public SourceFilter(List<String> includes, List<String> excludes, boolean gitignore) {
+        for (String include : includes)
+            this.includes.add(PathPattern.glob(include));
+        for (String exclude : excludes)
+            this.excludes.add(PathPattern.glob(exclude));
+        this.gitignore = gitignore;
+    }
+
+    /**
+     * Gets the default filter, which includes Java files outside of the default excluded
+     * directories.
+     *
+     * @return The default filter.
+     */
+    public static SourceFilter defaults() {
+        return new SourceFilter(DEFAULT_INCLUDES, DEFAULT_EXCLUDES, false);
+    }
+
+    /**
+     * Tells whether a directory is excluded, with its whole subtree.
+     *
+     * @param relativePath Path of the directory, relative to the project.
+     * @return <code>true</code> if the directory is excluded.
+     */
+    boolean excludesDirectory(Path relativePath) {
+        return matchesAny(excludes, relativePath, true);
+    }
+
+    /**
+     * Tells whether a file is included.
+     *
+     * @param relativePath Path of the file, relative to the project.
+     * @return <code>true</code> if the file is included.
+     */
+    boolean includesFile(Path relativePath) {
+        return matchesAny(includes, relativePath, false)
+                && !matchesAny(excludes, relativePath, false);
+    }
+
+    /**
+     * Tells whether a path matches any of the given patterns.
+     *
+     * @param patterns     Patterns.
+     * @param relativePath Path, relative to the project.
+     * @param directory    Whether the path is a directory.
+     * @return <code>true</code> if a pattern matches.
+     */
+    private static boolean matchesAny(List<PathPattern> patterns, Path relativePath,
+            boolean directory) {
+        for (PathPattern pattern : patterns)
+            if (pattern.matches(relativePath, directory))
+                return true;
+        return false;
+    }
+
+    /**
+     * Patterns of the <code>.gitignore</code> file of a directory.
+     */
+    static final class Ignores {
+
+        /**
+         * Directory of the <code>.gitignore</code> file.
+         */
+        private final Path directory;
+
+        /**
+         * Patterns of the file, in order.
+         */
+        private final List<PathPattern> patterns;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param directory Directory of the <code>.gitignore</code> file.
+         * @param patterns  Patterns of the file, in order.
+         */
+        private Ignores(Path directory, List<PathPattern> patterns) {
+            this.directory = directory;
+            this.patterns = patterns;
+        }
+
+        /**
+         * Gets the directory of the <code>.gitignore</code> file.
+         *
+         * @return The directory of the file.
+         */
+        Path directory() {
+            return directory;
+        }
+
+        /**
+         * Loads the <code>.gitignore</code> file of a directory.
+         *
+         * @param directory Directory.
+         * @return The patterns of the file, or <code>null</code> if the directory has no
+         *         <code>.gitignore</code> file.
+         * @throws IOException If the file could not be read.
+         */
+        static Ignores load(Path directory) throws IOException {
+            Path file = directory.resolve(GITIGNORE);
+            if (!Files.isRegularFile(file))
+                return null;
+
+            List<PathPattern> patterns = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        PathPattern pattern = PathPattern.gitignore(line);
+                        if (pattern != null)
+                            patterns.add(pattern);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("warning: ignoring pattern '" + line + "' of " + file);
+                    }
+                }
+            }
+            return new Ignores(directory, patterns);
+        }
+
+        /**
+         * Tells whether the last pattern of this file matching a path ignores it.
+         *
+         * @param path      Path of the file or directory.
+         * @param directory Whether the path is a directory.
+         * @return {@link Boolean#TRUE} if the path is ignored, {@link Boolean#FALSE} if it is
+         *         re-included, or <code>null</code> if no pattern matches.
+         */
+        Boolean ignores(Path path, boolean directory) {
+            Path relativePath = this.directory.relativize(path);
+            for (int i = patterns.size() - 1; i >= 0; i--) {
+                PathPattern pattern = patterns.get(i);
+                if (pattern.matches(relativePath, directory))
+                    return !pattern.negated;
+            }
+            return null;
+        }
+    }
+}
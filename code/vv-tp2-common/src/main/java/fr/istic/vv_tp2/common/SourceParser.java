@@ -0,0 +1,138 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+/**
+ * Parses Java files loaded by a {@link SourceReader}. A source parser owns its buffers, so it must
+ * not be shared between threads.
+ * <p>
+ * Files are parsed at a given language level. Optionally, files which cannot be parsed at this
+ * level are parsed again at a retry level, e.g. a more recent one.
+ */
+public class SourceParser {
+
+    /**
+     * Parser of the compilation units.
+     */
+    private final JavaParser parser;
+
+    /**
+     * Parser retrying the files which could not be parsed, or <code>null</code> if failures are
+     * not retried.
+     */
+    private final JavaParser retryParser;
+
+    /**
+     * Reader of the source files.
+     */
+    private final SourceReader reader;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param charset Charset of the source files.
+     */
+    public SourceParser(Charset charset) {
+        this(charset, new ParserConfiguration(), null);
+    }
+
+    /**
+     * Constructor of the class.
+     *
+     * @param charset       Charset of the source files.
+     * @param languageLevel Language level of the source files, or <code>null</code> for the
+     *                      default level of the parser.
+     * @param retryLevel    Language level at which files which could not be parsed are parsed
+     *                      again, or <code>null</code> to not retry them.
+     */
+    public SourceParser(Charset charset, ParserConfiguration.LanguageLevel languageLevel,
+            ParserConfiguration.LanguageLevel retryLevel) {
+        this(charset, configuration(languageLevel),
+                retryLevel == null ? null : configuration(retryLevel));
+    }
+
+    /**
+     * Constructor of the class. The configurations must not be shared with other parsers.
+     *
+     * @param charset            Charset of the source files.
+     * @param configuration      Configuration of the parser.
+     * @param retryConfiguration Configuration of the parser retrying the files which could not
+     *                           be parsed, or <code>null</code> to not retry them.
+     */
+    public SourceParser(Charset charset, ParserConfiguration configuration,
+            ParserConfiguration retryConfiguration) {
+        reader = new SourceReader(charset);
+        parser = new JavaParser(configuration);
+        retryParser = retryConfiguration == null ? null : new JavaParser(retryConfiguration);
+    }
+
+    /**
+     * Creates the configuration of a parser for a language level.
+     *
+     * @param languageLevel Language level, or <code>null</code> for the default level.
+     * @return The configuration.
+     */
+    private static ParserConfiguration configuration(
+            ParserConfiguration.LanguageLevel languageLevel) {
+        ParserConfiguration configuration = new ParserConfiguration();
+        return languageLevel == null ? configuration
+                : configuration.setLanguageLevel(languageLevel);
+    }
+
+    /**
+     * Loads the content of a file, e.g. to compute its hash before parsing it.
+     *
+     * @param file File to load.
+     * @return The content of the file, valid until the next call of this parser.
+     * @throws IOException If any I/O error occurs.
+     * @see SourceReader#load(Path)
+     */
+    public ByteBuffer load(Path file) throws IOException {
+        return reader.load(file);
+    }
+
+    /**
+     * Parses a Java file.
+     *
+     * @param file Java file.
+     * @return The compilation unit of the file.
+     * @throws IOException           If any I/O error occurs.
+     * @throws ParseProblemException If the compilation unit could not be parsed.
+     */
+    public CompilationUnit parse(Path file) throws IOException {
+        return parse(reader.load(file));
+    }
+
+    /**
+     * Parses the content of a Java file. The remaining bytes of <code>content</code> are consumed.
+     *
+     * @param content Content of the file.
+     * @return The compilation unit of the file.
+     * @throws IOException           If the content could not be decoded.
+     * @throws ParseProblemException If the compilation unit could not be parsed, with the
+     *                               problems of the last attempt.
+     */
+    public CompilationUnit parse(ByteBuffer content) throws IOException {
+        CharBuffer source = reader.decode(content);
+        ParseResult<CompilationUnit> result =
+                parser.parse(ParseStart.COMPILATION_UNIT, SourceReader.provider(source));
+
+        // The decoded characters are still available for another attempt.
+        if (!result.isSuccessful() && retryParser != null)
+            result = retryParser.parse(ParseStart.COMPILATION_UNIT,
+                    SourceReader.provider(source.rewind()));
+
+        return AnalysisEngine.unit(result);
+    }
+}
@@ -0,0 +1,145 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.Provider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads source files through NIO and decodes them with an explicit charset.
+ * <p>
+ * Small files are read into a direct buffer reused from one file to the next, and large files are
+ * memory-mapped. The decoded characters are stored into a reused buffer as well, and handed to the
+ * parser through a {@link Provider} reading them in place. Malformed input is replaced, as a
+ * {@link java.io.Reader} would do.
+ * <p>
+ * Buffers returned by a reader are only valid until its next call, so a reader must not be
+ * shared between threads.
+ */
+public class SourceReader {
+
+    /**
+     * Size from which files are memory-mapped instead of being read into the pooled buffer.
+     */
+    static final int MAPPING_THRESHOLD = 1 << 20;
+
+    /**
+     * Initial capacity of the pooled buffers.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * Decoder of the source files.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * Direct buffer into which small files are read.
+     */
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    /**
+     * Buffer into which files are decoded.
+     */
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Constructor of the class.
+     *
+     * @param charset Charset of the source files.
+     */
+    public SourceReader(Charset charset) {
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Loads the content of a file.
+     *
+     * @param file File to load.
+     * @return The content of the file, valid until the next call of this reader.
+     * @throws IOException If any I/O error occurs.
+     */
+    public ByteBuffer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD)
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (bytes.capacity() < size)
+                bytes = ByteBuffer.allocateDirect(Integer.highestOneBit((int) size) << 1);
+            bytes.clear()
+                    .limit((int) size);
+            while (bytes.hasRemaining())
+                if (channel.read(bytes) < 0)
+                    break;
+            return bytes.flip();
+        }
+    }
+
+    /**
+     * Decodes the content of a file. The remaining bytes of <code>content</code> are consumed.
+     *
+     * @param content Content of the file.
+     * @return The characters of the file, valid until the next call of this reader.
+     * @throws CharacterCodingException If the content could not be decoded.
+     */
+    public CharBuffer decode(ByteBuffer content) throws CharacterCodingException {
+        int capacity = (int) Math.ceil(content.remaining() * (double) decoder.maxCharsPerByte());
+        if (chars.capacity() < capacity)
+            chars = CharBuffer.allocate(capacity);
+        chars.clear();
+
+        decoder.reset();
+        CoderResult result = decoder.decode(content, chars, true);
+        if (!result.isUnderflow())
+            result.throwException();
+        result = decoder.flush(chars);
+        if (!result.isUnderflow())
+            result.throwException();
+        return chars.flip();
+    }
+
+    /**
+     * Creates a provider of the characters of a file, for the parser.
+     *
+     * @param source Characters of the file, which are consumed by the provider.
+     * @return A provider reading <code>source</code> in place.
+     */
+    public static Provider provider(CharBuffer source) {
+        return new CharBufferProvider(source);
+    }
+
+    /**
+     * Provider reading characters from a buffer.
+     *
+     * @param source Characters to provide.
+     */
+    private record CharBufferProvider(CharBuffer source) implements Provider {
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int remaining = source.remaining();
+            if (remaining == 0)
+                return -1;
+
+            int count = Math.min(length, remaining);
+            source.get(buffer, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release: the buffer belongs to its reader.
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Analysis pluggable into an {@link AnalysisDriver}, which runs over each parsed compilation unit
+ * of a project.
+ * <p>
+ * {@link #analyze(CompilationUnit)} runs on worker threads and must not share mutable state
+ * between calls; its results are handed back to {@link #accept(Object)} on the driver's thread,
+ * in a deterministic order. The storage of the units is the analyzed file. Closing the analysis
+ * completes its report.
+ *
+ * @param <R> Type of the result of a compilation unit.
+ */
+public interface UnitAnalysis<R> extends Closeable {
+    /**
+     * Analyzes a compilation unit.
+     *
+     * @param unit Compilation unit.
+     * @return The result of the compilation unit.
+     */
+    R analyze(CompilationUnit unit);
+
+    /**
+     * Receives the result of a compilation unit.
+     *
+     * @param result Result of the compilation unit.
+     * @throws IOException If any I/O error occurs.
+     */
+    void accept(R result) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,74 @@
+package fr.istic.vv_tp2.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link AnalysisEngine} hands the results of the files in their order, and that a
+ * file whose processing fails is recorded as a failure without stopping the run.
+ */
+class AnalysisEngineTest {
+
+    /**
+     * Files of the runs, two of which fail.
+     */
+    private static final List<Path> FILES = List.of(Path.of("A.java"), Path.of("Odd.java"),
+            Path.of("B.java"), Path.of("Deep.java"), Path.of("C.java"));
+
+    /**
+     * Processes a file: the <code>Odd</code> file fails as a visitor bug would, and the
+     * <code>Deep</code> file as a too deep nesting would.
+     *
+     * @param file   Processed file.
+     * @param parser Parser of the worker.
+     * @return The name of the file.
+     */
+    private static String process(Path file, SourceParser parser) {
+        String name = file.toString();
+        if (name.equals("Odd.java"))
+            throw new IllegalStateException("unexpected node");
+        if (name.equals("Deep.java"))
+            throw new StackOverflowError();
+        return name;
+    }
+
+    @Test
+    void recordsFailingFilesAndGoesOn() throws IOException {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        List<String> results = new ArrayList<>();
+        try (ParseFailures failures = new ParseFailures(
+                new CsvWriter(Channels.newChannel(report)))) {
+            new AnalysisEngine(new AnalysisOptions(), failures).run(FILES,
+                    AnalysisEngineTest::process, (file, result) -> results.add(result));
+
+            assertEquals(2, failures.getFailedFiles());
+        }
+
+        assertEquals(List.of("A.java", "B.java", "C.java"), results);
+        String rows = report.toString(StandardCharsets.UTF_8);
+        assertTrue(rows.contains("Odd.java,,,java.lang.IllegalStateException: unexpected node"),
+                rows);
+        assertTrue(rows.contains("Deep.java,,,java.lang.StackOverflowError"), rows);
+    }
+
+    @Test
+    void rethrowsFailuresWithoutReport() {
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> new AnalysisEngine(2).run(FILES, AnalysisEngineTest::process,
+                        (file, result) -> {
+                        }));
+
+        assertEquals("unexpected node", failure.getMessage());
+    }
+}
@@ -0,0 +1,166 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the <code>--bounded-memory</code> option makes the parsers drop comments and
+ * tokens, unless the analyses need positions, without changing what is analyzed.
+ */
+class BoundedMemoryTest {
+
+    /**
+     * Source of the parsed files.
+     */
+    private static final String SOURCE = """
+            package p;
+
+            /** Documented class. */
+            class A {
+                // Counted twice.
+                int twice(int x) {
+                    return 2 * x;
+                }
+
+                void run() {
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void defaultParserKeepsCommentsAndPositions() throws IOException {
+        CompilationUnit unit = parse(options());
+
+        assertEquals(2, unit.getAllContainedComments()
+                .size());
+        assertTrue(method(unit).getRange()
+                .isPresent());
+    }
+
+    @Test
+    void boundedParserDropsCommentsAndPositions() throws IOException {
+        CompilationUnit unit = parse(options("--bounded-memory"));
+
+        assertEquals(0, unit.getAllContainedComments()
+                .size());
+        assertFalse(method(unit).getRange()
+                .isPresent());
+        // The declarations themselves are all kept.
+        assertEquals(List.of("twice", "run"), methods(unit));
+        assertEquals(methods(parse(options())), methods(unit));
+    }
+
+    @Test
+    void boundedParserKeepsPositionsWhenNeeded() throws IOException {
+        AnalysisOptions options = new AnalysisOptions() {
+            @Override
+            public boolean needsPositions() {
+                return true;
+            }
+        };
+        options.parseArgs(new String[]{"--bounded-memory", "."});
+        CompilationUnit unit = parse(options);
+
+        assertEquals(0, unit.getAllContainedComments()
+                .size());
+        assertEquals(6, method(unit).getBegin()
+                .orElseThrow().line);
+    }
+
+    @Test
+    void boundedEngineProcessesEveryFileInOrder() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            files.add(Files.writeString(directory.resolve("A" + i + ".java"),
+                    SOURCE.replace("class A", "class A" + i)));
+
+        List<String> classes = new ArrayList<>();
+        AnalysisOptions options = options("--bounded-memory", "--threads", "3");
+        new AnalysisEngine(options, null).run(files, (file, parser) -> parser.parse(file)
+                        .getType(0)
+                        .getNameAsString(),
+                (file, name) -> classes.add(name));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            expected.add("A" + i);
+        assertEquals(expected, classes);
+    }
+
+    @Test
+    void peakHeapIsMeasured() {
+        PeakHeap.reset();
+        byte[] allocated = new byte[1 << 20];
+
+        assertTrue(PeakHeap.bytes() >= allocated.length);
+    }
+
+    /**
+     * Parses the command line options of a project.
+     *
+     * @param args Options, without the path of the project.
+     * @return The parsed options.
+     */
+    private static AnalysisOptions options(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add(".");
+        AnalysisOptions options = new AnalysisOptions();
+        options.parseArgs(arguments.toArray(new String[0]));
+        return options;
+    }
+
+    /**
+     * Parses the source of the tests, as the engine would with given options.
+     *
+     * @param options Options of the analysis.
+     * @return The compilation unit of the source.
+     * @throws IOException If the source could not be decoded.
+     */
+    private static CompilationUnit parse(AnalysisOptions options) throws IOException {
+        SourceParser parser = new SourceParser(StandardCharsets.UTF_8,
+                options.parserConfiguration(null), null);
+        return parser.parse(ByteBuffer.wrap(SOURCE.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Gets the first method of a compilation unit.
+     *
+     * @param unit Compilation unit.
+     * @return The first method.
+     */
+    private static MethodDeclaration method(CompilationUnit unit) {
+        return unit.findFirst(MethodDeclaration.class)
+                .orElseThrow();
+    }
+
+    /**
+     * Gets the names of the methods of a compilation unit.
+     *
+     * @param unit Compilation unit.
+     * @return The names of the methods, in order.
+     */
+    private static List<String> methods(CompilationUnit unit) {
+        List<String> names = new ArrayList<>();
+        for (MethodDeclaration method : unit.findAll(MethodDeclaration.class))
+            names.add(method.getNameAsString());
+        return names;
+    }
+}
@@ -0,0 +1,149 @@
+package fr.istic.vv_tp2.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks the quoting of the {@link CsvWriter} and the writing of {@link CsvWriter.Batch batches}.
+ */
+class CsvWriterTest {
+
+    private static final String EOL = System.lineSeparator();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void quotesFieldsAsRfc4180() throws IOException {
+        Path file = directory.resolve("quotes.csv");
+        try (CsvWriter writer = new CsvWriter(file)) {
+            writer.row("plain", "a,b", "say \"hi\"", "line\nbreak", "carriage\rreturn",
+                    "crlf\r\n", "\"", "");
+        }
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"line\nbreak\",\"carriage\rreturn\","
+                + "\"crlf\r\n\",\"\"\"\"," + EOL, read(file));
+    }
+
+    @Test
+    void writesFieldsOneByOne() throws IOException {
+        Path file = directory.resolve("fields.csv");
+        try (CsvWriter writer = new CsvWriter(file)) {
+            writer.row("Name", "Count");
+            writer.field("x, y")
+                    .field(-42)
+                    .endRow();
+            writer.field("é")
+                    .field(Long.MAX_VALUE)
+                    .endRow();
+        }
+
+        assertEquals("Name,Count" + EOL + "\"x, y\",-42" + EOL + "é," + Long.MAX_VALUE + EOL,
+                read(file));
+    }
+
+    @Test
+    void appendsBatchesUnchanged() throws IOException {
+        CsvWriter.Batch batch = new CsvWriter.Batch()
+                .field("a\"b")
+                .field(1)
+                .endRow()
+                .field("c")
+                .field(2)
+                .endRow();
+
+        Path file = directory.resolve("batches.csv");
+        try (CsvWriter writer = new CsvWriter(file)) {
+            writer.row("Field", "Value");
+            writer.append(batch);
+            writer.append(batch);
+        }
+
+        String rows = "\"a\"\"b\",1" + EOL + "c,2" + EOL;
+        assertEquals("Field,Value" + EOL + rows + rows, read(file));
+        assertFalse(batch.isEmpty());
+    }
+
+    @Test
+    void appendsBatchesLargerThanTheBuffers() throws IOException {
+        // Two-byte characters, so that the encoded rows overflow the byte buffer.
+        String field = "é".repeat(50_000);
+        CsvWriter.Batch batch = new CsvWriter.Batch()
+                .field(field)
+                .endRow();
+
+        Path file = directory.resolve("large.csv");
+        try (CsvWriter writer = new CsvWriter(file)) {
+            for (int i = 0; i < 3; i++)
+                writer.append(batch);
+        }
+
+        assertEquals((field + EOL).repeat(3), read(file));
+    }
+
+    @Test
+    void appendsConcurrentBatchesAsAWhole() throws Exception {
+        int threads = 4;
+        int batches = 500;
+        Path file = directory.resolve("concurrent.csv");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (CsvWriter writer = new CsvWriter(file)) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(executor.submit(() -> {
+                    CsvWriter.Batch batch = new CsvWriter.Batch();
+                    for (int b = 0; b < batches; b++) {
+                        batch.clear();
+                        for (int row = 0; row < 3; row++)
+                            batch.field("t" + thread)
+                                    .field(b)
+                                    .field(row)
+                                    .endRow();
+                        writer.append(batch);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks)
+                task.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // The three rows of each batch follow each other.
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(threads * batches * 3, lines.size());
+        for (int i = 0; i < lines.size(); i += 3) {
+            String batch = lines.get(i)
+                    .substring(0, lines.get(i)
+                            .lastIndexOf(','));
+            for (int row = 0; row < 3; row++)
+                assertEquals(batch + "," + row, lines.get(i + row));
+        }
+    }
+
+    /**
+     * Reads a written CSV file.
+     *
+     * @param file CSV file.
+     * @return The content of the file.
+     * @throws IOException If the file could not be read.
+     */
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+}
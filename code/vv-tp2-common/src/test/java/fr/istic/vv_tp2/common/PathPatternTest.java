@@ -0,0 +1,87 @@
+package fr.istic.vv_tp2.common;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the translation of the globs and of the <code>.gitignore</code> lines into a
+ * {@link PathPattern}.
+ */
+class PathPatternTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // A pattern with no slash matches names at any depth.
+            "*.java       | src/A.java         | true",
+            "*.java       | src/A.txt          | false",
+            // A pattern with a slash matches paths relative to the base directory.
+            "src/*.java   | src/A.java         | true",
+            "src/*.java   | lib/src/A.java     | false",
+            "/A.java      | A.java             | true",
+            "/A.java      | src/A.java         | false",
+            "**/gen/*     | a/b/gen/A.java     | true",
+            "**/gen/*     | gen/A.java         | true",
+            // A ** between two slashes matches zero or more directories.
+            "a/**/b       | a/b                | true",
+            "a/**/b       | a/x/b              | true",
+            "a/**/b       | a/x/y/b            | true",
+            "a/**/b       | a/xb               | false",
+            "a/**/b/**/c  | a/b/c              | true",
+            "a/**/b/**/c  | a/x/b/y/c          | true",
+            "src/**       | src/a/A.java       | true",
+            "{a,b}/*.java | b/B.java           | true",
+    })
+    void globMatches(String glob, String path, boolean matches) {
+        assertEquals(matches, PathPattern.glob(glob)
+                .matches(Path.of(path), false));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "a/**/b       | a/b                | true",
+            "a/**/b       | a/x/b              | true",
+            // Braces and commas are literal in .gitignore files.
+            "{a,b}.java   | {a,b}.java         | true",
+            "{a,b}.java   | a.java             | false",
+            "a,b          | a,b                | true",
+            "a,b          | a                  | false",
+            "x}           | x}                 | true",
+            "\\{a\\}      | {a}                | true",
+            // Escaped characters stay literal.
+            "\\#notes     | #notes             | true",
+            "\\!important | !important         | true",
+    })
+    void gitignoreLineMatches(String line, String path, boolean matches) {
+        assertEquals(matches, PathPattern.gitignore(line)
+                .matches(Path.of(path), false));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "build/  | build | true  | true",
+            "build/  | build | false | false",
+            "build   | build | false | true",
+    })
+    void directoryOnlyLineMatchesDirectories(String line, String path, boolean directory,
+            boolean matches) {
+        assertEquals(matches, PathPattern.gitignore(line)
+                .matches(Path.of(path), directory));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "''",
+            "'   '",
+            "# comment",
+            "!",
+            "/",
+    })
+    void blankOrCommentLineHasNoPattern(String line) {
+        assertNull(PathPattern.gitignore(line));
+    }
+}
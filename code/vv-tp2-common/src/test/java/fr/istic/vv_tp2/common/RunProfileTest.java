@@ -0,0 +1,141 @@
+package fr.istic.vv_tp2.common;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the counters of the {@link RunProfile} summary, and the measure of the closing of the
+ * analyses of an {@link AnalysisDriver} in the export phase.
+ */
+class RunProfileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countsCachedFilesApart() throws IOException {
+        RunProfile profile = profile();
+        profile.file(directory.resolve("A.java"), 120, 4, 1_000_000, 1_000_000);
+        profile.cachedFile();
+        profile.cachedFile();
+        profile.write();
+
+        String summary = Files.readString(directory.resolve("profile.json"));
+        assertEquals("1", field(summary, "files"));
+        assertEquals("2", field(summary, "cachedFiles"));
+        assertEquals("4", field(summary, "lines"));
+        // Cached files count in the throughput, so a warm run does not report 0 files per second.
+        assertNotEquals("0.0", field(summary, "filesPerSecond"));
+    }
+
+    @Test
+    void disabledProfileCountsNothing() {
+        RunProfile.DISABLED.cachedFile();
+
+        assertEquals(0, RunProfile.DISABLED.stop(RunProfile.DISABLED.start(),
+                RunProfile.Phase.EXPORT));
+    }
+
+    @Test
+    void measuresClosingOfAnalysesAsExport() throws IOException {
+        RunProfile profile = profile();
+        List<String> closed = new ArrayList<>();
+        IOException failure;
+        try (AnalysisEngine engine = new AnalysisEngine(1)) {
+            AnalysisDriver driver = new AnalysisDriver(engine.profiledBy(profile))
+                    .add(new SlowClosingAnalysis("first", closed, false))
+                    .add(new SlowClosingAnalysis("second", closed, true))
+                    .add(new SlowClosingAnalysis("third", closed, false));
+            driver.run(List.of());
+            failure = assertThrows(IOException.class, driver::close);
+        }
+        profile.write();
+
+        // Every analysis is closed, even after a failure, and the failure is reported.
+        assertEquals(List.of("first", "second", "third"), closed);
+        assertEquals("second", failure.getMessage());
+        String summary = Files.readString(directory.resolve("profile.json"));
+        Matcher export = Pattern.compile("\"export\": \\{\"wallTimeMs\": ([0-9.]+)")
+                .matcher(summary);
+        assertTrue(export.find(), summary);
+        assertTrue(Double.parseDouble(export.group(1)) >= 3 * SlowClosingAnalysis.CLOSE_MILLIS,
+                summary);
+    }
+
+    /**
+     * Starts the profile of a run, written to the temporary directory.
+     *
+     * @return The profile.
+     */
+    private RunProfile profile() {
+        AnalysisOptions options = new AnalysisOptions();
+        options.profileFile = directory.resolve("profile.json");
+        return RunProfile.of(options);
+    }
+
+    /**
+     * Reads a top-level field of a profile summary.
+     *
+     * @param summary Summary, in JSON.
+     * @param name    Name of the field.
+     * @return The value of the field, as written.
+     */
+    private static String field(String summary, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\": ([^,\\n]+)")
+                .matcher(summary);
+        assertTrue(matcher.find(), summary);
+        return matcher.group(1);
+    }
+
+    /**
+     * Analysis whose closing takes some time, and may fail.
+     *
+     * @param name   Name of the analysis.
+     * @param closed Names of the closed analyses, in closing order.
+     * @param fails  Whether closing the analysis fails.
+     */
+    private record SlowClosingAnalysis(String name, List<String> closed, boolean fails)
+            implements UnitAnalysis<Void> {
+        /**
+         * Time taken to close an analysis, in milliseconds.
+         */
+        static final int CLOSE_MILLIS = 20;
+
+        @Override
+        public Void analyze(CompilationUnit unit) {
+            return null;
+        }
+
+        @Override
+        public void accept(Void result) {
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed.add(name);
+            try {
+                Thread.sleep(CLOSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+            }
+            if (fails)
+                throw new IOException(name);
+        }
+    }
+}
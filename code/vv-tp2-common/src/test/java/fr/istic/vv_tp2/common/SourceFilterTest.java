@@ -0,0 +1,134 @@
+package fr.istic.vv_tp2.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the include and exclude rules of a {@link SourceFilter}, and the files that
+ * {@link JavaFiles} finds with it, <code>.gitignore</code> files included.
+ */
+class SourceFilterTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "src/main/java/A.java          | true",
+            "A.java                        | true",
+            "src/main/java/A.txt           | false",
+            // Excluded by name, at any depth.
+            "src/main/java/Skipped.java    | false",
+            // Excluded by relative path.
+            "src/test/java/ATest.java      | false",
+            "lib/src/test/java/ATest.java  | true",
+    })
+    void includesFile(String path, boolean included) {
+        SourceFilter filter = new SourceFilter(List.of("*.java"),
+                List.of("Skipped.java", "src/test/**"), false);
+
+        assertEquals(included, filter.includesFile(Path.of(path)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "target                         | true",
+            "module/target                  | true",
+            "src/main/java/target           | true",
+            ".git                           | true",
+            "build/generated-sources        | true",
+            "src/main/java                  | false",
+            "targets                        | false",
+    })
+    void defaultsExcludeDirectory(String path, boolean excluded) {
+        assertEquals(excluded, SourceFilter.defaults()
+                .excludesDirectory(Path.of(path)));
+    }
+
+    @Test
+    void findsIncludedFilesOutsideExcludedDirectories() throws IOException {
+        files("A.java", "B.txt", "src/C.java", "src/Skipped.java", "target/D.java",
+                "gen/E.java", "gen/keep/F.java");
+
+        List<Path> found = JavaFiles.find(directory, new SourceFilter(List.of("*.java"),
+                List.of("target", "Skipped.java", "gen/*.java"), false));
+
+        assertEquals(List.of("A.java", "gen/keep/F.java", "src/C.java"), relative(found));
+    }
+
+    @Test
+    void honorsGitignoreFiles() throws IOException {
+        files("A.java", "Ignored.java", "out/B.java", "src/C.java", "src/Local.java",
+                "src/gen/D.java", "src/x/gen/E.java", "src/keep/Ignored.java", "{a,b}.java",
+                "a.java");
+        Files.writeString(directory.resolve(SourceFilter.GITIGNORE), """
+                # build output
+                out/
+                Ignored.java
+                {a,b}.java
+                src/**/gen/
+                """);
+        // The deepest file decides, and its patterns are relative to its directory.
+        Files.writeString(directory.resolve("src")
+                .resolve(SourceFilter.GITIGNORE), """
+                /Local.java
+                !keep/Ignored.java
+                """);
+
+        List<Path> found = JavaFiles.find(directory,
+                new SourceFilter(SourceFilter.DEFAULT_INCLUDES, List.of(), true));
+
+        assertEquals(List.of("A.java", "a.java", "src/C.java", "src/keep/Ignored.java"),
+                relative(found));
+    }
+
+    @Test
+    void ignoresGitignoreFilesUnlessAsked() throws IOException {
+        files("A.java", "Ignored.java");
+        Files.writeString(directory.resolve(SourceFilter.GITIGNORE), "Ignored.java\n");
+
+        List<Path> found = JavaFiles.find(directory,
+                new SourceFilter(SourceFilter.DEFAULT_INCLUDES, List.of(), false));
+
+        assertEquals(List.of("A.java", "Ignored.java"), relative(found));
+    }
+
+    /**
+     * Creates empty files in the temporary directory, with their parent directories.
+     *
+     * @param paths Paths of the files, relative to the directory.
+     * @throws IOException If a file could not be created.
+     */
+    private void files(String... paths) throws IOException {
+        for (String path : paths) {
+            Path file = directory.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+    }
+
+    /**
+     * Gets found files relative to the temporary directory.
+     *
+     * @param files Found files.
+     * @return Their relative paths, with slashes, in the same order.
+     */
+    private List<String> relative(List<Path> files) {
+        List<String> paths = new ArrayList<>(files.size());
+        for (Path file : files)
+            paths.add(directory.relativize(file)
+                    .toString()
+                    .replace('\\', '/'));
+        return paths;
+    }
+}
@@ -0,0 +1,121 @@
+package fr.istic.vv_tp2.report;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client of an {@link AnalysisServer}: sends it a request, authenticated by the token of the
+ * server, and prints its answer once the status line of the answer tells it is complete. The
+ * report is printed on the standard output, and the report of the files which could not be
+ * analyzed on the error output.
+ */
+public class AnalysisClient {
+
+    /**
+     * Analysis client entry point.
+     *
+     * @param args Program's arguments : optionally <code>--port &lt;port&gt;</code> to set the
+     *             local port of the server (defaults to {@value AnalysisServer#DEFAULT_PORT}),
+     *             and <code>--token-file &lt;file&gt;</code> to set the file holding the token
+     *             of the server (defaults to the default file of the port), then the command
+     *             (<code>cc</code>, <code>getters</code> or <code>shutdown</code>) and the Java
+     *             files or directories to analyze.
+     * @throws IOException If the server could not be reached, or its token could not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = AnalysisServer.DEFAULT_PORT;
+        Path tokenFile = null;
+        int index = 0;
+        for (; index + 1 < args.length && args[index].startsWith("--"); index += 2) {
+            switch (args[index]) {
+                case "--port" -> port = ServerOptions.parsePort(args[index], args[index + 1]);
+                case "--token-file" -> tokenFile = Path.of(args[index + 1]);
+                default -> {
+                    System.err.println("error: unknown option: " + args[index]);
+                    System.exit(1);
+                }
+            }
+        }
+        if (index >= args.length) {
+            System.err.println("error: no command provided");
+            System.exit(1);
+        }
+        if (tokenFile == null)
+            tokenFile = ServerOptions.defaultTokenFile(port);
+
+        String command = args[index];
+        List<String> paths = new ArrayList<>();
+        for (int i = index + 1; i < args.length; i++)
+            paths.add(Path.of(args[i])
+                    .toAbsolutePath()
+                    .toString());
+
+        if (!request(port, tokenFile, command, paths))
+            System.exit(1);
+    }
+
+    /**
+     * Sends a request to the server, and prints its answer. The lines of the answer are only
+     * printed once its status line is received: an answer cut off, or ending with an error, is
+     * a failure, and its lines are dropped.
+     *
+     * @param port      Local port of the server.
+     * @param tokenFile File holding the token of the server.
+     * @param command   Command of the request.
+     * @param paths     Paths of the Java files or directories of the request, absolute since the
+     *                  server may run in another directory.
+     * @return <code>false</code> if the request failed.
+     * @throws IOException If the server could not be reached, or its token could not be read.
+     */
+    static boolean request(int port, Path tokenFile, String command, List<String> paths)
+            throws IOException {
+        String token = Files.readString(tokenFile, StandardCharsets.UTF_8)
+                .strip();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Writer output = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            output.write(token + "\n");
+            output.write(command + "\n");
+            for (String path : paths)
+                output.write(path + "\n");
+            output.write("\n");
+            output.flush();
+
+            BufferedReader input = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            for (String line = input.readLine(); line != null; line = input.readLine())
+                lines.add(line);
+
+            // The last line is the status of the answer.
+            String status = lines.isEmpty() ? null : lines.remove(lines.size() - 1);
+            if (!AnalysisServer.OK.equals(status)) {
+                System.err.println(status != null && status.startsWith("error: ") ? status
+                        : "error: incomplete answer from the server");
+                return false;
+            }
+
+            PrintStream out = System.out;
+            for (String line : lines) {
+                if (line.isEmpty()) {
+                    // The report of the failures follows.
+                    out = System.err;
+                    continue;
+                }
+                out.println(line);
+            }
+            return true;
+        }
+    }
+}
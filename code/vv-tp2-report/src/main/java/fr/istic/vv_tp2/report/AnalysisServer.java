@@ -0,0 +1,446 @@
+package fr.istic.vv_tp2.report;
+
+import fr.istic.vv_tp2.common.AnalysisDriver;
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.CsvWriter;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.SourceFilter;
+import fr.istic.vv_tp2.ex4.GetterUnitAnalysis;
+import fr.istic.vv_tp2.ex5.CycloAnalyzer;
+import fr.istic.vv_tp2.ex5.CycloCache;
+import fr.istic.vv_tp2.ex5.CycloUnitAnalysis;
+import fr.istic.vv_tp2.ex5.export.CycloSink;
+import fr.istic.vv_tp2.ex5.export.ExternalCycloSorter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Long-running analysis server, which keeps the analyzers warm between requests: the JVM is
+ * started, javaparser is loaded and compiled by the JIT once, the workers of a
+ * {@link AnalysisEngine#persistent(fr.istic.vv_tp2.common.AnalysisOptions) persistent engine}
+ * keep their parsers, and cyclomatic complexities are kept in a {@link CycloCache}, so that
+ * unchanged files are not analyzed twice. The cache is compacted after each request, so that it
+ * does not grow with the changes of the files.
+ * <p>
+ * The server listens on a port of the loopback interface, and answers one request per
+ * connection, one request at a time. At startup, it writes a random token to a file only its
+ * owner can read (see {@link ServerOptions#tokenFile()}), and requests must start with this
+ * token, so that other users cannot read files through the server, nor stop it. The token is
+ * followed by a command on the next line, then by paths of Java files or directories, one per
+ * line, up to an empty line or the end of the stream. A client which does not send its request
+ * within {@value #REQUEST_TIMEOUT_MILLIS} ms is disconnected, so that it does not hold up the
+ * next requests:
+ * <ul>
+ * <li><code>cc</code> computes the cyclomatic complexities of the methods of the files, and
+ * answers with the rows of the CSV report of {@link fr.istic.vv_tp2.ex5.CyclomaticComplexity};
+ * </li>
+ * <li><code>getters</code> finds the fields with no getter of the files, and answers with the rows
+ * of the CSV report of {@link fr.istic.vv_tp2.ex4.GetterFinder};</li>
+ * <li><code>shutdown</code> stops the server.</li>
+ * </ul>
+ * When some files could not be analyzed, the report is followed by an empty line and by the CSV
+ * report of the failures. Every answer ends with a status line: <code>ok</code> once the answer
+ * is complete, or a line starting with <code>error:</code> if the request could not be served,
+ * in which case the lines before it, if any, are an incomplete report. A request failing, even
+ * on an unexpected exception, does not stop the server. The peak heap usage of each request is
+ * printed by the server.
+ */
+public class AnalysisServer implements Closeable {
+
+    /**
+     * Default port of the server.
+     */
+    public static final int DEFAULT_PORT = 4744;
+
+    /**
+     * Time given to a client to send its request, in milliseconds.
+     */
+    public static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Status line of the complete answers.
+     */
+    static final String OK = "ok";
+
+    /**
+     * Number of random bytes of the token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Header of the CSV report of the cyclomatic complexities.
+     */
+    private static final String[] CC_HEADER = {"Package", "Declaring class", "Method", "Params",
+            "CC"};
+
+    /**
+     * Options of the server.
+     */
+    private final ServerOptions options;
+
+    /**
+     * Filter selecting the files of the requested directories.
+     */
+    private final SourceFilter filter;
+
+    /**
+     * Engine kept between requests.
+     */
+    private final AnalysisEngine engine;
+
+    /**
+     * Cache of the cyclomatic complexities, kept between requests.
+     */
+    private final CycloCache cache;
+
+    /**
+     * Socket of the server.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * File holding the token of the server.
+     */
+    private final Path tokenFile;
+
+    /**
+     * Token the requests start with, in UTF-8.
+     */
+    private final byte[] token;
+
+    /**
+     * Constructor of the class, binding the server to its port and writing its token.
+     *
+     * @param options Options of the server.
+     * @throws IOException If the port could not be bound, or the token could not be written.
+     */
+    public AnalysisServer(ServerOptions options) throws IOException {
+        this.options = options;
+        this.filter = options.sourceFilter();
+        this.cache = options.cacheFile == null
+                ? CycloCache.inMemory(options.engine, options.charset)
+                : CycloCache.load(options.cacheFile, options.engine, options.charset);
+        this.serverSocket = new ServerSocket(options.port, 0, InetAddress.getLoopbackAddress());
+        this.tokenFile = options.tokenFile();
+        this.token = writeToken(tokenFile);
+        this.engine = AnalysisEngine.persistent(options);
+    }
+
+    /**
+     * Analysis server entry point.
+     *
+     * @param args Program's arguments : optionally <code>--port &lt;port&gt;</code> to set the
+     *             local port of the server (defaults to {@value #DEFAULT_PORT}), and the options
+     *             of {@link fr.istic.vv_tp2.ex5.CyclomaticComplexity}, which apply to every
+     *             request. With <code>--cache &lt;file&gt;</code>, the cache is loaded at startup
+     *             and saved at shutdown. With <code>--token-file &lt;file&gt;</code>, the token
+     *             is written to the file instead of the default file of the port.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void main(String[] args) throws IOException {
+        ServerOptions options = null;
+        try {
+            options = ServerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(1);
+        }
+
+        try (AnalysisServer server = new AnalysisServer(options)) {
+            System.out.println("Listening on port " + options.port + "...");
+            server.serve();
+        }
+    }
+
+    /**
+     * Writes a new random token to a file which only its owner can read. The file is created
+     * anew, so that a file left by another user is not reused.
+     *
+     * @param file Token file.
+     * @return The token, in UTF-8.
+     * @throws IOException If the token could not be written.
+     */
+    private static byte[] writeToken(Path file) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        String token = HexFormat.of()
+                .formatHex(random);
+
+        Files.deleteIfExists(file);
+        if (file.getFileSystem()
+                .supportedFileAttributeViews()
+                .contains("posix"))
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        else
+            // Elsewhere, the file inherits the access rights of the user's directory.
+            Files.createFile(file);
+        Files.writeString(file, token + "\n", StandardCharsets.UTF_8);
+        return token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serves requests until a <code>shutdown</code> request is received.
+     *
+     * @throws IOException If the server socket failed.
+     */
+    public void serve() throws IOException {
+        boolean running = true;
+        while (running) {
+            try (Socket socket = serverSocket.accept()) {
+                running = handle(socket);
+            } catch (IOException e) {
+                // A client went away: keep serving the others.
+                System.err.println("warning: request failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Handles the request of a connection, and ends its answer with a status line.
+     *
+     * @param socket Socket of the connection.
+     * @return <code>false</code> if the server must stop.
+     * @throws IOException If the connection failed.
+     */
+    private boolean handle(Socket socket) throws IOException {
+        socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+        BufferedReader input = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        ConnectionOutput output = new ConnectionOutput(socket.getOutputStream());
+
+        // The rest of the request is not even read from an unauthenticated client.
+        String requestToken = input.readLine();
+        if (requestToken == null || !MessageDigest.isEqual(token,
+                requestToken.getBytes(StandardCharsets.UTF_8))) {
+            output.endAnswer("error: invalid token");
+            return true;
+        }
+
+        String command = input.readLine();
+        List<String> paths = new ArrayList<>();
+        String line;
+        while ((line = input.readLine()) != null && !line.isEmpty())
+            paths.add(line);
+
+        PeakHeap.reset();
+        boolean running = true;
+        String status = OK;
+        try {
+            switch (command == null ? "" : command.strip()) {
+                case "cc" -> analyzeComplexity(files(paths), output);
+                case "getters" -> findGetters(files(paths), output);
+                case "shutdown" -> running = false;
+                default -> throw new IllegalArgumentException("unknown command: " + command);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            status = "error: " + e.getMessage();
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // An analysis failed unexpectedly: its memory is released with the request, and the
+            // server keeps serving.
+            System.err.println("warning: request failed: " + e);
+            status = "error: " + e;
+        }
+        output.endAnswer(status);
+
+        System.out.print(command + ": ");
+        PeakHeap.print();
+        return running;
+    }
+
+    /**
+     * Gets the Java files of the requested paths. Directories are explored with the filter of
+     * the server, and files are taken as they are.
+     *
+     * @param paths Requested paths.
+     * @return The Java files to analyze.
+     * @throws IOException If a path does not exist or could not be explored.
+     */
+    private List<Path> files(List<String> paths) throws IOException {
+        if (paths.isEmpty())
+            throw new IllegalArgumentException("no path provided");
+
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            Path file = Path.of(path);
+            if (Files.isDirectory(file))
+                files.addAll(JavaFiles.find(file, filter));
+            else if (Files.isRegularFile(file))
+                files.add(file);
+            else
+                throw new IOException("no such file: " + path);
+        }
+        return files;
+    }
+
+    /**
+     * Computes the cyclomatic complexities of the methods of files, and writes their report,
+     * sorted by descending complexities.
+     *
+     * @param files  Java files.
+     * @param output Output of the connection, which is not closed by the report.
+     * @throws IOException If any I/O error occurs.
+     */
+    private void analyzeComplexity(List<Path> files, OutputStream output) throws IOException {
+        ByteArrayOutputStream failuresReport = new ByteArrayOutputStream();
+        try (ExternalCycloSorter sorter =
+                     new ExternalCycloSorter(ExternalCycloSorter.DEFAULT_RUN_SIZE)) {
+            try (ParseFailures failures = failures(failuresReport);
+                 CycloAnalyzer analyzer = new CycloAnalyzer(engine.reportingTo(failures), cache,
+                         new CycloUnitAnalysis(sorter::add, options.engine))) {
+                analyzer.analyze(files);
+                // Rows of changed and deleted files are reclaimed before the next request.
+                cache.compact();
+                if (failures.getFailedFiles() == 0)
+                    failuresReport = null;
+            }
+
+            try (CsvWriter report = new CsvWriter(Channels.newChannel(output))) {
+                report.row(CC_HEADER);
+                CycloSink rows = entry -> report.field(entry.packageName)
+                        .field(entry.className)
+                        .field(entry.methodName)
+                        .field(entry.paramList)
+                        .field(entry.cyclomaticNumber)
+                        .endRow();
+                sorter.forEachSorted(rows);
+            }
+        }
+        writeFailures(failuresReport, output);
+    }
+
+    /**
+     * Finds the fields with no getter of files, and writes their report.
+     *
+     * @param files  Java files.
+     * @param output Output of the connection, which is not closed by the report.
+     * @throws IOException If any I/O error occurs.
+     */
+    private void findGetters(List<Path> files, OutputStream output) throws IOException {
+        ByteArrayOutputStream failuresReport = new ByteArrayOutputStream();
+        try (ParseFailures failures = failures(failuresReport);
+             AnalysisDriver driver = new AnalysisDriver(engine.reportingTo(failures))) {
+            driver.add(new GetterUnitAnalysis(
+                            new CsvWriter(Channels.newChannel(output))))
+                    .run(files);
+            if (failures.getFailedFiles() == 0)
+                failuresReport = null;
+        }
+        writeFailures(failuresReport, output);
+    }
+
+    /**
+     * Opens the report of the files of a request which could not be analyzed.
+     *
+     * @param report Buffer receiving the report.
+     * @return The report.
+     * @throws IOException If the report could not be written.
+     */
+    private static ParseFailures failures(ByteArrayOutputStream report) throws IOException {
+        return new ParseFailures(new CsvWriter(Channels.newChannel(report)));
+    }
+
+    /**
+     * Writes the report of the files which could not be analyzed after the report of a request,
+     * separated by an empty line.
+     *
+     * @param report Report of the failures, or <code>null</code> if every file was analyzed.
+     * @param output Output of the connection.
+     * @throws IOException If any I/O error occurs.
+     */
+    private static void writeFailures(ByteArrayOutputStream report, OutputStream output)
+            throws IOException {
+        if (report == null)
+            return;
+        output.write(System.lineSeparator()
+                .getBytes(StandardCharsets.UTF_8));
+        report.writeTo(output);
+    }
+
+    /**
+     * Stops the server, deleting its token file, and saving its cache if it has a cache file.
+     *
+     * @throws IOException If the cache could not be saved.
+     */
+    @Override
+    public void close() throws IOException {
+        try (serverSocket; engine) {
+            Files.deleteIfExists(tokenFile);
+            if (options.cacheFile != null)
+                cache.save();
+        }
+    }
+
+    /**
+     * Output of a connection. Closing a report flushes the output instead of closing the
+     * connection, and the output tracks whether its last line is complete, so that the status
+     * line of the answer starts a line of its own.
+     */
+    private static final class ConnectionOutput extends FilterOutputStream {
+        /**
+         * Whether the bytes written so far end with a complete line.
+         */
+        private boolean atLineStart = true;
+
+        /**
+         * Constructor of the class.
+         *
+         * @param output Output stream of the connection.
+         */
+        ConnectionOutput(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            atLineStart = b == '\n';
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            if (length > 0)
+                atLineStart = bytes[offset + length - 1] == '\n';
+        }
+
+        /**
+         * Ends the answer with its status line, after the last line written, if incomplete.
+         *
+         * @param status Status line.
+         * @throws IOException If the connection failed.
+         */
+        void endAnswer(String status) throws IOException {
+            if (!atLineStart)
+                write('\n');
+            write((status + "\n").getBytes(StandardCharsets.UTF_8));
+            flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
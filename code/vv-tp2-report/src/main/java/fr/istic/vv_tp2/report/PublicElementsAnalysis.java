@@ -0,0 +1,55 @@
+package fr.istic.vv_tp2.report;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import fr.istic.vv.PublicElementsPrinter;
+import fr.istic.vv_tp2.common.UnitAnalysis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lists the public types of each compilation unit along with their public methods, using the
+ * starter's {@link PublicElementsPrinter}, into a text file. Closing the analysis closes the file.
+ */
+public class PublicElementsAnalysis implements UnitAnalysis<String> {
+
+    /**
+     * Print stream to the output file.
+     */
+    private final PrintStream output;
+
+    /**
+     * Constructor of the class.
+     *
+     * @param outputFile Text output file.
+     * @throws FileNotFoundException If the output file could not be opened.
+     */
+    public PublicElementsAnalysis(File outputFile) throws FileNotFoundException {
+        output = new PrintStream(new FileOutputStream(outputFile), false, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String analyze(CompilationUnit unit) {
+        // Lines of the unit are buffered, so that units can be analyzed concurrently.
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        try (PrintStream unitOutput = new PrintStream(lines, false, StandardCharsets.UTF_8)) {
+            unit.accept(new PublicElementsPrinter(unitOutput), null);
+        }
+        return lines.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void accept(String lines) {
+        output.print(lines);
+    }
+
+    @Override
+    public void close() {
+        output.close();
+    }
+}
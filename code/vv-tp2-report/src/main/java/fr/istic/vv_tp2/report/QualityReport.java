@@ -0,0 +1,83 @@
+package fr.istic.vv_tp2.report;
+
+import fr.istic.vv_tp2.common.AnalysisDriver;
+import fr.istic.vv_tp2.common.AnalysisEngine;
+import fr.istic.vv_tp2.common.JavaFiles;
+import fr.istic.vv_tp2.common.ParseFailures;
+import fr.istic.vv_tp2.common.PeakHeap;
+import fr.istic.vv_tp2.common.RunProfile;
+import fr.istic.vv_tp2.ex3.NestingChecker;
+import fr.istic.vv_tp2.ex3.NestingOptions;
+import fr.istic.vv_tp2.ex3.NestingUnitAnalysis;
+import fr.istic.vv_tp2.ex4.GetterUnitAnalysis;
+import fr.istic.vv_tp2.ex5.CycloEngine;
+import fr.istic.vv_tp2.ex5.CycloUnitAnalysis;
+import fr.istic.vv_tp2.ex5.CyclomaticComplexity;
+import fr.istic.vv_tp2.ex6.CohesionUnitAnalysis;
+import fr.istic.vv_tp2.ex6.export.CSVCohesionExporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Main class of the quality report, which runs every analysis of the project (cyclomatic
+ * complexity, nesting rules, getter finder, tight class cohesion and public elements listing)
+ * while parsing each Java file only once.
+ */
+public class QualityReport {
+
+    /**
+     * Quality report entry point.
+     *
+     * @param args Program's arguments : should contain the folder of a project, optionally
+     *             followed by <code>--threads &lt;count&gt;</code> to set the number of worker
+     *             threads (defaults to the number of available processors) and
+     *             <code>--charset &lt;name&gt;</code> to set the charset of the source files
+     *             (defaults to UTF-8). Analyzed files are selected by the options described in
+     *             {@link fr.istic.vv_tp2.common.AnalysisOptions}, and the thresholds of the
+     *             nesting rules are changed by <code>--threshold &lt;rule&gt;=&lt;depth&gt;</code>.
+     *             The peak heap usage of the run is printed at the end. With
+     *             <code>--profile &lt;file&gt;</code>, the time spent in each phase and the
+     *             slowest files are written to the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void main(String[] args) throws IOException {
+        NestingOptions options = null;
+        try {
+            options = NestingOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(1);
+        }
+
+        String projectName = new File(options.path).getName();
+
+        System.out.println("Analyzing the project...");
+
+        RunProfile profile = RunProfile.of(options);
+        RunProfile.Probe walk = profile.start();
+        List<Path> javaFiles = JavaFiles.find(Path.of(options.path), options.sourceFilter());
+        profile.stop(walk, RunProfile.Phase.WALK);
+
+        try (ParseFailures failures = new ParseFailures(
+                new File(projectName + "_parse_failures.csv"));
+             AnalysisDriver driver = new AnalysisDriver(
+                     new AnalysisEngine(options, failures).profiledBy(profile))) {
+            // Each analysis is registered before the next one is opened, so that it is closed
+            // with the driver even if the next one cannot be opened.
+            driver.add(new CycloUnitAnalysis(
+                            CyclomaticComplexity.openExports(projectName, CycloEngine.CFG)))
+                    .add(new NestingUnitAnalysis(
+                            Path.of(projectName + NestingChecker.FILE_SUFFIX), options.rules()))
+                    .add(new GetterUnitAnalysis(new File(projectName + "_report_no_getter.csv")))
+                    .add(new CohesionUnitAnalysis(new CSVCohesionExporter().open(projectName)))
+                    .add(new PublicElementsAnalysis(
+                            new File(projectName + "_public_elements.txt")))
+                    .run(javaFiles);
+        }
+        profile.write();
+        PeakHeap.print();
+    }
+}
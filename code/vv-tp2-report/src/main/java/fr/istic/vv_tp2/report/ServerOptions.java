@@ -0,0 +1,94 @@
+package fr.istic.vv_tp2.report;
+
+import fr.istic.vv_tp2.ex5.CycloOptions;
+
+import java.nio.file.Path;
+
+/**
+ * Command line options of the analysis server. The options of the analyses apply to every
+ * request, and no project path is given: paths come with the requests.
+ */
+public class ServerOptions extends CycloOptions {
+
+    /**
+     * Local port of the server.
+     */
+    public int port = AnalysisServer.DEFAULT_PORT;
+
+    /**
+     * File the token of the server is written to, or <code>null</code> for the default file of
+     * the port.
+     */
+    public Path tokenFile = null;
+
+    /**
+     * Parses the program's arguments.
+     *
+     * @param args Program's arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static ServerOptions parse(String[] args) {
+        ServerOptions options = new ServerOptions();
+        options.parseArgs(args);
+        return options;
+    }
+
+    @Override
+    protected int parseOption(String[] args, int index) {
+        String option = args[index];
+        if (option.equals("--port")) {
+            port = parsePort(option, value(args, index + 1, option));
+            return index + 2;
+        }
+        if (option.equals("--token-file")) {
+            tokenFile = Path.of(value(args, index + 1, option));
+            return index + 2;
+        }
+        // Profiles cover a single run, while the server runs for every request.
+        if (option.equals("--profile") || option.equals("--slowest-files"))
+            throw new IllegalArgumentException("option not supported by the server: " + option);
+        return super.parseOption(args, index);
+    }
+
+    @Override
+    protected boolean requiresPath() {
+        return false;
+    }
+
+    /**
+     * Gets the file the token of the server is written to.
+     *
+     * @return The token file of the options, or the default token file of the port.
+     */
+    public Path tokenFile() {
+        return tokenFile != null ? tokenFile : defaultTokenFile(port);
+    }
+
+    /**
+     * Gets the default file holding the token of the server listening on a port, in the home
+     * directory of the user.
+     *
+     * @param port Local port of the server.
+     * @return The token file.
+     */
+    static Path defaultTokenFile(int port) {
+        return Path.of(System.getProperty("user.home"), ".vv-tp2-server-" + port + ".token");
+    }
+
+    /**
+     * Parses a port number.
+     *
+     * @param option Name of the option.
+     * @param value  Value of the option.
+     * @return The port.
+     * @throws IllegalArgumentException If the value is not a valid port.
+     */
+    static int parsePort(String option, String value) {
+        int port = parsePositive(option, value);
+        if (port > 0xFFFF)
+            throw new IllegalArgumentException(
+                    "invalid value for option " + option + ": " + value);
+        return port;
+    }
+}
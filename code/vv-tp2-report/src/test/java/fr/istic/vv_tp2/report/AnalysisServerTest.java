@@ -0,0 +1,161 @@
+package fr.istic.vv_tp2.report;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the authentication of the requests of the {@link AnalysisServer}, and the status line
+ * ending its answers.
+ */
+class AnalysisServerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path tokenFile;
+
+    private int port;
+
+    private Thread serving;
+
+    @BeforeEach
+    void start() throws IOException {
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        tokenFile = directory.resolve("server.token");
+        AnalysisServer server = new AnalysisServer(ServerOptions.parse(new String[]{
+                "--port", Integer.toString(port), "--token-file", tokenFile.toString(),
+                "--threads", "1"}));
+        serving = new Thread(() -> {
+            try (server) {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        serving.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException, InterruptedException {
+        assertTrue(AnalysisClient.request(port, tokenFile, "shutdown", List.of()));
+        serving.join();
+        assertFalse(Files.exists(tokenFile));
+    }
+
+    @Test
+    void tokenIsReadableByOwnerOnly() throws IOException {
+        assumeTrue(tokenFile.getFileSystem()
+                .supportedFileAttributeViews()
+                .contains("posix"));
+
+        assertEquals("rw-------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+    }
+
+    @Test
+    void completeAnswerEndsWithOk() throws IOException {
+        Path source = Files.writeString(directory.resolve("Loop.java"), """
+                class Loop {
+                    void run(boolean x) {
+                        do {
+                            run(x);
+                        } while (x);
+                    }
+                }
+                """);
+
+        List<String> answer = answer(token(), "cc", source.toString());
+
+        assertEquals(List.of("Package,Declaring class,Method,Params,CC",
+                "(default),Loop,run,(boolean x),2", AnalysisServer.OK), answer);
+    }
+
+    @Test
+    void invalidTokenIsRefused() throws IOException {
+        assertEquals(List.of("error: invalid token"),
+                answer("0".repeat(token().length()), "cc", directory.toString()));
+        assertEquals(List.of("error: invalid token"), answer("", "shutdown"));
+    }
+
+    @Test
+    void failedRequestEndsWithError() throws IOException {
+        assertEquals(List.of("error: unknown command: lint"), answer(token(), "lint"));
+        assertEquals(List.of("error: no such file: " + directory.resolve("Missing.java")),
+                answer(token(), "cc", directory.resolve("Missing.java")
+                        .toString()));
+    }
+
+    @Test
+    void clientFailsWithoutTheToken() throws IOException {
+        Path otherToken = Files.writeString(directory.resolve("other.token"), "0\n");
+
+        assertFalse(AnalysisClient.request(port, otherToken, "getters",
+                List.of(directory.toString())));
+        assertTrue(AnalysisClient.request(port, tokenFile, "getters",
+                List.of(directory.toString())));
+    }
+
+    /**
+     * Reads the token written by the server.
+     *
+     * @return The token.
+     * @throws IOException If the token could not be read.
+     */
+    private String token() throws IOException {
+        return Files.readString(tokenFile)
+                .strip();
+    }
+
+    /**
+     * Sends a request to the server.
+     *
+     * @param token   Token sent on the first line of the request.
+     * @param command Command of the request.
+     * @param paths   Paths of the request.
+     * @return The lines of the answer.
+     * @throws IOException If the server could not be reached.
+     */
+    private List<String> answer(String token, String command, String... paths)
+            throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Writer output = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            output.write(token + "\n" + command + "\n");
+            for (String path : paths)
+                output.write(path + "\n");
+            output.write("\n");
+            output.flush();
+
+            BufferedReader input = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            for (String line = input.readLine(); line != null; line = input.readLine())
+                lines.add(line);
+            return lines;
+        }
+    }
+}